@@ -0,0 +1,28 @@
+package ds.bench;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Entry point of benchmarks.jar: runs JMH, writing JSON results to
+ * {@code jmh-result-<version>.json} unless the caller chose a result format or file.
+ */
+public final class BenchmarkMain {
+    private BenchmarkMain() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        List<String> options = new ArrayList<>(Arrays.asList(args));
+        if (!options.contains("-rf")) {
+            options.add(0, "-rf");
+            options.add(1, "json");
+        }
+        if (!options.contains("-rff")) {
+            String version = BenchmarkMain.class.getPackage().getImplementationVersion();
+            options.add(0, "-rff");
+            options.add(1, "jmh-result-" + (version == null ? "dev" : version) + ".json");
+        }
+        org.openjdk.jmh.Main.main(options.toArray(new String[0]));
+    }
+}
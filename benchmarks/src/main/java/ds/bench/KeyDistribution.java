@@ -0,0 +1,113 @@
+package ds.bench;
+
+import java.util.SplittableRandom;
+
+/**
+ * Key sets and access patterns shared by the benchmarks.
+ * <ul>
+ *   <li>SEQUENTIAL: keys 0, 1, 2, ...; uniform access.</li>
+ *   <li>RANDOM: distinct pseudo-random ints; uniform access.</li>
+ *   <li>HIGH_BIT: bit-reversed counters, so keys differ only in their high bits and collide in
+ *       the low bits a power-of-two table indexes by; uniform access.</li>
+ *   <li>ZIPFIAN: the RANDOM key set, accessed with Zipf skew (theta = 0.99, as in YCSB), so a few
+ *       hot keys take most of the lookups.</li>
+ * </ul>
+ */
+public enum KeyDistribution {
+    SEQUENTIAL,
+    RANDOM,
+    HIGH_BIT,
+    ZIPFIAN;
+
+    private static final double ZIPF_THETA = 0.99;
+
+    /**
+     * {@code count} distinct keys. The first n of {@code keys(2 * n)} serve as the table contents
+     * and the rest as guaranteed misses.
+     */
+    public int[] keys(int count) {
+        int[] keys = new int[count];
+        for (int i = 0; i < count; i++) {
+            switch (this) {
+                case SEQUENTIAL:
+                    keys[i] = i;
+                    break;
+                case HIGH_BIT:
+                    keys[i] = Integer.reverse(i);
+                    break;
+                default:
+                    keys[i] = mix(i);
+            }
+        }
+        return keys;
+    }
+
+    /** Indexes into a key array of size {@code n}, in the order the benchmark should access them. */
+    public int[] accessOrder(int n, int length, long seed) {
+        SplittableRandom rnd = new SplittableRandom(seed);
+        int[] order = new int[length];
+        if (this == ZIPFIAN) {
+            Zipf zipf = new Zipf(n, ZIPF_THETA);
+            for (int i = 0; i < length; i++) {
+                order[i] = zipf.next(rnd);
+            }
+        } else {
+            for (int i = 0; i < length; i++) {
+                order[i] = rnd.nextInt(n);
+            }
+        }
+        return order;
+    }
+
+    /** Murmur3 fmix32: a bijection, so distinct inputs give distinct, well-scattered keys. */
+    private static int mix(int h) {
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        h ^= h >>> 16;
+        return h;
+    }
+
+    /**
+     * Zipf-distributed ranks in [0, n) using the closed-form approximation of Gray et al.,
+     * "Quickly Generating Billion-Record Synthetic Databases" (the YCSB generator).
+     */
+    private static final class Zipf {
+        private final int n;
+        private final double theta;
+        private final double alpha;
+        private final double zetan;
+        private final double eta;
+
+        Zipf(int n, double theta) {
+            this.n = n;
+            this.theta = theta;
+            double zeta2 = zeta(2, theta);
+            this.alpha = 1.0 / (1.0 - theta);
+            this.zetan = zeta(n, theta);
+            this.eta = (1 - Math.pow(2.0 / n, 1 - theta)) / (1 - zeta2 / zetan);
+        }
+
+        private static double zeta(int n, double theta) {
+            double sum = 0;
+            for (int i = 1; i <= n; i++) {
+                sum += 1 / Math.pow(i, theta);
+            }
+            return sum;
+        }
+
+        int next(SplittableRandom rnd) {
+            double u = rnd.nextDouble();
+            double uz = u * zetan;
+            if (uz < 1.0) {
+                return 0;
+            }
+            if (uz < 1.0 + Math.pow(0.5, theta)) {
+                return 1;
+            }
+            int rank = (int) (n * Math.pow(eta * u - eta + 1, alpha));
+            return Math.min(rank, n - 1);
+        }
+    }
+}
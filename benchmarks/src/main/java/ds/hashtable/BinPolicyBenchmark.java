@@ -0,0 +1,113 @@
+package ds.hashtable;
+
+import ds.bench.KeyDistribution;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The three {@link BinPolicy} layouts on identical workloads: lookups (hit / miss), delete +
+ * re-insert churn and a full build over {@code size} entries. Keys are hashed with
+ * {@link HashStrategy#identity()} so the bucket load is set by the key set alone:
+ * UNIFORM keys spread evenly (mostly 0-2 entries per bucket at load factor 0.75), CLUSTERED keys
+ * come in groups of 8 that differ only in bits 24 and up and therefore share a bucket.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class BinPolicyBenchmark {
+    // Length of the precomputed access streams; a power of two so the cursor can wrap with a mask.
+    private static final int STREAM_LENGTH = 1 << 20;
+    private static final int CLUSTER = 8;
+
+    @Param({"CHAIN", "TREE", "FLAT"})
+    public BinPolicy policy;
+
+    @Param({"UNIFORM", "CLUSTERED"})
+    public String keys;
+
+    @Param({"1000", "1000000"})
+    public int size;
+
+    private Integer[] present;
+    private Integer[] absent;
+    private int[] order;
+    private HashTable<Integer, Integer> table;
+    private int cursor;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        present = new Integer[size];
+        absent = new Integer[size];
+        if ("CLUSTERED".equals(keys)) {
+            for (int i = 0; i < size; i++) {
+                // Misses land in the same buckets as the hits, so they scan a full bin.
+                present[i] = (i / CLUSTER) | ((i % CLUSTER) << 24);
+                absent[i] = (i / CLUSTER) | ((CLUSTER + i % CLUSTER) << 24);
+            }
+        } else {
+            int[] random = KeyDistribution.RANDOM.keys(2 * size);
+            for (int i = 0; i < size; i++) {
+                present[i] = random[i];
+                absent[i] = random[size + i];
+            }
+        }
+        order = KeyDistribution.RANDOM.accessOrder(size, STREAM_LENGTH, 42L);
+        table = fill(newTable(), present);
+    }
+
+    private HashTable<Integer, Integer> newTable() {
+        return new HashTable<>(16, HashStrategy.identity(), policy);
+    }
+
+    private static HashTable<Integer, Integer> fill(HashTable<Integer, Integer> table, Integer[] keys) {
+        for (Integer key : keys) {
+            table.insert(key, key);
+        }
+        return table;
+    }
+
+    private int next() {
+        return cursor++ & (STREAM_LENGTH - 1);
+    }
+
+    @Benchmark
+    public Integer getHit() {
+        return table.get(present[order[next()]]);
+    }
+
+    @Benchmark
+    public Integer getMiss() {
+        return table.get(absent[order[next()]]);
+    }
+
+    /** Delete + re-insert of a present key (the size stays constant). */
+    @Benchmark
+    public Integer churn() {
+        Integer key = present[order[next()]];
+        table.delete(key);
+        table.insert(key, key);
+        return key;
+    }
+
+    /** Whole-table build time, including every resize. */
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public HashTable<Integer, Integer> build() {
+        return fill(newTable(), present);
+    }
+}
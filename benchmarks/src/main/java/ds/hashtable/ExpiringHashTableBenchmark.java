@@ -0,0 +1,85 @@
+package ds.hashtable;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Continuous churn on a table of {@code size} live entries: every operation advances a virtual
+ * clock by {@code STEP} ns and writes a fresh key, with the TTL set so that {@code size} entries are
+ * live at any time and one expires per write. TimerWheel is ExpiringHashTable, which expires through
+ * its wheel on each insert; PeriodicSweep is a HashTable of deadlines swept with removeIf every
+ * tenth of a TTL, the O(n) scan it replaces, so its average includes the amortized sweeps.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class ExpiringHashTableBenchmark {
+    // Distinct keys written in turn; a power of two so the cursor can wrap with a mask, and larger
+    // than any size below so a key only comes back after its previous entry has expired.
+    private static final int KEY_SPACE = 1 << 24;
+    // Virtual time between two writes.
+    private static final long STEP = 100;
+    private static final int SWEEPS_PER_TTL = 10;
+
+    @Param({"TimerWheel", "PeriodicSweep"})
+    public String impl;
+
+    @Param({"1000000", "10000000"})
+    public int size;
+
+    private Integer[] keys;
+    private ExpiringHashTable<Integer, Integer> wheelTable;
+    private HashTable<Integer, Long> sweptTable;
+    private boolean useWheel;
+    private long ttl;
+    private int sweepInterval;
+    private long clock;
+    private int cursor;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        keys = new Integer[KEY_SPACE];
+        for (int i = 0; i < KEY_SPACE; i++) {
+            keys[i] = i;
+        }
+        useWheel = "TimerWheel".equals(impl);
+        ttl = size * STEP;
+        sweepInterval = size / SWEEPS_PER_TTL;
+        wheelTable = new ExpiringHashTable<>(16, ttl, TimeUnit.NANOSECONDS, () -> clock);
+        sweptTable = new HashTable<>();
+        for (int i = 0; i < size; i++) {
+            churn();
+        }
+    }
+
+    @Benchmark
+    public int churn() {
+        int i = cursor++;
+        Integer key = keys[i & (KEY_SPACE - 1)];
+        long now = clock += STEP;
+        if (useWheel) {
+            wheelTable.insert(key, key);
+            return wheelTable.size();
+        }
+        sweptTable.insert(key, now + ttl);
+        if (i % sweepInterval == 0) {
+            sweptTable.removeIf((k, deadline) -> deadline <= now);
+        }
+        return sweptTable.size();
+    }
+}
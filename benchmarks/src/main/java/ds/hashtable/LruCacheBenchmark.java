@@ -0,0 +1,99 @@
+package ds.hashtable;
+
+import ds.bench.KeyDistribution;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Read-through lookups (load and insert on a miss) over a Zipfian trace (theta = 0.99) of
+ * {@code KEY_SPACE} keys, for LruCache and an access-ordered LinkedHashMap with removeEldestEntry.
+ * The {@code hits} and {@code misses} secondary results give the hit rate; both caches evict in
+ * the same order, so they must match and only the time per lookup differs.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class LruCacheBenchmark {
+    // Length of the precomputed access streams; a power of two so the cursor can wrap with a mask.
+    private static final int STREAM_LENGTH = 1 << 22;
+    private static final int KEY_SPACE = 1_000_000;
+
+    @Param({"LruCache", "LinkedHashMap"})
+    public String impl;
+
+    @Param({"1000", "10000", "100000"})
+    public int maximumSize;
+
+    private Integer[] keys;
+    private int[] order;
+    private LruCache<Integer, Integer> lruCache;
+    private Map<Integer, Integer> linkedHashMap;
+    private boolean useLruCache;
+    private int cursor;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Counters {
+        public long hits;
+        public long misses;
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        keys = new Integer[KEY_SPACE];
+        for (int i = 0; i < KEY_SPACE; i++) {
+            keys[i] = i;
+        }
+        order = KeyDistribution.ZIPFIAN.accessOrder(KEY_SPACE, STREAM_LENGTH, 42L);
+        useLruCache = "LruCache".equals(impl);
+        lruCache = new LruCache<>(maximumSize);
+        final int bound = maximumSize;
+        linkedHashMap = new LinkedHashMap<Integer, Integer>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, Integer> eldest) {
+                return size() > bound;
+            }
+        };
+    }
+
+    /** Stand-in for the slow store behind the cache. */
+    private static Integer load(Integer key) {
+        return key;
+    }
+
+    @Benchmark
+    public Integer readThrough(Counters counters) {
+        Integer key = keys[order[cursor++ & (STREAM_LENGTH - 1)]];
+        Integer value = useLruCache ? lruCache.get(key) : linkedHashMap.get(key);
+        if (value != null) {
+            counters.hits++;
+            return value;
+        }
+        counters.misses++;
+        value = load(key);
+        if (useLruCache) {
+            lruCache.insert(key, value);
+        } else {
+            linkedHashMap.put(key, value);
+        }
+        return value;
+    }
+}
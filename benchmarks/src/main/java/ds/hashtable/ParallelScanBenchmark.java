@@ -0,0 +1,86 @@
+package ds.hashtable;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Whole-table scans of {@code size} entries on a ForkJoinPool of {@code threads} workers: the bulk
+ * operations (forEach, reduce, a search that never matches) with a parallelism threshold of
+ * {@code PARALLELISM_THRESHOLD} entries, and a parallel stream over the table's spliterator.
+ * {@code sequentialReduce} is the single-threaded baseline; compare the other scores across threads.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class ParallelScanBenchmark {
+    private static final long PARALLELISM_THRESHOLD = 10_000;
+
+    @Param({"1", "2", "4", "8"})
+    public int threads;
+
+    @Param({"1000000", "10000000"})
+    public int size;
+
+    private HashTable<Integer, Long> table;
+    private ForkJoinPool pool;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        table = HashTable.withExpectedSize(size);
+        for (int i = 0; i < size; i++) {
+            table.insert(i, (long) i);
+        }
+        pool = new ForkJoinPool(threads);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    @Benchmark
+    public Long sequentialReduce() {
+        return table.reduce(Long.MAX_VALUE, (k, v) -> v, Long::sum);
+    }
+
+    @Benchmark
+    public Long reduce() {
+        return pool.submit(() -> table.reduce(PARALLELISM_THRESHOLD, (k, v) -> v, Long::sum)).join();
+    }
+
+    @Benchmark
+    public long forEach() {
+        LongAdder sum = new LongAdder();
+        pool.submit(() -> table.forEach(PARALLELISM_THRESHOLD, (k, v) -> sum.add(v))).join();
+        return sum.sum();
+    }
+
+    @Benchmark
+    public Integer searchMiss() {
+        return pool.submit(() -> table.search(PARALLELISM_THRESHOLD, (k, v) -> v < 0 ? k : null)).join();
+    }
+
+    @Benchmark
+    public long parallelStream() {
+        return pool.submit(() -> table.stream().parallel().mapToLong(Map.Entry::getValue).sum()).join();
+    }
+}
@@ -0,0 +1,86 @@
+package ds.rbtree;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Loading {@code size} pre-sorted keys: repeated insert (ascending order, the worst case for
+ * rebalancing) vs the linear-time buildFromSorted, and merging a sorted batch of the odd keys
+ * into a tree holding the even ones with insertAll vs repeated insert.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class BulkLoadBenchmark {
+    @Param({"1000000", "10000000"})
+    public int size;
+
+    private Integer[] keys;
+    private Integer[] evens;
+    private Integer[] odds;
+    private RedBlackTree<Integer, Integer> evenTree;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        keys = new Integer[size];
+        evens = new Integer[size / 2];
+        odds = new Integer[size - size / 2];
+        for (int i = 0; i < size; i++) {
+            keys[i] = i;
+            if ((i & 1) == 0) {
+                evens[i >> 1] = keys[i];
+            } else {
+                odds[i >> 1] = keys[i];
+            }
+        }
+    }
+
+    @Setup(Level.Invocation)
+    public void setUpEvenTree() {
+        evenTree = null;   // let the previous tree be collected before building the next one
+        evenTree = RedBlackTree.buildFromSorted(evens, evens);
+    }
+
+    @Benchmark
+    public RedBlackTree<Integer, Integer> repeatedInsert() {
+        RedBlackTree<Integer, Integer> tree = new RedBlackTree<>();
+        for (Integer k : keys) {
+            tree.insert(k, k);
+        }
+        return tree;
+    }
+
+    @Benchmark
+    public RedBlackTree<Integer, Integer> buildFromSorted() {
+        return RedBlackTree.buildFromSorted(keys, keys);
+    }
+
+    @Benchmark
+    public RedBlackTree<Integer, Integer> mergeRepeatedInsert() {
+        for (Integer k : odds) {
+            evenTree.insert(k, k);
+        }
+        return evenTree;
+    }
+
+    @Benchmark
+    public RedBlackTree<Integer, Integer> mergeInsertAll() {
+        evenTree.insertAll(odds, odds);
+        return evenTree;
+    }
+}
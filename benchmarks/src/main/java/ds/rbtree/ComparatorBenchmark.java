@@ -0,0 +1,108 @@
+package ds.rbtree;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Indexing Long keys by a custom (descending) order on a 5M-entry tree: wrapping every key in a
+ * Comparable adapter (one more object per node and per lookup, one more indirection per
+ * comparison) vs passing a Comparator to the tree. NATURAL is the ascending baseline.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class ComparatorBenchmark {
+    private static final int STREAM_LENGTH = 1 << 20;
+    private static final Comparator<Long> DESCENDING = (a, b) -> Long.compare(b, a);
+
+    @Param({"NATURAL", "WRAPPER", "COMPARATOR"})
+    public String ordering;
+
+    @Param({"5000000"})
+    public int size;
+
+    private long[] lookups;
+    private RedBlackTree<Long, Long> tree;
+    private RedBlackTree<Descending, Long> wrapperTree;
+    private int cursor;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        SplittableRandom rnd = new SplittableRandom(42L);
+        long[] keys = rnd.longs(size).distinct().toArray();
+        lookups = new long[STREAM_LENGTH];
+        for (int i = 0; i < STREAM_LENGTH; i++) {
+            lookups[i] = keys[rnd.nextInt(keys.length)];
+        }
+        Arrays.sort(keys);
+        int n = keys.length;
+        Long[] values = new Long[n];
+        switch (ordering) {
+            case "NATURAL": {
+                Long[] boxed = new Long[n];
+                for (int i = 0; i < n; i++) {
+                    boxed[i] = keys[i];
+                    values[i] = keys[i];
+                }
+                tree = RedBlackTree.buildFromSorted(boxed, values);
+                break;
+            }
+            case "COMPARATOR": {
+                Long[] boxed = new Long[n];
+                for (int i = 0; i < n; i++) {
+                    boxed[i] = keys[n - 1 - i];
+                    values[i] = boxed[i];
+                }
+                tree = RedBlackTree.buildFromSorted(boxed, values, DESCENDING, false);
+                break;
+            }
+            default: {
+                Descending[] wrapped = new Descending[n];
+                for (int i = 0; i < n; i++) {
+                    wrapped[i] = new Descending(keys[n - 1 - i]);
+                    values[i] = keys[n - 1 - i];
+                }
+                wrapperTree = RedBlackTree.buildFromSorted(wrapped, values);
+                break;
+            }
+        }
+    }
+
+    @Benchmark
+    public Long getHit() {
+        long key = lookups[cursor++ & (STREAM_LENGTH - 1)];
+        return wrapperTree != null ? wrapperTree.get(new Descending(key)) : tree.get(key);
+    }
+
+    /** The adapter a caller would otherwise write to get a descending index out of a Comparable-only tree. */
+    static final class Descending implements Comparable<Descending> {
+        final Long key;
+
+        Descending(Long key) {
+            this.key = key;
+        }
+
+        @Override
+        public int compareTo(Descending o) {
+            return o.key.compareTo(key);
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package ds.rbtree;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Object nodes (RedBlackTree) vs index-based nodes (ArrayRedBlackTree, as built by random inserts
+ * and after compact()): random lookups, a full in-order cursor scan and a build from random keys.
+ * Run with {@code -prof gc}: {@code gc.alloc.rate.norm} of {@code build} divided by {@code size}
+ * is the bytes allocated per entry; TestArrayRedBlackTree prints the retained bytes per entry.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class NodeLayoutBenchmark {
+    private static final int STREAM_LENGTH = 1 << 20;
+
+    @Param({"OBJECT", "ARRAY", "ARRAY_COMPACT"})
+    public String layout;
+
+    @Param({"100000", "1000000", "10000000"})
+    public int size;
+
+    private Integer[] keys;
+    private Integer[] lookups;
+    private RedBlackTree<Integer, Integer> objectTree;
+    private RedBlackTree<Integer, Integer>.Cursor objectCursor;
+    private ArrayRedBlackTree<Integer, Integer> arrayTree;
+    private ArrayRedBlackTree<Integer, Integer>.Cursor arrayCursor;
+    private int cursor;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        SplittableRandom rnd = new SplittableRandom(42L);
+        keys = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            keys[i] = rnd.nextInt();
+        }
+        lookups = new Integer[STREAM_LENGTH];
+        for (int i = 0; i < STREAM_LENGTH; i++) {
+            lookups[i] = keys[rnd.nextInt(size)];
+        }
+        if ("OBJECT".equals(layout)) {
+            objectTree = new RedBlackTree<>();
+            for (Integer k : keys) {
+                objectTree.insert(k, k);
+            }
+            objectCursor = objectTree.cursor();
+        } else {
+            arrayTree = new ArrayRedBlackTree<>();
+            for (Integer k : keys) {
+                arrayTree.insert(k, k);
+            }
+            if ("ARRAY_COMPACT".equals(layout)) {
+                arrayTree.compact();
+            }
+            arrayCursor = arrayTree.cursor();
+        }
+    }
+
+    @Benchmark
+    public Integer getHit() {
+        Integer key = lookups[cursor++ & (STREAM_LENGTH - 1)];
+        return objectTree != null ? objectTree.get(key) : arrayTree.get(key);
+    }
+
+    /** Whole-tree in-order scan with the allocation-free cursor. */
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public long scan() {
+        long sum = 0;
+        if (objectTree != null) {
+            for (boolean ok = objectCursor.first(); ok; ok = objectCursor.next()) {
+                sum += objectCursor.value();
+            }
+        } else {
+            for (boolean ok = arrayCursor.first(); ok; ok = arrayCursor.next()) {
+                sum += arrayCursor.value();
+            }
+        }
+        return sum;
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public Object build() {
+        if (objectTree != null) {
+            RedBlackTree<Integer, Integer> t = new RedBlackTree<>();
+            for (Integer k : keys) {
+                t.insert(k, k);
+            }
+            return t;
+        }
+        ArrayRedBlackTree<Integer, Integer> t = new ArrayRedBlackTree<>();
+        for (Integer k : keys) {
+            t.insert(k, k);
+        }
+        if ("ARRAY_COMPACT".equals(layout)) {
+            t.compact();
+        }
+        return t;
+    }
+}
@@ -0,0 +1,105 @@
+package ds.rbtree;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sliding-window latency percentiles: every operation evicts the oldest sample, adds a new one and
+ * reads the p99. The order-statistic tree does this in O(log n); the sorted-array baseline finds
+ * positions by binary search but pays O(n) array shifts for the eviction and the insertion.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class OrderStatisticBenchmark {
+    private static final int STREAM_LENGTH = 1 << 20;
+    // Samples are (latency << SEQ_BITS | sequence), so equal latencies stay distinct keys.
+    private static final int SEQ_BITS = 24;
+
+    @Param({"1000", "100000", "1000000"})
+    public int window;
+
+    private long[] latencies;
+    private int cursor;
+    private long sequence;
+
+    private long[] ring;
+    private int ringHead;
+
+    private RedBlackTree<Long, Boolean> tree;
+    private long[] sorted;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        SplittableRandom rnd = new SplittableRandom(42L);
+        latencies = new long[STREAM_LENGTH];
+        for (int i = 0; i < STREAM_LENGTH; i++) {
+            // Log-normal-ish service times in microseconds: mostly fast with a long tail.
+            latencies[i] = (long) Math.exp(5 + rnd.nextGaussian());
+        }
+        ring = new long[window];
+        tree = new RedBlackTree<>(true);
+        sorted = new long[window];
+        for (int i = 0; i < window; i++) {
+            long sample = nextSample();
+            ring[i] = sample;
+            tree.insert(sample, Boolean.TRUE);
+            sorted[i] = sample;
+        }
+        Arrays.sort(sorted);
+    }
+
+    private long nextSample() {
+        long latency = latencies[cursor++ & (STREAM_LENGTH - 1)];
+        return (latency << SEQ_BITS) | (sequence++ & ((1L << SEQ_BITS) - 1));
+    }
+
+    private int p99Index() {
+        return (int) (window * 0.99);
+    }
+
+    @Benchmark
+    public long orderStatisticTree() {
+        long evicted = ring[ringHead];
+        long sample = nextSample();
+        ring[ringHead] = sample;
+        ringHead = (ringHead + 1) % window;
+
+        tree.delete(evicted);
+        tree.insert(sample, Boolean.TRUE);
+        return tree.select(p99Index()) >>> SEQ_BITS;
+    }
+
+    @Benchmark
+    public long sortedArray() {
+        long evicted = ring[ringHead];
+        long sample = nextSample();
+        ring[ringHead] = sample;
+        ringHead = (ringHead + 1) % window;
+
+        int n = window;
+        int at = Arrays.binarySearch(sorted, 0, n, evicted);
+        System.arraycopy(sorted, at + 1, sorted, at, n - at - 1);
+        int pos = -(Arrays.binarySearch(sorted, 0, n - 1, sample) + 1);
+        System.arraycopy(sorted, pos, sorted, pos + 1, n - 1 - pos);
+        sorted[pos] = sample;
+        return sorted[p99Index()] >>> SEQ_BITS;
+    }
+}
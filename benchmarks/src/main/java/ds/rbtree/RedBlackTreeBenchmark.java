@@ -0,0 +1,130 @@
+package ds.rbtree;
+
+import ds.bench.KeyDistribution;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * RedBlackTree: lookups (hit / miss), read-heavy and write-heavy mixes and short range scans on a
+ * tree of {@code size} entries, and building a tree from scratch.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class RedBlackTreeBenchmark {
+    // Length of the precomputed access streams; a power of two so the cursor can wrap with a mask.
+    private static final int STREAM_LENGTH = 1 << 20;
+    private static final int RANGE_LENGTH = 100;
+
+    @Param({"1000", "100000", "1000000", "10000000"})
+    public int size;
+
+    @Param({"SEQUENTIAL", "RANDOM", "HIGH_BIT", "ZIPFIAN"})
+    public KeyDistribution distribution;
+
+    private Integer[] present;
+    private Integer[] absent;
+    private int[] order;
+    private int[] opKind;
+    private RedBlackTree<Integer, Integer> tree;
+    private int cursor;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        int[] keys = distribution.keys(2 * size);
+        present = new Integer[size];
+        absent = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            present[i] = keys[i];
+            absent[i] = keys[size + i];
+        }
+        order = distribution.accessOrder(size, STREAM_LENGTH, 42L);
+        opKind = new int[STREAM_LENGTH];
+        SplittableRandom rnd = new SplittableRandom(7L);
+        for (int i = 0; i < STREAM_LENGTH; i++) {
+            opKind[i] = rnd.nextInt(100);
+        }
+        tree = fill(new RedBlackTree<>(), present);
+    }
+
+    private static RedBlackTree<Integer, Integer> fill(RedBlackTree<Integer, Integer> tree, Integer[] keys) {
+        for (Integer key : keys) {
+            tree.insert(key, key);
+        }
+        return tree;
+    }
+
+    private int next() {
+        return cursor++ & (STREAM_LENGTH - 1);
+    }
+
+    @Benchmark
+    public Integer getHit() {
+        return tree.get(present[order[next()]]);
+    }
+
+    @Benchmark
+    public Integer getMiss() {
+        return tree.get(absent[order[next()]]);
+    }
+
+    /** 90% get, 10% delete + re-insert (the size stays constant). */
+    @Benchmark
+    public Integer readHeavy() {
+        return mixed(90);
+    }
+
+    /** 50% get, 50% delete + re-insert. */
+    @Benchmark
+    public Integer writeHeavy() {
+        return mixed(50);
+    }
+
+    private Integer mixed(int readPercent) {
+        int i = next();
+        Integer key = present[order[i]];
+        if (opKind[i] < readPercent) {
+            return tree.get(key);
+        }
+        tree.delete(key);
+        tree.insert(key, key);
+        return key;
+    }
+
+    /** Time-window style scan: descend to a present key, then walk the next RANGE_LENGTH entries. */
+    @Benchmark
+    public int rangeScan() {
+        int sum = 0;
+        int n = 0;
+        for (Iterator<Map.Entry<Integer, Integer>> it = tree.range(present[order[next()]], Integer.MAX_VALUE);
+             it.hasNext() && n < RANGE_LENGTH; n++) {
+            sum += it.next().getValue();
+        }
+        return sum;
+    }
+
+    /** Whole-tree build time from keys in the distribution's order. */
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public RedBlackTree<Integer, Integer> build() {
+        return fill(new RedBlackTree<>(), present);
+    }
+}
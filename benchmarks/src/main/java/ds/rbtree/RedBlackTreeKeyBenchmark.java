@@ -0,0 +1,127 @@
+package ds.rbtree;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * RedBlackTree with keys whose compareTo is not cheap: long Strings sharing a prefix, and a
+ * three-field composite key. Each extra comparison per level shows up directly in ns/op.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class RedBlackTreeKeyBenchmark {
+    private static final int STREAM_LENGTH = 1 << 20;
+    private static final int BUILD_SIZE = 100_000;
+
+    @Param({"STRING", "COMPOSITE"})
+    public String keyType;
+
+    @Param({"10000", "1000000"})
+    public int size;
+
+    // Raw types: the key class is chosen at run time by keyType.
+    private Comparable[] lookups;
+    private Comparable[] buildKeys;
+    private RedBlackTree tree;
+    private int cursor;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        SplittableRandom rnd = new SplittableRandom(42L);
+        Comparable[] keys = newKeys(size, rnd);
+        tree = new RedBlackTree();
+        for (int i = 0; i < size; i++) {
+            tree.insert(keys[i], i);
+        }
+        // Separate but equal instances, so no lookup can succeed on reference equality.
+        Comparable[] copies = copyKeys(keys);
+        lookups = new Comparable[STREAM_LENGTH];
+        for (int i = 0; i < STREAM_LENGTH; i++) {
+            lookups[i] = copies[rnd.nextInt(size)];
+        }
+        buildKeys = newKeys(BUILD_SIZE, new SplittableRandom(7L));
+    }
+
+    private Comparable[] newKeys(int n, SplittableRandom rnd) {
+        Comparable[] keys = new Comparable[n];
+        for (int i = 0; i < n; i++) {
+            long id = rnd.nextLong() >>> 1;
+            keys[i] = "STRING".equals(keyType)
+                    ? "tenant-0042/region-eu-west/user-session/" + id
+                    : new CompositeKey("tenant-0042", id >>> 40, (int) id);
+        }
+        return keys;
+    }
+
+    private static Comparable[] copyKeys(Comparable[] keys) {
+        Comparable[] copies = new Comparable[keys.length];
+        for (int i = 0; i < keys.length; i++) {
+            Object k = keys[i];
+            copies[i] = (k instanceof String) ? new String((String) k) : ((CompositeKey) k).copy();
+        }
+        return copies;
+    }
+
+    @Benchmark
+    public Integer get() {
+        return (Integer) tree.get(lookups[cursor++ & (STREAM_LENGTH - 1)]);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BUILD_SIZE)
+    public RedBlackTree insert() {
+        RedBlackTree t = new RedBlackTree();
+        for (int i = 0; i < BUILD_SIZE; i++) {
+            t.insert(buildKeys[i], i);
+        }
+        return t;
+    }
+
+    /** (tenant, shard, sequence), compared field by field; most keys tie on the tenant string. */
+    static final class CompositeKey implements Comparable<CompositeKey> {
+        final String tenant;
+        final long shard;
+        final int sequence;
+
+        CompositeKey(String tenant, long shard, int sequence) {
+            this.tenant = tenant;
+            this.shard = shard;
+            this.sequence = sequence;
+        }
+
+        CompositeKey copy() {
+            return new CompositeKey(new String(tenant), shard, sequence);
+        }
+
+        @Override
+        public int compareTo(CompositeKey o) {
+            int c = tenant.compareTo(o.tenant);
+            if (c != 0) {
+                return c;
+            }
+            c = Long.compare(shard, o.shard);
+            if (c != 0) {
+                return c;
+            }
+            return Integer.compare(sequence, o.sequence);
+        }
+    }
+}
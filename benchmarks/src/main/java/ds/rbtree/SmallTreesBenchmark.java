@@ -0,0 +1,69 @@
+package ds.rbtree;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Many small trees, e.g. one per session: creating TREES trees of {@code entries} entries each.
+ * Run with {@code -prof gc}; {@code gc.alloc.rate.norm} is then the bytes allocated per tree,
+ * which for a tree that is never shrunk is its footprint. TreeMap is the reference.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+public class SmallTreesBenchmark {
+    private static final int TREES = 1_000;
+    private static final Integer[] KEYS = new Integer[64];
+
+    static {
+        for (int i = 0; i < KEYS.length; i++) {
+            KEYS[i] = i * 31;
+        }
+    }
+
+    @Param({"0", "1", "4", "16"})
+    public int entries;
+
+    private final Object[] sink = new Object[TREES];
+
+    @Benchmark
+    @OperationsPerInvocation(TREES)
+    public Object[] redBlackTree() {
+        for (int t = 0; t < TREES; t++) {
+            RedBlackTree<Integer, Integer> tree = new RedBlackTree<>();
+            for (int i = 0; i < entries; i++) {
+                tree.insert(KEYS[i], KEYS[i]);
+            }
+            sink[t] = tree;
+        }
+        return sink;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(TREES)
+    public Object[] treeMap() {
+        for (int t = 0; t < TREES; t++) {
+            TreeMap<Integer, Integer> map = new TreeMap<>();
+            for (int i = 0; i < entries; i++) {
+                map.put(KEYS[i], KEYS[i]);
+            }
+            sink[t] = map;
+        }
+        return sink;
+    }
+}
@@ -0,0 +1,103 @@
+package ds.rbtree;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * One writer (delete + re-insert of a random key) and many readers (random get) on a shared
+ * ordered index: the lock-free CopyOnWriteRedBlackTree vs RedBlackTree behind a
+ * ReentrantReadWriteLock. Throughput is reported per method; reader scaling is read off by
+ * changing the reader count with {@code -tg <readers>,1}.
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class SnapshotReadBenchmark {
+    @Param({"COPY_ON_WRITE", "RW_LOCK"})
+    public String impl;
+
+    @Param({"100000", "1000000"})
+    public int size;
+
+    private CopyOnWriteRedBlackTree<Integer, Integer> cow;
+    private RedBlackTree<Integer, Integer> locked;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private Integer[] keys;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        keys = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            keys[i] = i;
+        }
+        if ("COPY_ON_WRITE".equals(impl)) {
+            cow = new CopyOnWriteRedBlackTree<>();
+            for (Integer k : keys) {
+                cow.insert(k, k);
+            }
+        } else {
+            locked = RedBlackTree.buildFromSorted(keys, keys);
+        }
+    }
+
+    /** Per-thread random stream, so readers do not share (and contend on) a cursor. */
+    @State(Scope.Thread)
+    public static class ThreadRandom {
+        final SplittableRandom rnd = new SplittableRandom(Thread.currentThread().getId());
+    }
+
+    @Benchmark
+    @Group("oneWriter")
+    @GroupThreads(3)
+    public Integer read(ThreadRandom r) {
+        Integer key = keys[r.rnd.nextInt(size)];
+        if (cow != null) {
+            return cow.get(key);
+        }
+        lock.readLock().lock();
+        try {
+            return locked.get(key);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Benchmark
+    @Group("oneWriter")
+    @GroupThreads(1)
+    public Integer write(ThreadRandom r) {
+        Integer key = keys[r.rnd.nextInt(size)];
+        if (cow != null) {
+            cow.delete(key);
+            cow.insert(key, key);
+            return key;
+        }
+        lock.writeLock().lock();
+        try {
+            locked.delete(key);
+            locked.insert(key, key);
+            return key;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+}
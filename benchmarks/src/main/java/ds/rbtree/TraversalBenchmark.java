@@ -0,0 +1,79 @@
+package ds.rbtree;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Full in-order scans of a {@code size}-entry tree: the entry iterator, the reusable cursor,
+ * sequential and parallel streams over the subtree-splitting spliterator, and the old
+ * level-order traversal that materializes every level as a list.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class TraversalBenchmark {
+    @Param({"1000", "1000000"})
+    public int size;
+
+    private RedBlackTree<Integer, Integer> tree;
+    private RedBlackTree<Integer, Integer>.Cursor cursor;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Integer[] keys = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            keys[i] = i;
+        }
+        tree = RedBlackTree.buildFromSorted(keys, keys);
+        cursor = tree.cursor();
+    }
+
+    @Benchmark
+    public long iterator() {
+        long sum = 0;
+        for (Map.Entry<Integer, Integer> e : tree) {
+            sum += e.getValue();
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public long cursor() {
+        long sum = 0;
+        for (boolean ok = cursor.first(); ok; ok = cursor.next()) {
+            sum += cursor.value();
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public long stream() {
+        return tree.stream().mapToLong(Map.Entry::getValue).sum();
+    }
+
+    @Benchmark
+    public long parallelStream() {
+        return tree.stream().parallel().mapToLong(Map.Entry::getValue).sum();
+    }
+
+    @Benchmark
+    public Object levelOrder() {
+        return tree.levelOrderTravelValue();
+    }
+}
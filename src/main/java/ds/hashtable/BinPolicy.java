@@ -0,0 +1,25 @@
+package ds.hashtable;
+
+/**
+ * How a {@link HashTable} lays out the entries that share a bucket.
+ * <p>
+ * The policy is fixed per table. {@link #TREE} and {@link #FLAT} adapt per bucket as it grows;
+ * {@link #CHAIN} never changes representation.
+ */
+public enum BinPolicy {
+    /** Linked list of nodes, never converted; an all-colliding key set degrades to O(n) lookups. */
+    CHAIN,
+
+    /**
+     * Linked list of nodes that becomes a red-black tree bin past 8 entries (once the table has
+     * at least 64 buckets) and goes back to a list at 6. This is the table's default.
+     */
+    TREE,
+
+    /**
+     * Buckets of 2 to 8 entries keep them as hash/key/value triples in per-bin arrays, so a lookup
+     * scans contiguous hashes instead of chasing one node per entry; a lone entry stays a plain
+     * node. A bin that overflows 8 entries moves to the {@link #TREE} path.
+     */
+    FLAT
+}
@@ -0,0 +1,1066 @@
+package ds.hashtable;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Thread-safe hash table modelled on JDK ConcurrentHashMap.
+ * <ul>
+ *   <li>An empty bin gets its first node by CAS; writes to a non-empty bin lock its head node, so
+ *       writers only contend when they hit the same bin.</li>
+ *   <li>{@link #get} takes no lock: bin heads are read with acquire semantics and node values and
+ *       {@code next} pointers are volatile.</li>
+ *   <li>Bins longer than TREEIFY_THRESHOLD become a {@link TreeBin}. Readers search its tree under a
+ *       lightweight read lock, or walk its linked list while a writer is rebalancing.</li>
+ *   <li>Resizing is cooperative. The first thread to cross the threshold allocates the next table.
+ *       Threads then claim strides of old bins from {@code transferIndex} and leave a
+ *       {@link ForwardingNode} in every bin they finish. A writer that hits a forwarding node helps
+ *       with the transfer; a reader follows it into the new table.</li>
+ * </ul>
+ * Null keys and null values are not supported.
+ */
+public class ConcurrentHashTable<K, V> {
+    private static final int DEFAULT_CAPACITY = 16;
+    private static final int MAXIMUM_CAPACITY = 1 << 30;
+    private static final int TREEIFY_THRESHOLD = 8;
+    private static final int UNTREEIFY_THRESHOLD = 6;
+    private static final int MIN_TREEIFY_CAPACITY = 64;
+    // Minimum number of bins a thread claims per transfer step.
+    private static final int MIN_TRANSFER_STRIDE = 16;
+
+    // sizeCtl encodes a resize in progress as (resizeStamp(n) << RESIZE_STAMP_SHIFT) + 1 + active resizers.
+    private static final int RESIZE_STAMP_BITS = 16;
+    private static final int RESIZE_STAMP_SHIFT = 32 - RESIZE_STAMP_BITS;
+    private static final int MAX_RESIZERS = (1 << (32 - RESIZE_STAMP_BITS)) - 1;
+
+    // Negative hashes mark special bin heads; user hashes are masked to be non-negative.
+    private static final int MOVED = -1;
+    private static final int TREEBIN = -2;
+    private static final int HASH_BITS = 0x7fffffff;
+
+    private static final int NCPU = Runtime.getRuntime().availableProcessors();
+
+    static class Node<K, V> {
+        final int hash;
+        final K key;
+        volatile V value;
+        volatile Node<K, V> next;
+
+        Node(int hash, K key, V value, Node<K, V> next) {
+            this.hash = hash;
+            this.key = key;
+            this.value = value;
+            this.next = next;
+        }
+
+        /** Linear search from this node; overridden by the special bin heads. */
+        Node<K, V> find(int h, Object k) {
+            Node<K, V> e = this;
+            do {
+                K ek;
+                if (e.hash == h && ((ek = e.key) == k || k.equals(ek))) {
+                    return e;
+                }
+            } while ((e = e.next) != null);
+            return null;
+        }
+    }
+
+    /** Placed in a transferred bin of the old table; lookups continue in the next table. */
+    static final class ForwardingNode<K, V> extends Node<K, V> {
+        final Node<K, V>[] nextTable;
+
+        ForwardingNode(Node<K, V>[] nextTable) {
+            super(MOVED, null, null, null);
+            this.nextTable = nextTable;
+        }
+
+        @Override
+        Node<K, V> find(int h, Object k) {
+            Node<K, V>[] tab = nextTable;
+            outer:
+            while (true) {
+                Node<K, V> e = tabAt(tab, (tab.length - 1) & h);
+                if (e == null) {
+                    return null;
+                }
+                while (true) {
+                    int eh = e.hash;
+                    K ek;
+                    if (eh == h && ((ek = e.key) == k || k.equals(ek))) {
+                        return e;
+                    }
+                    if (eh < 0) {
+                        if (e instanceof ForwardingNode) {
+                            tab = ((ForwardingNode<K, V>) e).nextTable;
+                            continue outer;
+                        }
+                        return e.find(h, k);
+                    }
+                    if ((e = e.next) == null) {
+                        return null;
+                    }
+                }
+            }
+        }
+    }
+
+    static final class TreeNode<K, V> extends Node<K, V> {
+        TreeNode<K, V> parent, left, right;
+        TreeNode<K, V> prev;    // needed to unlink next upon deletion
+        boolean red;
+
+        TreeNode(int hash, K key, V value, Node<K, V> next, TreeNode<K, V> parent) {
+            super(hash, key, value, next);
+            this.parent = parent;
+        }
+
+        @Override
+        Node<K, V> find(int h, Object k) {
+            return findTreeNode(this, h, k);
+        }
+    }
+
+    /**
+     * Head of a tree bin. Holds the tree root and the list of TreeNodes; the bin lock is this object.
+     * Writers additionally take a write lock (lockState) while restructuring the tree, so readers that
+     * hold the read lock never see a tree mid-rotation.
+     */
+    static final class TreeBin<K, V> extends Node<K, V> {
+        TreeNode<K, V> root;
+        volatile TreeNode<K, V> first;
+        volatile Thread waiter;
+        volatile int lockState;
+
+        static final int WRITER = 1;   // set while holding write lock
+        static final int WAITER = 2;   // set when waiting for write lock
+        static final int READER = 4;   // increment value for setting read lock
+
+        TreeBin(TreeNode<K, V> b) {
+            super(TREEBIN, null, null, null);
+            this.first = b;
+            this.root = buildTree(b);
+        }
+
+        private void lockRoot() {
+            if (!LOCKSTATE.compareAndSet(this, 0, WRITER)) {
+                contendedLock();
+            }
+        }
+
+        private void unlockRoot() {
+            lockState = 0;
+        }
+
+        /** Wait for readers to drain. Only one writer can be here at a time (it holds the bin lock). */
+        private void contendedLock() {
+            boolean waiting = false;
+            for (int s; ; ) {
+                if (((s = lockState) & ~WAITER) == 0) {
+                    if (LOCKSTATE.compareAndSet(this, s, WRITER)) {
+                        if (waiting) {
+                            waiter = null;
+                        }
+                        return;
+                    }
+                } else if ((s & WAITER) == 0) {
+                    if (LOCKSTATE.compareAndSet(this, s, s | WAITER)) {
+                        waiting = true;
+                        waiter = Thread.currentThread();
+                    }
+                } else if (waiting) {
+                    LockSupport.park(this);
+                }
+            }
+        }
+
+        /** Tree search under the read lock, or a list walk while a writer holds (or waits for) the tree. */
+        @Override
+        Node<K, V> find(int h, Object k) {
+            for (Node<K, V> e = first; e != null; ) {
+                int s;
+                K ek;
+                if (((s = lockState) & (WAITER | WRITER)) != 0) {
+                    if (e.hash == h && ((ek = e.key) == k || k.equals(ek))) {
+                        return e;
+                    }
+                    e = e.next;
+                } else if (LOCKSTATE.compareAndSet(this, s, s + READER)) {
+                    TreeNode<K, V> p;
+                    try {
+                        p = findTreeNode(root, h, k);
+                    } finally {
+                        Thread w;
+                        if ((int) LOCKSTATE.getAndAdd(this, -READER) == (READER | WAITER) && (w = waiter) != null) {
+                            LockSupport.unpark(w);
+                        }
+                    }
+                    return p;
+                }
+            }
+            return null;
+        }
+
+        /**
+         * Find or add a node; called with the bin lock held.
+         *
+         * @return the existing node, or null if a new one was added.
+         */
+        TreeNode<K, V> putTreeVal(int h, K k, V v) {
+            TreeNode<K, V> existing = findTreeNode(root, h, k);
+            if (existing != null) {
+                return existing;
+            }
+            TreeNode<K, V> f = first;
+            TreeNode<K, V> x = new TreeNode<>(h, k, v, f, null);
+            if (f != null) {
+                f.prev = x;
+            }
+            first = x;   // published to list-walking readers before it enters the tree
+
+            lockRoot();
+            try {
+                TreeNode<K, V> p = root;
+                if (p == null) {
+                    x.red = false;
+                    root = x;
+                } else {
+                    TreeNode<K, V> parent;
+                    int dir;
+                    do {
+                        parent = p;
+                        dir = compareTreeNode(h, k, p.hash, p.key);
+                        p = (dir < 0) ? p.left : p.right;
+                    } while (p != null);
+                    x.parent = parent;
+                    if (dir < 0) {
+                        parent.left = x;
+                    } else {
+                        parent.right = x;
+                    }
+                    root = balanceInsertion(root, x);
+                }
+            } finally {
+                unlockRoot();
+            }
+            return null;
+        }
+
+        /**
+         * Remove a node known to be in this bin; called with the bin lock held.
+         *
+         * @return true if the bin is now small enough (or empty) to be turned back into a plain list,
+         * in which case the tree itself is left as is.
+         */
+        boolean removeTreeNode(TreeNode<K, V> z) {
+            TreeNode<K, V> next = (TreeNode<K, V>) z.next;
+            TreeNode<K, V> pred = z.prev;
+            if (pred == null) {
+                first = next;
+            } else {
+                pred.next = next;
+            }
+            if (next != null) {
+                next.prev = pred;
+            }
+
+            int count = 0;
+            for (Node<K, V> e = first; e != null && count <= UNTREEIFY_THRESHOLD; e = e.next) {
+                count++;
+            }
+            if (count <= UNTREEIFY_THRESHOLD) {
+                return true;
+            }
+
+            lockRoot();
+            try {
+                root = deleteFromTree(root, z);
+            } finally {
+                unlockRoot();
+            }
+            return false;
+        }
+    }
+
+    private volatile Node<K, V>[] table;
+    private volatile Node<K, V>[] nextTable;
+    // Table initialization and resizing control: -1 while initializing, negative (see RESIZE_STAMP_SHIFT)
+    // while resizing, otherwise the initial capacity (before init) or the next resize threshold.
+    private volatile int sizeCtl;
+    // Next old-table index (plus one) to hand out to a thread helping with the transfer.
+    private volatile int transferIndex;
+    private final LongAdder count = new LongAdder();
+
+    public ConcurrentHashTable() {
+    }
+
+    public ConcurrentHashTable(int capacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("capacity must be >= 0: " + capacity);
+        }
+        this.sizeCtl = tableSizeFor(capacity);
+    }
+
+    private static int tableSizeFor(int capacity) {
+        int n = -1 >>> Integer.numberOfLeadingZeros(Math.max(capacity, 2) - 1);
+        return Math.min(n + 1, MAXIMUM_CAPACITY);
+    }
+
+    private static int spread(int h) {
+        return (h ^ (h >>> 16)) & HASH_BITS;
+    }
+
+    private static int resizeStamp(int n) {
+        return Integer.numberOfLeadingZeros(n) | (1 << (RESIZE_STAMP_BITS - 1));
+    }
+
+    // -------------------- volatile table access --------------------
+
+    private static final VarHandle TAB = MethodHandles.arrayElementVarHandle(Node[].class);
+    private static final VarHandle SIZECTL;
+    private static final VarHandle TRANSFERINDEX;
+    private static final VarHandle LOCKSTATE;
+
+    static {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            SIZECTL = lookup.findVarHandle(ConcurrentHashTable.class, "sizeCtl", int.class);
+            TRANSFERINDEX = lookup.findVarHandle(ConcurrentHashTable.class, "transferIndex", int.class);
+            LOCKSTATE = lookup.findVarHandle(TreeBin.class, "lockState", int.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    static <K, V> Node<K, V> tabAt(Node<K, V>[] tab, int i) {
+        return (Node<K, V>) TAB.getAcquire(tab, i);
+    }
+
+    private static <K, V> boolean casTabAt(Node<K, V>[] tab, int i, Node<K, V> c, Node<K, V> v) {
+        return TAB.compareAndSet(tab, i, c, v);
+    }
+
+    private static <K, V> void setTabAt(Node<K, V>[] tab, int i, Node<K, V> v) {
+        TAB.setRelease(tab, i, v);
+    }
+
+    // -------------------- public operations --------------------
+
+    public void insert(K key, V value) {
+        putVal(key, value);
+    }
+
+    public V get(K key) {
+        int h = spread(key.hashCode());
+        Node<K, V>[] tab;
+        Node<K, V> e;
+        int n;
+        if ((tab = table) != null && (n = tab.length) > 0 && (e = tabAt(tab, (n - 1) & h)) != null) {
+            int eh = e.hash;
+            K ek;
+            if (eh == h) {
+                if ((ek = e.key) == key || key.equals(ek)) {
+                    return e.value;
+                }
+            } else if (eh < 0) {
+                Node<K, V> p = e.find(h, key);
+                return p != null ? p.value : null;
+            }
+            while ((e = e.next) != null) {
+                if (e.hash == h && ((ek = e.key) == key || key.equals(ek))) {
+                    return e.value;
+                }
+            }
+        }
+        return null;
+    }
+
+    public boolean delete(K key) {
+        int hash = spread(key.hashCode());
+        for (Node<K, V>[] tab = table; ; ) {
+            Node<K, V> f;
+            int n, i, fh;
+            if (tab == null || (n = tab.length) == 0 || (f = tabAt(tab, i = (n - 1) & hash)) == null) {
+                return false;
+            } else if ((fh = f.hash) == MOVED) {
+                tab = helpTransfer(tab, f);
+            } else {
+                boolean validated = false;
+                boolean removed = false;
+                synchronized (f) {
+                    if (tabAt(tab, i) == f) {
+                        if (fh >= 0) {
+                            validated = true;
+                            for (Node<K, V> e = f, pred = null; e != null; pred = e, e = e.next) {
+                                K ek;
+                                if (e.hash == hash && ((ek = e.key) == key || key.equals(ek))) {
+                                    if (pred != null) {
+                                        pred.next = e.next;
+                                    } else {
+                                        setTabAt(tab, i, e.next);
+                                    }
+                                    removed = true;
+                                    break;
+                                }
+                            }
+                        } else if (f instanceof TreeBin) {
+                            validated = true;
+                            TreeBin<K, V> t = (TreeBin<K, V>) f;
+                            TreeNode<K, V> p = findTreeNode(t.root, hash, key);
+                            if (p != null) {
+                                removed = true;
+                                if (t.removeTreeNode(p)) {
+                                    setTabAt(tab, i, untreeify(t.first));
+                                }
+                            }
+                        }
+                    }
+                }
+                if (validated) {
+                    if (removed) {
+                        addCount(-1L, -1);
+                    }
+                    return removed;
+                }
+            }
+        }
+    }
+
+    public int size() {
+        long n = count.sum();
+        return n < 0 ? 0 : (n > Integer.MAX_VALUE ? Integer.MAX_VALUE : (int) n);
+    }
+
+    private void putVal(K key, V value) {
+        if (key == null || value == null) {
+            throw new NullPointerException();
+        }
+        int hash = spread(key.hashCode());
+        int binCount = 0;
+        for (Node<K, V>[] tab = table; ; ) {
+            Node<K, V> f;
+            int n, i, fh;
+            if (tab == null || (n = tab.length) == 0) {
+                tab = initTable();
+            } else if ((f = tabAt(tab, i = (n - 1) & hash)) == null) {
+                if (casTabAt(tab, i, null, new Node<>(hash, key, value, null))) {
+                    break;   // no lock when adding to an empty bin
+                }
+            } else if ((fh = f.hash) == MOVED) {
+                tab = helpTransfer(tab, f);
+            } else {
+                boolean replaced = false;
+                synchronized (f) {
+                    if (tabAt(tab, i) == f) {
+                        if (fh >= 0) {
+                            binCount = 1;
+                            for (Node<K, V> e = f; ; ++binCount) {
+                                K ek;
+                                if (e.hash == hash && ((ek = e.key) == key || key.equals(ek))) {
+                                    e.value = value;
+                                    replaced = true;
+                                    break;
+                                }
+                                Node<K, V> pred = e;
+                                if ((e = e.next) == null) {
+                                    pred.next = new Node<>(hash, key, value, null);
+                                    break;
+                                }
+                            }
+                        } else if (f instanceof TreeBin) {
+                            binCount = 2;
+                            TreeNode<K, V> p = ((TreeBin<K, V>) f).putTreeVal(hash, key, value);
+                            if (p != null) {
+                                p.value = value;
+                                replaced = true;
+                            }
+                        }
+                    }
+                }
+                if (binCount != 0) {
+                    if (binCount >= TREEIFY_THRESHOLD) {
+                        treeifyBin(tab, i);
+                    }
+                    if (replaced) {
+                        return;
+                    }
+                    break;
+                }
+            }
+        }
+        addCount(1L, binCount);
+    }
+
+    // -------------------- table initialization and resizing --------------------
+
+    private Node<K, V>[] initTable() {
+        Node<K, V>[] tab;
+        int sc;
+        while ((tab = table) == null || tab.length == 0) {
+            if ((sc = sizeCtl) < 0) {
+                Thread.yield();   // lost initialization race; just spin
+            } else if (SIZECTL.compareAndSet(this, sc, -1)) {
+                try {
+                    if ((tab = table) == null || tab.length == 0) {
+                        int n = (sc > 0) ? sc : DEFAULT_CAPACITY;
+                        tab = (Node<K, V>[]) new Node[n];
+                        table = tab;
+                        sc = n - (n >>> 2);
+                    }
+                } finally {
+                    sizeCtl = sc;
+                }
+                break;
+            }
+        }
+        return tab;
+    }
+
+    /**
+     * Add to the count and, if the table is now too full and no resize is running, start one;
+     * if a resize is already running, join it.
+     *
+     * @param check if negative, the caller removed an entry and no resize check is needed.
+     */
+    private void addCount(long x, int check) {
+        count.add(x);
+        if (check < 0) {
+            return;
+        }
+        long s = count.sum();
+        Node<K, V>[] tab, nt;
+        int n, sc;
+        while (s >= (long) (sc = sizeCtl) && (tab = table) != null && (n = tab.length) < MAXIMUM_CAPACITY) {
+            int rs = resizeStamp(n) << RESIZE_STAMP_SHIFT;
+            if (sc < 0) {
+                if (sc == rs + MAX_RESIZERS || sc == rs + 1 || (nt = nextTable) == null || transferIndex <= 0) {
+                    break;
+                }
+                if (SIZECTL.compareAndSet(this, sc, sc + 1)) {
+                    transfer(tab, nt);
+                }
+            } else if (SIZECTL.compareAndSet(this, sc, rs + 2)) {
+                transfer(tab, null);
+            }
+            s = count.sum();
+        }
+    }
+
+    /** Help transfer bins if a resize is in progress; returns the table to retry on. */
+    private Node<K, V>[] helpTransfer(Node<K, V>[] tab, Node<K, V> f) {
+        Node<K, V>[] nextTab;
+        int sc;
+        if (tab != null && f instanceof ForwardingNode && (nextTab = ((ForwardingNode<K, V>) f).nextTable) != null) {
+            int rs = resizeStamp(tab.length) << RESIZE_STAMP_SHIFT;
+            while (nextTab == nextTable && table == tab && (sc = sizeCtl) < 0) {
+                if (sc == rs + MAX_RESIZERS || sc == rs + 1 || transferIndex <= 0) {
+                    break;
+                }
+                if (SIZECTL.compareAndSet(this, sc, sc + 1)) {
+                    transfer(tab, nextTab);
+                    break;
+                }
+            }
+            return nextTab;
+        }
+        return table;
+    }
+
+    /** Start a resize of {@code tab} if none is running (used instead of treeifying small tables). */
+    private void tryGrow(Node<K, V>[] tab) {
+        int sc;
+        int n = tab.length;
+        if (table == tab && (sc = sizeCtl) >= 0 && n < MAXIMUM_CAPACITY) {
+            int rs = resizeStamp(n) << RESIZE_STAMP_SHIFT;
+            if (SIZECTL.compareAndSet(this, sc, rs + 2)) {
+                transfer(tab, null);
+            }
+        }
+    }
+
+    /**
+     * Move the bins of {@code tab} to {@code nextTab} (allocated by the first resizer). Each thread
+     * claims a stride of bins from transferIndex downwards. Moved bins are copied, except for the
+     * longest suffix of a list that goes to the same half, because concurrent readers may still be
+     * walking the old nodes. The last thread to finish publishes the new table.
+     */
+    private void transfer(Node<K, V>[] tab, Node<K, V>[] nextTab) {
+        int n = tab.length;
+        int stride = (NCPU > 1) ? (n >>> 3) / NCPU : n;
+        if (stride < MIN_TRANSFER_STRIDE) {
+            stride = MIN_TRANSFER_STRIDE;
+        }
+        if (nextTab == null) {
+            try {
+                nextTab = (Node<K, V>[]) new Node[n << 1];
+            } catch (OutOfMemoryError oom) {
+                sizeCtl = Integer.MAX_VALUE;
+                return;
+            }
+            nextTable = nextTab;
+            transferIndex = n;
+        }
+        int nextn = nextTab.length;
+        ForwardingNode<K, V> fwd = new ForwardingNode<>(nextTab);
+        boolean advance = true;
+        boolean finishing = false;   // to ensure sweep before committing nextTab
+        for (int i = 0, bound = 0; ; ) {
+            Node<K, V> f;
+            int fh;
+            while (advance) {
+                int nextIndex, nextBound;
+                if (--i >= bound || finishing) {
+                    advance = false;
+                } else if ((nextIndex = transferIndex) <= 0) {
+                    i = -1;
+                    advance = false;
+                } else if (TRANSFERINDEX.compareAndSet(this, nextIndex,
+                        nextBound = (nextIndex > stride ? nextIndex - stride : 0))) {
+                    bound = nextBound;
+                    i = nextIndex - 1;
+                    advance = false;
+                }
+            }
+            if (i < 0 || i >= n || i + n >= nextn) {
+                int sc;
+                if (finishing) {
+                    nextTable = null;
+                    table = nextTab;
+                    sizeCtl = (n << 1) - (n >>> 1);
+                    return;
+                }
+                if (SIZECTL.compareAndSet(this, sc = sizeCtl, sc - 1)) {
+                    if ((sc - 2) != resizeStamp(n) << RESIZE_STAMP_SHIFT) {
+                        return;
+                    }
+                    finishing = advance = true;
+                    i = n;   // recheck every bin before commit
+                }
+            } else if ((f = tabAt(tab, i)) == null) {
+                advance = casTabAt(tab, i, null, fwd);
+            } else if ((fh = f.hash) == MOVED) {
+                advance = true;   // already processed
+            } else {
+                synchronized (f) {
+                    if (tabAt(tab, i) == f) {
+                        if (fh >= 0) {
+                            transferList(f, nextTab, i, n);
+                            setTabAt(tab, i, fwd);
+                            advance = true;
+                        } else if (f instanceof TreeBin) {
+                            transferTreeBin((TreeBin<K, V>) f, nextTab, i, n);
+                            setTabAt(tab, i, fwd);
+                            advance = true;
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    private static <K, V> void transferList(Node<K, V> f, Node<K, V>[] nextTab, int i, int n) {
+        int runBit = f.hash & n;
+        Node<K, V> lastRun = f;
+        for (Node<K, V> p = f.next; p != null; p = p.next) {
+            int b = p.hash & n;
+            if (b != runBit) {
+                runBit = b;
+                lastRun = p;
+            }
+        }
+        Node<K, V> ln = null, hn = null;
+        if (runBit == 0) {
+            ln = lastRun;
+        } else {
+            hn = lastRun;
+        }
+        for (Node<K, V> p = f; p != lastRun; p = p.next) {
+            if ((p.hash & n) == 0) {
+                ln = new Node<>(p.hash, p.key, p.value, ln);
+            } else {
+                hn = new Node<>(p.hash, p.key, p.value, hn);
+            }
+        }
+        setTabAt(nextTab, i, ln);
+        setTabAt(nextTab, i + n, hn);
+    }
+
+    private static <K, V> void transferTreeBin(TreeBin<K, V> t, Node<K, V>[] nextTab, int i, int n) {
+        TreeNode<K, V> lo = null, loTail = null;
+        TreeNode<K, V> hi = null, hiTail = null;
+        int lc = 0, hc = 0;
+        for (Node<K, V> e = t.first; e != null; e = e.next) {
+            int h = e.hash;
+            TreeNode<K, V> p = new TreeNode<>(h, e.key, e.value, null, null);
+            if ((h & n) == 0) {
+                if ((p.prev = loTail) == null) {
+                    lo = p;
+                } else {
+                    loTail.next = p;
+                }
+                loTail = p;
+                ++lc;
+            } else {
+                if ((p.prev = hiTail) == null) {
+                    hi = p;
+                } else {
+                    hiTail.next = p;
+                }
+                hiTail = p;
+                ++hc;
+            }
+        }
+        Node<K, V> ln = (lc <= UNTREEIFY_THRESHOLD) ? untreeify(lo) : (hc != 0) ? new TreeBin<>(lo) : t;
+        Node<K, V> hn = (hc <= UNTREEIFY_THRESHOLD) ? untreeify(hi) : (lc != 0) ? new TreeBin<>(hi) : t;
+        setTabAt(nextTab, i, ln);
+        setTabAt(nextTab, i + n, hn);
+    }
+
+    // -------------------- tree bins --------------------
+
+    /** Replace the list bin at {@code index} by a TreeBin, or grow the table if it is still small. */
+    private void treeifyBin(Node<K, V>[] tab, int index) {
+        Node<K, V> b;
+        if (tab.length < MIN_TREEIFY_CAPACITY) {
+            tryGrow(tab);
+        } else if ((b = tabAt(tab, index)) != null && b.hash >= 0) {
+            synchronized (b) {
+                if (tabAt(tab, index) == b) {
+                    TreeNode<K, V> hd = null, tl = null;
+                    for (Node<K, V> e = b; e != null; e = e.next) {
+                        TreeNode<K, V> p = new TreeNode<>(e.hash, e.key, e.value, null, null);
+                        if ((p.prev = tl) == null) {
+                            hd = p;
+                        } else {
+                            tl.next = p;
+                        }
+                        tl = p;
+                    }
+                    setTabAt(tab, index, new TreeBin<>(hd));
+                }
+            }
+        }
+    }
+
+    /** Copy a TreeNode list into plain Nodes. */
+    private static <K, V> Node<K, V> untreeify(Node<K, V> b) {
+        Node<K, V> hd = null, tl = null;
+        for (Node<K, V> q = b; q != null; q = q.next) {
+            Node<K, V> p = new Node<>(q.hash, q.key, q.value, null);
+            if (tl == null) {
+                hd = p;
+            } else {
+                tl.next = p;
+            }
+            tl = p;
+        }
+        return hd;
+    }
+
+    // The helpers below mirror HashTable's tree-bin code (null children, explicit parent tracking).
+
+    private static int compareTreeNode(int h1, Object k1, int h2, Object k2) {
+        if (h1 < h2) return -1;
+        if (h1 > h2) return 1;
+        if (k1 == k2) return 0;
+        int cmp = compareComparable(k1, k2);
+        if (cmp != 0) return cmp;
+        int i1 = System.identityHashCode(k1);
+        int i2 = System.identityHashCode(k2);
+        return (i1 < i2) ? -1 : (i1 > i2 ? 1 : 0);
+    }
+
+    private static int compareComparable(Object k1, Object k2) {
+        if (k1 != null && k2 != null && k1.getClass() == k2.getClass() && k1 instanceof Comparable<?>) {
+            @SuppressWarnings("unchecked")
+            Comparable<Object> c1 = (Comparable<Object>) k1;
+            return c1.compareTo(k2);
+        }
+        return 0;
+    }
+
+    private static <K, V> TreeNode<K, V> findTreeNode(TreeNode<K, V> root, int hash, Object key) {
+        TreeNode<K, V> p = root;
+        while (p != null) {
+            int ph = p.hash;
+            if (hash < ph) {
+                p = p.left;
+            } else if (hash > ph) {
+                p = p.right;
+            } else {
+                Object pk = p.key;
+                if (pk == key || key.equals(pk)) {
+                    return p;
+                }
+                if (p.left == null) {
+                    p = p.right;
+                } else if (p.right == null) {
+                    p = p.left;
+                } else {
+                    int dir = compareComparable(key, pk);
+                    if (dir != 0) {
+                        p = (dir < 0) ? p.left : p.right;
+                    } else {
+                        TreeNode<K, V> q = findTreeNode(p.right, hash, key);
+                        if (q != null) {
+                            return q;
+                        }
+                        p = p.left;
+                    }
+                }
+            }
+        }
+        return null;
+    }
+
+    private static <K, V> TreeNode<K, V> buildTree(TreeNode<K, V> head) {
+        TreeNode<K, V> root = null;
+        for (TreeNode<K, V> x = head; x != null; x = (TreeNode<K, V>) x.next) {
+            x.left = x.right = x.parent = null;
+            if (root == null) {
+                x.red = false;
+                root = x;
+            } else {
+                TreeNode<K, V> p = root;
+                TreeNode<K, V> parent;
+                int dir;
+                do {
+                    parent = p;
+                    dir = compareTreeNode(x.hash, x.key, p.hash, p.key);
+                    p = (dir < 0) ? p.left : p.right;
+                } while (p != null);
+                x.parent = parent;
+                if (dir < 0) {
+                    parent.left = x;
+                } else {
+                    parent.right = x;
+                }
+                root = balanceInsertion(root, x);
+            }
+        }
+        return root;
+    }
+
+    private static <K, V> TreeNode<K, V> rotateLeft(TreeNode<K, V> root, TreeNode<K, V> p) {
+        TreeNode<K, V> r = p.right;
+        if (r != null) {
+            TreeNode<K, V> rl = r.left;
+            p.right = rl;
+            if (rl != null) rl.parent = p;
+            TreeNode<K, V> pp = p.parent;
+            r.parent = pp;
+            if (pp == null) {
+                root = r;
+            } else if (p == pp.left) {
+                pp.left = r;
+            } else {
+                pp.right = r;
+            }
+            r.left = p;
+            p.parent = r;
+        }
+        return root;
+    }
+
+    private static <K, V> TreeNode<K, V> rotateRight(TreeNode<K, V> root, TreeNode<K, V> p) {
+        TreeNode<K, V> l = p.left;
+        if (l != null) {
+            TreeNode<K, V> lr = l.right;
+            p.left = lr;
+            if (lr != null) lr.parent = p;
+            TreeNode<K, V> pp = p.parent;
+            l.parent = pp;
+            if (pp == null) {
+                root = l;
+            } else if (p == pp.right) {
+                pp.right = l;
+            } else {
+                pp.left = l;
+            }
+            l.right = p;
+            p.parent = l;
+        }
+        return root;
+    }
+
+    private static <K, V> TreeNode<K, V> balanceInsertion(TreeNode<K, V> root, TreeNode<K, V> x) {
+        x.red = true;
+        while (true) {
+            TreeNode<K, V> xp = x.parent;
+            if (xp == null) {
+                x.red = false;
+                return x;
+            }
+            if (!xp.red) {
+                return root;
+            }
+            TreeNode<K, V> xpp = xp.parent;
+            if (xpp == null) {
+                xp.red = false;
+                return root;
+            }
+            if (xp == xpp.left) {
+                TreeNode<K, V> y = xpp.right;
+                if (y != null && y.red) {
+                    y.red = false;
+                    xp.red = false;
+                    xpp.red = true;
+                    x = xpp;
+                    continue;
+                }
+                if (x == xp.right) {
+                    root = rotateLeft(root, xp);
+                    TreeNode<K, V> tmp = xp;
+                    xp = x;
+                    x = tmp;
+                }
+                xp.red = false;
+                xpp.red = true;
+                root = rotateRight(root, xpp);
+            } else {
+                TreeNode<K, V> y = xpp.left;
+                if (y != null && y.red) {
+                    y.red = false;
+                    xp.red = false;
+                    xpp.red = true;
+                    x = xpp;
+                    continue;
+                }
+                if (x == xp.left) {
+                    root = rotateRight(root, xp);
+                    TreeNode<K, V> tmp = xp;
+                    xp = x;
+                    x = tmp;
+                }
+                xp.red = false;
+                xpp.red = true;
+                root = rotateLeft(root, xpp);
+            }
+            return root;
+        }
+    }
+
+    private static <K, V> TreeNode<K, V> transplant(TreeNode<K, V> root, TreeNode<K, V> u, TreeNode<K, V> v) {
+        TreeNode<K, V> up = u.parent;
+        if (up == null) {
+            root = v;
+        } else if (u == up.left) {
+            up.left = v;
+        } else {
+            up.right = v;
+        }
+        if (v != null) {
+            v.parent = up;
+        }
+        return root;
+    }
+
+    /** CLRS delete with null children; returns the new root. */
+    private static <K, V> TreeNode<K, V> deleteFromTree(TreeNode<K, V> root, TreeNode<K, V> z) {
+        TreeNode<K, V> y = z;
+        boolean yOriginalRed = y.red;
+        TreeNode<K, V> x;
+        TreeNode<K, V> xParent;
+
+        if (z.left == null) {
+            x = z.right;
+            xParent = z.parent;
+            root = transplant(root, z, z.right);
+        } else if (z.right == null) {
+            x = z.left;
+            xParent = z.parent;
+            root = transplant(root, z, z.left);
+        } else {
+            y = z.right;
+            while (y.left != null) {
+                y = y.left;
+            }
+            yOriginalRed = y.red;
+            x = y.right;
+            if (y.parent == z) {
+                xParent = y;
+            } else {
+                xParent = y.parent;
+                root = transplant(root, y, y.right);
+                y.right = z.right;
+                y.right.parent = y;
+            }
+            root = transplant(root, z, y);
+            y.left = z.left;
+            y.left.parent = y;
+            y.red = z.red;
+        }
+        z.left = z.right = z.parent = null;
+
+        if (!yOriginalRed) {
+            root = balanceDeletion(root, x, xParent);
+        }
+        return root;
+    }
+
+    private static boolean isBlack(TreeNode<?, ?> n) {
+        return n == null || !n.red;
+    }
+
+    private static <K, V> TreeNode<K, V> balanceDeletion(TreeNode<K, V> root, TreeNode<K, V> x, TreeNode<K, V> xParent) {
+        while (x != root && isBlack(x) && xParent != null) {
+            if (x == xParent.left) {
+                TreeNode<K, V> sib = xParent.right;
+                if (sib != null && sib.red) {
+                    sib.red = false;
+                    xParent.red = true;
+                    root = rotateLeft(root, xParent);
+                    sib = xParent.right;
+                }
+                if (sib == null || (isBlack(sib.left) && isBlack(sib.right))) {
+                    if (sib != null) sib.red = true;
+                    x = xParent;
+                    xParent = xParent.parent;
+                } else {
+                    if (isBlack(sib.right)) {
+                        sib.left.red = false;
+                        sib.red = true;
+                        root = rotateRight(root, sib);
+                        sib = xParent.right;
+                    }
+                    sib.red = xParent.red;
+                    xParent.red = false;
+                    if (sib.right != null) sib.right.red = false;
+                    root = rotateLeft(root, xParent);
+                    x = root;
+                    break;
+                }
+            } else {
+                TreeNode<K, V> sib = xParent.left;
+                if (sib != null && sib.red) {
+                    sib.red = false;
+                    xParent.red = true;
+                    root = rotateRight(root, xParent);
+                    sib = xParent.left;
+                }
+                if (sib == null || (isBlack(sib.left) && isBlack(sib.right))) {
+                    if (sib != null) sib.red = true;
+                    x = xParent;
+                    xParent = xParent.parent;
+                } else {
+                    if (isBlack(sib.left)) {
+                        sib.right.red = false;
+                        sib.red = true;
+                        root = rotateLeft(root, sib);
+                        sib = xParent.left;
+                    }
+                    sib.red = xParent.red;
+                    xParent.red = false;
+                    if (sib.left != null) sib.left.red = false;
+                    root = rotateRight(root, xParent);
+                    x = root;
+                    break;
+                }
+            }
+        }
+        if (x != null) x.red = false;
+        return root;
+    }
+}
@@ -0,0 +1,360 @@
+package ds.hashtable;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Hash table whose entries expire a fixed time after they were last written.
+ * <p>
+ * Every entry carries a deadline and sits in one slot of a hierarchical timer wheel: 4 levels of 64
+ * slots, where a level-0 slot spans one tick of 2^20 ns (about 1 ms) and each level spans 64 times
+ * the level below, so the top level reaches about 4.9 hours (later deadlines wrap around it and
+ * are re-filed when their slot comes up). An entry is filed at the lowest level whose higher digits
+ * of the deadline tick agree with the current tick; when the clock reaches its slot the entry either
+ * expires or cascades to a finer level. Advancing the clock therefore touches only the slots it
+ * passes and the entries in them, which makes expiration O(expired) instead of the O(n) of sweeping
+ * the whole table.
+ * <p>
+ * Expiry is driven lazily: {@link #get} drops an entry it finds past its deadline, and every
+ * {@link #insert} first advances the wheel to the current time, so the cleanup cost is spread over
+ * the writes. {@link #cleanUp} advances it on demand. Buckets are chained as in {@link LruCache}
+ * (two extra links per node for the wheel slot, so cancelling a timer is O(1)) and the bucket array
+ * doubles past load factor 0.75. Like LruCache's, the buckets have no collision protection; use
+ * {@link HashStrategy#seeded()} for keys chosen by untrusted clients. Not thread-safe.
+ */
+public class ExpiringHashTable<K, V> {
+    private static final int DEFAULT_CAPACITY = 16;
+    private static final float LOAD_FACTOR = 0.75f;
+    private static final int MAXIMUM_CAPACITY = 1 << 30;
+
+    // Timer wheel geometry; see the class comment.
+    private static final int TICK_SHIFT = 20;
+    private static final int SLOT_BITS = 6;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final int LEVELS = 4;
+    // Deadlines are capped here so rounding them up to a tick cannot overflow.
+    private static final long MAXIMUM_DEADLINE = Long.MAX_VALUE >>> 1;
+
+    private static final class Node<K, V> {
+        final int hash;
+        final K key;
+        V value;
+        Node<K, V> next;
+        // Nanoseconds since the table's origin; the entry is expired once the clock reaches it.
+        long deadline;
+        // Neighbours in the circular list of the wheel slot holding this entry.
+        Node<K, V> timerPrev, timerNext;
+
+        Node(int hash, K key, V value, Node<K, V> next) {
+            this.hash = hash;
+            this.key = key;
+            this.value = value;
+            this.next = next;
+        }
+    }
+
+    private Node<K, V>[] buckets;
+    private int capacity;
+    private int threshold;
+    private int size;
+    private final HashStrategy<? super K> hashStrategy;
+
+    // Sentinels of the slot lists, level-major: slot s of level l is wheel[l * SLOTS + s].
+    private final Node<K, V>[] wheel;
+    private final LongSupplier ticker;
+    private final long origin;
+    private final long defaultTtlNanos;
+    // Tick the wheel has been advanced to; every slot up to it has been processed.
+    private long currentTick;
+    private long expiredCount;
+
+    public ExpiringHashTable(long defaultTtl, TimeUnit unit) {
+        this(DEFAULT_CAPACITY, defaultTtl, unit, System::nanoTime);
+    }
+
+    public ExpiringHashTable(int capacity, long defaultTtl, TimeUnit unit, HashStrategy<? super K> hashStrategy) {
+        this(capacity, defaultTtl, unit, hashStrategy, System::nanoTime);
+    }
+
+    public ExpiringHashTable(int capacity, long defaultTtl, TimeUnit unit, LongSupplier ticker) {
+        this(capacity, defaultTtl, unit, HashStrategy.spread(), ticker);
+    }
+
+    /**
+     * @param defaultTtl time to live of entries written by {@link #insert(Object, Object)}.
+     * @param ticker     monotonic clock in nanoseconds, like {@link System#nanoTime()}.
+     */
+    public ExpiringHashTable(int capacity, long defaultTtl, TimeUnit unit, HashStrategy<? super K> hashStrategy,
+                             LongSupplier ticker) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("capacity must be >= 0: " + capacity);
+        }
+        if (defaultTtl <= 0) {
+            throw new IllegalArgumentException("defaultTtl must be > 0: " + defaultTtl);
+        }
+        this.hashStrategy = hashStrategy;
+        this.defaultTtlNanos = unit.toNanos(defaultTtl);
+        this.ticker = ticker;
+        this.origin = ticker.getAsLong();
+        this.capacity = tableSizeFor(capacity);
+        this.threshold = (int) (this.capacity * LOAD_FACTOR);
+        buckets = (Node<K, V>[]) new Node[this.capacity];
+        wheel = (Node<K, V>[]) new Node[LEVELS * SLOTS];
+        for (int i = 0; i < wheel.length; i++) {
+            Node<K, V> sentinel = new Node<>(0, null, null, null);
+            sentinel.timerPrev = sentinel.timerNext = sentinel;
+            wheel[i] = sentinel;
+        }
+    }
+
+    private static int tableSizeFor(int capacity) {
+        // Clamp first: rounding anything above 2^30 up to a power of two would overflow int.
+        int n = -1 >>> Integer.numberOfLeadingZeros(Math.max(Math.min(capacity, MAXIMUM_CAPACITY), 2) - 1);
+        return n + 1;
+    }
+
+    private int computeHash(K key) {
+        return hashStrategy.hash(key);
+    }
+
+    private int computeBucketIndex(int hash) {
+        return hash & (capacity - 1);
+    }
+
+    private long now() {
+        return ticker.getAsLong() - origin;
+    }
+
+    private Node<K, V> findNode(int hash, K key) {
+        for (Node<K, V> e = buckets[computeBucketIndex(hash)]; e != null; e = e.next) {
+            if (e.hash == hash && hashStrategy.equals(e.key, key)) {
+                return e;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return the value, or null if the key is absent or its entry has expired; an expired entry
+     * found here is removed on the spot.
+     */
+    public V get(K key) {
+        Node<K, V> node = findNode(computeHash(key), key);
+        if (node == null) {
+            return null;
+        }
+        if (node.deadline - now() <= 0) {
+            removeNode(node);
+            expiredCount++;
+            return null;
+        }
+        return node.value;
+    }
+
+    /** Insert or replace the value with the table's default time to live. */
+    public void insert(K key, V value) {
+        insert(key, value, defaultTtlNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Insert or replace the value; either way the entry expires {@code ttl} from now. Expires
+     * whatever has come due since the last insert first.
+     */
+    public void insert(K key, V value, long ttl, TimeUnit unit) {
+        if (ttl <= 0) {
+            throw new IllegalArgumentException("ttl must be > 0: " + ttl);
+        }
+        long now = now();
+        advance(now);
+        long ttlNanos = unit.toNanos(ttl);
+        long deadline = ttlNanos >= MAXIMUM_DEADLINE - now ? MAXIMUM_DEADLINE : now + ttlNanos;
+
+        int hash = computeHash(key);
+        Node<K, V> node = findNode(hash, key);
+        if (node != null) {
+            node.value = value;
+            unlinkTimer(node);
+        } else {
+            int index = computeBucketIndex(hash);
+            node = new Node<>(hash, key, value, buckets[index]);
+            buckets[index] = node;
+            if (++size > threshold) {
+                resize();
+            }
+        }
+        node.deadline = deadline;
+        schedule(node);
+    }
+
+    /** @return true if a live entry was removed; an expired one is dropped but reported as absent. */
+    public boolean delete(K key) {
+        int hash = computeHash(key);
+        int index = computeBucketIndex(hash);
+        Node<K, V> pred = null;
+        for (Node<K, V> e = buckets[index]; e != null; pred = e, e = e.next) {
+            if (e.hash == hash && hashStrategy.equals(e.key, key)) {
+                unlinkFromBucket(index, pred, e);
+                unlinkTimer(e);
+                size--;
+                if (e.deadline - now() <= 0) {
+                    expiredCount++;
+                    return false;
+                }
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** Remove every entry that has expired by now; costs O(expired + slots passed since the last advance). */
+    public void cleanUp() {
+        advance(now());
+    }
+
+    public void clear() {
+        Arrays.fill(buckets, null);
+        for (Node<K, V> sentinel : wheel) {
+            sentinel.timerPrev = sentinel.timerNext = sentinel;
+        }
+        size = 0;
+    }
+
+    /**
+     * Entries held, which may include expired ones not collected yet; call {@link #cleanUp} first
+     * for an exact count of live entries.
+     */
+    public int size() {
+        return size;
+    }
+
+    /** Entries removed because they expired, whether by the wheel, a get or a delete. */
+    public long expiredCount() {
+        return expiredCount;
+    }
+
+    /**
+     * File the node in the slot that comes due at its deadline tick (rounded up, so every entry
+     * in a slot that comes due has expired): the lowest level whose higher digits of that tick match
+     * the current tick, or the top level when even those differ.
+     */
+    private void schedule(Node<K, V> node) {
+        long tick = (node.deadline + (1L << TICK_SHIFT) - 1) >>> TICK_SHIFT;
+        long differing = tick ^ currentTick;
+        int level = 0;
+        while (level < LEVELS - 1 && (differing >>> (SLOT_BITS * (level + 1))) != 0) {
+            level++;
+        }
+        int slot = (int) (tick >>> (SLOT_BITS * level)) & (SLOTS - 1);
+        Node<K, V> sentinel = wheel[level * SLOTS + slot];
+        Node<K, V> last = sentinel.timerPrev;
+        node.timerPrev = last;
+        node.timerNext = sentinel;
+        last.timerNext = node;
+        sentinel.timerPrev = node;
+    }
+
+    private void unlinkTimer(Node<K, V> node) {
+        node.timerPrev.timerNext = node.timerNext;
+        node.timerNext.timerPrev = node.timerPrev;
+        node.timerPrev = node.timerNext = null;
+    }
+
+    /**
+     * Move the wheel to the tick of {@code now}. Each level is a digit of the tick: every slot whose
+     * digit value was passed is emptied, expiring its due entries and re-filing the rest one level
+     * finer. A level whose digit did not change ends the walk, as no coarser digit changed either.
+     */
+    private void advance(long now) {
+        long previous = currentTick;
+        long current = now >>> TICK_SHIFT;
+        if (current <= previous) {
+            return;
+        }
+        currentTick = current;
+        for (int level = 0; level < LEVELS; level++) {
+            int shift = SLOT_BITS * level;
+            long from = previous >>> shift, to = current >>> shift;
+            if (from == to) {
+                break;
+            }
+            long passed = Math.min(to - from, SLOTS);
+            for (long digit = from + 1; digit <= from + passed; digit++) {
+                expireSlot(level * SLOTS + (int) (digit & (SLOTS - 1)), now);
+            }
+        }
+    }
+
+    private void expireSlot(int slot, long now) {
+        Node<K, V> sentinel = wheel[slot];
+        Node<K, V> e = sentinel.timerNext;
+        // Detach the whole list first: an entry re-filed at the top level can land in this slot again.
+        sentinel.timerPrev = sentinel.timerNext = sentinel;
+        while (e != sentinel) {
+            Node<K, V> next = e.timerNext;
+            if (e.deadline - now <= 0) {
+                e.timerPrev = e.timerNext = null;
+                unlinkFromBucket(e);
+                size--;
+                expiredCount++;
+            } else {
+                schedule(e);
+            }
+            e = next;
+        }
+    }
+
+    private void removeNode(Node<K, V> node) {
+        unlinkFromBucket(node);
+        unlinkTimer(node);
+        size--;
+    }
+
+    private void unlinkFromBucket(Node<K, V> node) {
+        int index = computeBucketIndex(node.hash);
+        Node<K, V> pred = null;
+        for (Node<K, V> e = buckets[index]; e != node; e = e.next) {
+            pred = e;
+        }
+        unlinkFromBucket(index, pred, node);
+    }
+
+    private void unlinkFromBucket(int index, Node<K, V> pred, Node<K, V> node) {
+        if (pred == null) {
+            buckets[index] = node.next;
+        } else {
+            pred.next = node.next;
+        }
+        node.next = null;
+    }
+
+    private void resize() {
+        int old_cap = capacity;
+        if (old_cap >= MAXIMUM_CAPACITY) {
+            threshold = Integer.MAX_VALUE;
+            return;
+        }
+        int new_cap = old_cap << 1;
+        Node<K, V>[] old_buckets = buckets;
+        Node<K, V>[] new_buckets = (Node<K, V>[]) new Node[new_cap];
+        // Split each chain by the newly significant hash bit; the timer links are untouched.
+        for (int i = 0; i < old_cap; i++) {
+            Node<K, V> loHead = null, hiHead = null;
+            for (Node<K, V> e = old_buckets[i], next; e != null; e = next) {
+                next = e.next;
+                if ((e.hash & old_cap) == 0) {
+                    e.next = loHead;
+                    loHead = e;
+                } else {
+                    e.next = hiHead;
+                    hiHead = e;
+                }
+            }
+            new_buckets[i] = loHead;
+            new_buckets[i + old_cap] = hiHead;
+        }
+        buckets = new_buckets;
+        capacity = new_cap;
+        threshold = (int) (new_cap * LOAD_FACTOR);
+    }
+}
@@ -0,0 +1,143 @@
+package ds.hashtable;
+
+import java.util.Arrays;
+
+/**
+ * Built-in {@link HashStrategy} implementations.
+ */
+final class HashStrategies {
+    private HashStrategies() {
+    }
+
+    static final HashStrategy<Object> IDENTITY = Object::hashCode;
+
+    static final HashStrategy<Object> SPREAD = key -> {
+        int h = key.hashCode();
+        return h ^ (h >>> 16);
+    };
+
+    static final HashStrategy<Object> MURMUR3 = key -> fmix32(key.hashCode());
+
+    static final HashStrategy<byte[]> BYTE_ARRAY = new HashStrategy<byte[]>() {
+        @Override
+        public int hash(byte[] key) {
+            return murmur3(key, 0);
+        }
+
+        @Override
+        public boolean equals(byte[] a, byte[] b) {
+            return Arrays.equals(a, b);
+        }
+    };
+
+    static final class Seeded<K> implements HashStrategy<K> {
+        private final int seed;
+
+        Seeded(int seed) {
+            this.seed = seed;
+        }
+
+        @Override
+        public int hash(K key) {
+            if (key instanceof String) {
+                return murmur3((String) key, seed);
+            }
+            if (key instanceof byte[]) {
+                return murmur3((byte[]) key, seed);
+            }
+            return fmix32(key.hashCode() ^ seed);
+        }
+
+        @Override
+        public boolean equals(K a, K b) {
+            if (a instanceof byte[] && b instanceof byte[]) {
+                return Arrays.equals((byte[]) a, (byte[]) b);
+            }
+            return a == b || a.equals(b);
+        }
+    }
+
+    // -------------------- MurmurHash3 (x86_32) --------------------
+
+    private static final int C1 = 0xcc9e2d51;
+    private static final int C2 = 0x1b873593;
+
+    static int fmix32(int h) {
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        h ^= h >>> 16;
+        return h;
+    }
+
+    /** Murmur3 64-bit finalizer. */
+    static long fmix64(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    private static int mixK1(int k1) {
+        k1 *= C1;
+        k1 = Integer.rotateLeft(k1, 15);
+        k1 *= C2;
+        return k1;
+    }
+
+    private static int mixH1(int h1, int k1) {
+        h1 ^= k1;
+        h1 = Integer.rotateLeft(h1, 13);
+        return h1 * 5 + 0xe6546b64;
+    }
+
+    @SuppressWarnings("fallthrough")
+    static int murmur3(byte[] data, int seed) {
+        int h1 = seed;
+        int len = data.length;
+        int blocks = len >>> 2;
+        for (int i = 0; i < blocks; i++) {
+            int j = i << 2;
+            int k1 = (data[j] & 0xff)
+                    | (data[j + 1] & 0xff) << 8
+                    | (data[j + 2] & 0xff) << 16
+                    | (data[j + 3] & 0xff) << 24;
+            h1 = mixH1(h1, mixK1(k1));
+        }
+        int tail = blocks << 2;
+        int k1 = 0;
+        switch (len & 3) {
+            case 3:
+                k1 ^= (data[tail + 2] & 0xff) << 16;
+                // fall through
+            case 2:
+                k1 ^= (data[tail + 1] & 0xff) << 8;
+                // fall through
+            case 1:
+                k1 ^= (data[tail] & 0xff);
+                h1 ^= mixK1(k1);
+                // fall through
+            default:
+                break;
+        }
+        return fmix32(h1 ^ len);
+    }
+
+    /** Hashes the UTF-16 code units two at a time. */
+    static int murmur3(String s, int seed) {
+        int h1 = seed;
+        int len = s.length();
+        int i = 1;
+        for (; i < len; i += 2) {
+            int k1 = s.charAt(i - 1) | (s.charAt(i) << 16);
+            h1 = mixH1(h1, mixK1(k1));
+        }
+        if ((len & 1) == 1) {
+            h1 ^= mixK1(s.charAt(len - 1));
+        }
+        return fmix32(h1 ^ (len << 1));
+    }
+}
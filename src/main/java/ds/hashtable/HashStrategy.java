@@ -0,0 +1,51 @@
+package ds.hashtable;
+
+/**
+ * How a {@link HashTable} hashes and compares its keys.
+ * <p>
+ * The table masks the low bits of {@link #hash} to pick a bucket, so a strategy should make sure
+ * those bits depend on the whole key. {@link #equals} must be consistent with {@link #hash}, and for
+ * {@link Comparable} keys also with {@code compareTo} (tree bins order same-hash keys by it).
+ */
+public interface HashStrategy<K> {
+
+    int hash(K key);
+
+    default boolean equals(K a, K b) {
+        return a == b || a.equals(b);
+    }
+
+    /** Raw {@code hashCode()}; keys differing only in high bits share a bucket. */
+    static <K> HashStrategy<K> identity() {
+        return (HashStrategy<K>) HashStrategies.IDENTITY;
+    }
+
+    /** JDK HashMap spreading: {@code h ^ (h >>> 16)}. This is the table's default. */
+    static <K> HashStrategy<K> spread() {
+        return (HashStrategy<K>) HashStrategies.SPREAD;
+    }
+
+    /** Murmur3 32-bit finalizer over {@code hashCode()}; every input bit affects every output bit. */
+    static <K> HashStrategy<K> murmur3() {
+        return (HashStrategy<K>) HashStrategies.MURMUR3;
+    }
+
+    /**
+     * Per-instance random seed, for tables fed by untrusted input.
+     * Strings and byte arrays are hashed by content with the seed, so precomputed collisions
+     * (e.g. "Aa"/"BB" combinations) no longer collide; other keys are mixed with the seed,
+     * which cannot separate keys whose {@code hashCode()} is already equal (tree bins cover that case).
+     */
+    static <K> HashStrategy<K> seeded() {
+        return seeded(new java.security.SecureRandom().nextInt());
+    }
+
+    static <K> HashStrategy<K> seeded(int seed) {
+        return new HashStrategies.Seeded<>(seed);
+    }
+
+    /** Content hashing and {@link java.util.Arrays#equals(byte[], byte[])} equality for byte[] keys. */
+    static HashStrategy<byte[]> byteArray() {
+        return HashStrategies.BYTE_ARRAY;
+    }
+}
@@ -1,16 +1,48 @@
 package ds.hashtable;
 
-public class HashTable<K, V> {
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.BiPredicate;
+import java.util.function.BinaryOperator;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+public class HashTable<K, V> implements Iterable<Map.Entry<K, V>> {
     private int size;
+    // Number of structural changes (entry additions and removals, rebuilds of the bucket array),
+    // so compute/merge and iterators can detect a table modified under them.
+    private int modCount;
 
     private int capacity;
     private static final int DEFAULT_CAPACITY = 16;
+    private static final int MAXIMUM_CAPACITY = 1 << 30;
 
-    private static final float LOAD_FACTOR = 0.75f;
+    private static final float DEFAULT_LOAD_FACTOR = 0.75f;
+    private final float loadFactor;
     private int threshold;
+    // If true, a delete that leaves the table under a quarter of its threshold halves the bucket array.
+    private boolean autoShrink;
     private static final int TREEIFY_THRESHOLD = 8;
     private static final int UNTREEIFY_THRESHOLD = 6;
     private static final int MIN_TREEIFY_CAPACITY = 64;
+    // Most entries a FLAT bin holds before it is converted to a node list (and then treeified).
+    private static final int FLAT_BIN_CAPACITY = 8;
+    // Old buckets migrated per operation while an incremental resize is in progress.
+    private static final int RESIZE_STEP = 16;
 
     private static class Node<K, V> {
         final int hash;
@@ -35,64 +67,216 @@ public class HashTable<K, V> {
         }
     }
 
+    /**
+     * A FLAT-policy bin of 2 to FLAT_BIN_CAPACITY entries (a lone entry stays a plain Node):
+     * entry i keeps its hash in hashes[i], its key in slots[2i] and its value in slots[2i + 1],
+     * so a lookup compares contiguous hashes and loads only the matching key. The arrays grow by
+     * doubling. Extends Node only so it can sit in the bucket array; the inherited fields are unused.
+     */
+    static final class FlatBin<K, V> extends Node<K, V> {
+        int[] hashes;
+        Object[] slots;
+        int count;
+
+        FlatBin(int capacity) {
+            super(0, null, null, null);
+            hashes = new int[capacity];
+            slots = new Object[2 * capacity];
+        }
+
+        K keyAt(int i) {
+            return (K) slots[2 * i];
+        }
+
+        V valueAt(int i) {
+            return (V) slots[2 * i + 1];
+        }
+
+        void setValueAt(int i, V value) {
+            slots[2 * i + 1] = value;
+        }
+
+        /** Append an entry; the caller has checked that count < FLAT_BIN_CAPACITY. */
+        void add(int hash, Object key, Object value) {
+            if (count == hashes.length) {
+                int newCapacity = Math.min(2 * count, FLAT_BIN_CAPACITY);
+                hashes = Arrays.copyOf(hashes, newCapacity);
+                slots = Arrays.copyOf(slots, 2 * newCapacity);
+            }
+            hashes[count] = hash;
+            slots[2 * count] = key;
+            slots[2 * count + 1] = value;
+            count++;
+        }
+
+        /** Remove entry i by moving the last entry into its place (bins are unordered). */
+        void removeAt(int i) {
+            int last = --count;
+            hashes[i] = hashes[last];
+            slots[2 * i] = slots[2 * last];
+            slots[2 * i + 1] = slots[2 * last + 1];
+            slots[2 * last] = slots[2 * last + 1] = null;
+        }
+    }
+
     private Node<K, V>[] buckets;
 
+    // Incremental resize state: while oldBuckets != null, old bucket i has not been migrated
+    // yet iff oldBuckets[i] != null, and transferIndex is the next bucket the background sweep moves.
+    private final boolean incrementalResize;
+    private Node<K, V>[] oldBuckets;
+    private int transferIndex;
+
+    private final HashStrategy<? super K> hashStrategy;
+    private final BinPolicy binPolicy;
+
     public HashTable() {
-        init(DEFAULT_CAPACITY);
+        this(DEFAULT_CAPACITY, false);
     }
 
     public HashTable(int capacity) {
-        init(capacity);
+        this(capacity, false);
+    }
+
+    public HashTable(int capacity, float loadFactor) {
+        this(capacity, loadFactor, HashStrategy.spread(), BinPolicy.TREE, false);
+    }
+
+    public HashTable(HashStrategy<? super K> hashStrategy) {
+        this(DEFAULT_CAPACITY, hashStrategy, false);
+    }
+
+    public HashTable(int capacity, HashStrategy<? super K> hashStrategy) {
+        this(capacity, hashStrategy, false);
+    }
+
+    /**
+     * @param incrementalResize if true, growing the table only allocates the new bucket array;
+     *                          entries are migrated a few buckets at a time by later
+     *                          insert/get/delete calls instead of in one stop-the-world pass.
+     */
+    public HashTable(int capacity, boolean incrementalResize) {
+        this(capacity, HashStrategy.spread(), incrementalResize);
+    }
+
+    /**
+     * @param hashStrategy how keys are hashed and compared, see {@link HashStrategy}.
+     */
+    public HashTable(int capacity, HashStrategy<? super K> hashStrategy, boolean incrementalResize) {
+        this(capacity, hashStrategy, BinPolicy.TREE, incrementalResize);
+    }
+
+    public HashTable(int capacity, BinPolicy binPolicy) {
+        this(capacity, HashStrategy.spread(), binPolicy, false);
+    }
+
+    public HashTable(int capacity, HashStrategy<? super K> hashStrategy, BinPolicy binPolicy) {
+        this(capacity, hashStrategy, binPolicy, false);
+    }
+
+    /**
+     * @param binPolicy how entries sharing a bucket are stored, see {@link BinPolicy}.
+     */
+    public HashTable(int capacity, HashStrategy<? super K> hashStrategy, BinPolicy binPolicy, boolean incrementalResize) {
+        this(capacity, DEFAULT_LOAD_FACTOR, hashStrategy, binPolicy, incrementalResize);
+    }
+
+    /**
+     * @param capacity   initial number of buckets, rounded up to a power of two.
+     * @param loadFactor average entries per bucket before the table doubles; may exceed 1.
+     */
+    public HashTable(int capacity, float loadFactor, HashStrategy<? super K> hashStrategy, BinPolicy binPolicy,
+                     boolean incrementalResize) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("capacity must be >= 0: " + capacity);
+        }
+        if (!(loadFactor > 0) || Float.isInfinite(loadFactor)) {
+            throw new IllegalArgumentException("loadFactor must be positive and finite: " + loadFactor);
+        }
+        this.loadFactor = loadFactor;
+        this.hashStrategy = hashStrategy;
+        this.binPolicy = binPolicy;
+        this.incrementalResize = incrementalResize;
+        init(tableSizeFor(capacity));
+    }
+
+    /** A table sized so that {@code expectedSize} entries fit without any resize. */
+    public static <K, V> HashTable<K, V> withExpectedSize(int expectedSize) {
+        return withExpectedSize(expectedSize, DEFAULT_LOAD_FACTOR);
+    }
+
+    public static <K, V> HashTable<K, V> withExpectedSize(int expectedSize, float loadFactor) {
+        if (expectedSize < 0) {
+            throw new IllegalArgumentException("expectedSize must be >= 0: " + expectedSize);
+        }
+        return new HashTable<>(capacityFor(expectedSize, loadFactor), loadFactor);
+    }
+
+    public BinPolicy binPolicy() {
+        return binPolicy;
     }
 
     private void init(int capacity) {
         size = 0;
         this.capacity = capacity;
-        threshold = (int) (capacity * LOAD_FACTOR);
+        threshold = (int) (capacity * loadFactor);
         buckets = (Node<K, V>[]) new Node[capacity];
     }
 
+    private static int tableSizeFor(int capacity) {
+        int n = -1 >>> Integer.numberOfLeadingZeros(Math.max(capacity, 2) - 1);
+        return Math.min(n + 1, MAXIMUM_CAPACITY);
+    }
+
+    /** Smallest power-of-two bucket count whose threshold is at least {@code entries}. */
+    private static int capacityFor(int entries, float loadFactor) {
+        return tableSizeFor((int) Math.min(Math.ceil(entries / (double) loadFactor), MAXIMUM_CAPACITY));
+    }
+
     private void addSize() {
+        modCount++;
         size++;
         if (size > threshold) {
             resize();
         }
     }
 
+    /**
+     * Must be the last step of a removal: with auto-shrink on it may rebuild the bucket array.
+     */
     private void reduceSize() {
+        modCount++;
         size--;
+        if (autoShrink) {
+            shrinkIfSparse();
+        }
     }
 
-    private int computeHash(K key) {
-        return key.hashCode();
+    /** Halve the bucket array while the table holds fewer than threshold / 4 entries, down to 16 buckets. */
+    private void shrinkIfSparse() {
+        int target = capacity;
+        while (target > DEFAULT_CAPACITY && size < (int) (target * loadFactor) >>> 2) {
+            target >>>= 1;
+        }
+        if (target < capacity) {
+            rehash(target);
+        }
     }
 
-    private int computeBucketIndex(int hash) {
-        return hash & (capacity - 1);
+    private int computeHash(K key) {
+        return hashStrategy.hash(key);
     }
 
-    private void insertToBucket(Node<K, V> node) {
-        int index = computeBucketIndex(node.hash);
-        Node<K, V> iterator = buckets[index];
-        if (iterator == null) {
-            buckets[index] = node;
-            return;
-        }
-
-        int length = 2;
-        while (iterator.next != null) {
-            length++;
-            iterator = iterator.next;
-        }
-        iterator.next = node;
+    private boolean keyEquals(K a, K b) {
+        return hashStrategy.equals(a, b);
+    }
 
-        if (NeedTreeify(length)) {
-            treeify(index);
-        }
+    private int computeBucketIndex(int hash) {
+        return hash & (capacity - 1);
     }
 
     private boolean NeedTreeify(int length) {
-        return length > TREEIFY_THRESHOLD && capacity > MIN_TREEIFY_CAPACITY;
+        return binPolicy != BinPolicy.CHAIN && length > TREEIFY_THRESHOLD && capacity > MIN_TREEIFY_CAPACITY;
     }
 
     private boolean NeedUnTreeify(K key, int hash, int index) {
@@ -141,9 +325,20 @@ public class HashTable<K, V> {
             tTail = p;
         }
 
-        // Build red-black tree from the TreeNode list.
+        buildTree(tHead);
+
+        // Store the TreeNode head into the bucket. (Root can be reached by walking parents.)
+        buckets[index] = tHead;
+    }
+
+    /**
+     * Build a red-black tree over an existing TreeNode list (linked via next/prev), reusing the nodes.
+     *
+     * @return the root of the new tree.
+     */
+    private static <K, V> TreeNode<K, V> buildTree(TreeNode<K, V> head) {
         TreeNode<K, V> root = null;
-        for (TreeNode<K, V> x = tHead; x != null; x = (TreeNode<K, V>) x.next) {
+        for (TreeNode<K, V> x = head; x != null; x = (TreeNode<K, V>) x.next) {
             x.left = x.right = x.parent = null;
             x.red = true;
 
@@ -173,9 +368,7 @@ public class HashTable<K, V> {
                 root = balanceInsertion(root, x);
             }
         }
-
-        // Store the TreeNode head into the bucket. (Root can be reached by walking parents.)
-        buckets[index] = tHead;
+        return root;
     }
 
     /**
@@ -188,7 +381,13 @@ public class HashTable<K, V> {
             return;
         }
         int index = computeBucketIndex(head.hash);
+        buckets[index] = toPlainList(head);
+    }
 
+    /**
+     * Copy a TreeNode list into plain Nodes (in list order) and return the new head.
+     */
+    private static <K, V> Node<K, V> toPlainList(Node<K, V> head) {
         Node<K, V> newHead = null;
         Node<K, V> newTail = null;
 
@@ -201,7 +400,7 @@ public class HashTable<K, V> {
             }
             newTail = n;
         }
-        buckets[index] = newHead;
+        return newHead;
     }
 
     // -------------------- Red-Black Tree helpers (tree bins) --------------------
@@ -457,7 +656,12 @@ public class HashTable<K, V> {
         return root;
     }
 
-    private static <K, V> TreeNode<K, V> findTreeNode(TreeNode<K, V> root, int hash, Object key) {
+    /**
+     * Search a tree bin for the given key.
+     * Equal-hash keys without a usable natural order were placed by identity tie-break,
+     * so for those both subtrees have to be searched (like JDK HashMap.TreeNode.find).
+     */
+    private TreeNode<K, V> findTreeNode(TreeNode<K, V> root, int hash, K key) {
         TreeNode<K, V> p = root;
         while (p != null) {
             int ph = p.hash;
@@ -466,17 +670,44 @@ public class HashTable<K, V> {
             } else if (hash > ph) {
                 p = p.right;
             } else {
-                Object pk = p.key;
-                if (pk == key || (key != null && key.equals(pk))) {
+                K pk = p.key;
+                if (pk == key || (key != null && keyEquals(key, pk))) {
                     return p;
                 }
-                int dir = compareTreeNode(hash, key, ph, pk);
-                p = (dir < 0) ? p.left : p.right;
+                if (p.left == null) {
+                    p = p.right;
+                } else if (p.right == null) {
+                    p = p.left;
+                } else {
+                    int dir = compareComparable(key, pk);
+                    if (dir != 0) {
+                        p = (dir < 0) ? p.left : p.right;
+                    } else {
+                        TreeNode<K, V> q = findTreeNode(p.right, hash, key);
+                        if (q != null) {
+                            return q;
+                        }
+                        p = p.left;
+                    }
+                }
             }
         }
         return null;
     }
 
+    /**
+     * Natural-order comparison used only when both keys are of the same Comparable class;
+     * returns 0 when no such order exists (the caller must then search both sides).
+     */
+    private static int compareComparable(Object k1, Object k2) {
+        if (k1 != null && k2 != null && k1.getClass() == k2.getClass() && k1 instanceof Comparable<?>) {
+            @SuppressWarnings("unchecked")
+            Comparable<Object> c1 = (Comparable<Object>) k1;
+            return c1.compareTo(k2);
+        }
+        return 0;
+    }
+
     private void insertTreeNode(int index, TreeNode<K, V> x) {
         TreeNode<K, V> head = (TreeNode<K, V>) buckets[index];
         if (head == null) {
@@ -485,15 +716,6 @@ public class HashTable<K, V> {
             return;
         }
 
-        // Append to linked list tail (for selectNode() and iteration).
-        TreeNode<K, V> tail = head;
-        while (tail.next != null) {
-            tail = (TreeNode<K, V>) tail.next;
-        }
-        tail.next = x;
-        x.prev = tail;
-        x.next = null;
-
         // Insert into the red-black tree.
         TreeNode<K, V> root = rootOf(head);
         x.left = x.right = x.parent = null;
@@ -516,6 +738,16 @@ public class HashTable<K, V> {
                 } else {
                     parent.right = x;
                 }
+
+                // Link right after the tree parent in the bin's list, so insertion stays O(log n)
+                // instead of walking to the list tail.
+                TreeNode<K, V> parentNext = (TreeNode<K, V>) parent.next;
+                x.next = parentNext;
+                x.prev = parent;
+                parent.next = x;
+                if (parentNext != null) {
+                    parentNext.prev = x;
+                }
                 break;
             }
         }
@@ -523,34 +755,368 @@ public class HashTable<K, V> {
         // root is reachable via parent pointers; bucket keeps head pointer unchanged.
     }
 
+    // -------------------- Flat bin helpers --------------------
+
+    /** Under FLAT, a list bin shorter than FLAT_BIN_CAPACITY is packed into a flat bin on its next insert. */
+    private boolean NeedFlatten(int length) {
+        return binPolicy == BinPolicy.FLAT && length < FLAT_BIN_CAPACITY;
+    }
+
+    /** Pack a list bin of {@code length} nodes plus one new entry into a flat bin. */
+    private static <K, V> FlatBin<K, V> toFlatBin(Node<K, V> head, int length, int hash, K key, V value) {
+        FlatBin<K, V> bin = new FlatBin<>(length + 1);
+        for (Node<K, V> e = head; e != null; e = e.next) {
+            bin.add(e.hash, e.key, e.value);
+        }
+        bin.add(hash, key, value);
+        return bin;
+    }
+
+    private int flatIndexOf(FlatBin<K, V> bin, int hash, K key) {
+        int[] hashes = bin.hashes;
+        for (int i = 0, n = bin.count; i < n; i++) {
+            if (hashes[i] == hash && keyEquals(bin.keyAt(i), key)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Add an entry known to be absent. A full bin becomes a node list with the new entry at the
+     * tail, which is then treeified like any other list that long.
+     */
+    private void addToFlatBin(int index, FlatBin<K, V> bin, int hash, K key, V value) {
+        int n = bin.count;
+        if (n < FLAT_BIN_CAPACITY) {
+            bin.add(hash, key, value);
+            return;
+        }
+        Node<K, V> head = new Node<>(hash, key, value, null);
+        for (int i = n - 1; i >= 0; i--) {
+            head = new Node<>(bin.hashes[i], bin.keyAt(i), bin.valueAt(i), head);
+        }
+        buckets[index] = head;
+        if (NeedTreeify(n + 1)) {
+            treeify(index);
+        }
+    }
+
+    private void removeFromFlatBin(int index, FlatBin<K, V> bin, int i) {
+        bin.removeAt(i);
+        if (bin.count == 1) {
+            buckets[index] = new Node<>(bin.hashes[0], bin.keyAt(0), bin.valueAt(0), null);
+        }
+        reduceSize();
+    }
+
+    /** compute/merge counterpart of storeComputed for a flat bin; {@code i} is -1 if the key is absent. */
+    private V storeComputedFlat(int index, FlatBin<K, V> bin, int i, int hash, K key, V value) {
+        if (i >= 0) {
+            if (value != null) {
+                bin.setValueAt(i, value);
+            } else {
+                removeFromFlatBin(index, bin, i);
+            }
+        } else if (value != null) {
+            addToFlatBin(index, bin, hash, key, value);
+            addSize();
+        }
+        return value;
+    }
+
     public void insert(K key, V value) {
+        putVal(computeHash(key), key, value, false);
+    }
+
+    /**
+     * Insert only if the key is absent (or mapped to null).
+     *
+     * @return the previous value, or null if the key was absent and the value was inserted.
+     */
+    public V putIfAbsent(K key, V value) {
+        return putVal(computeHash(key), key, value, true);
+    }
+
+    /**
+     * Single pass over the key's bucket: either updates the existing node or links a new one,
+     * counting the chain on the way so no second walk is needed for the treeify check.
+     *
+     * @return the previous value, or null if a new node was added.
+     */
+    private V putVal(int hash, K key, V value, boolean onlyIfAbsent) {
+        helpTransfer(hash);
+        int index = computeBucketIndex(hash);
+        Node<K, V> head = buckets[index];
+        if (head == null) {
+            buckets[index] = new Node<>(hash, key, value, null);
+        } else if (head instanceof FlatBin) {
+            FlatBin<K, V> bin = (FlatBin<K, V>) head;
+            int i = flatIndexOf(bin, hash, key);
+            if (i >= 0) {
+                V old = bin.valueAt(i);
+                if (!onlyIfAbsent || old == null) {
+                    bin.setValueAt(i, value);
+                }
+                return old;
+            }
+            addToFlatBin(index, bin, hash, key, value);
+        } else if (head instanceof TreeNode) {
+            TreeNode<K, V> existing = findTreeNode(rootOf((TreeNode<K, V>) head), hash, key);
+            if (existing != null) {
+                return replaceValue(existing, value, onlyIfAbsent);
+            }
+            insertTreeNode(index, new TreeNode<>(hash, key, value, null));
+        } else {
+            int length = 1;
+            Node<K, V> e = head;
+            while (true) {
+                if (e.hash == hash && keyEquals(e.key, key)) {
+                    return replaceValue(e, value, onlyIfAbsent);
+                }
+                if (e.next == null) {
+                    break;
+                }
+                e = e.next;
+                length++;
+            }
+            if (NeedFlatten(length)) {
+                buckets[index] = toFlatBin(head, length, hash, key, value);
+            } else {
+                e.next = new Node<>(hash, key, value, null);
+                if (NeedTreeify(length + 1)) {
+                    treeify(index);
+                }
+            }
+        }
+        // Grow only after linking, so the bucket index above is never stale.
+        addSize();
+        return null;
+    }
+
+    private static <K, V> V replaceValue(Node<K, V> node, V value, boolean onlyIfAbsent) {
+        V old = node.value;
+        if (!onlyIfAbsent || old == null) {
+            node.value = value;
+        }
+        return old;
+    }
+
+    /**
+     * If the key is absent (or mapped to null), compute its value and insert it unless the
+     * function returns null.
+     *
+     * @return the current (existing or computed) value, or null.
+     * @throws ConcurrentModificationException if the function added or removed entries.
+     */
+    public V computeIfAbsent(K key, Function<? super K, ? extends V> mappingFunction) {
         int hash = computeHash(key);
+        helpTransfer(hash);
         int index = computeBucketIndex(hash);
+        int length = 0;
+        Node<K, V> head = buckets[index];
+        if (head instanceof FlatBin) {
+            return computeIfAbsentFlat(index, (FlatBin<K, V>) head, hash, key, mappingFunction);
+        }
+        Node<K, V> node;
+        if (head instanceof TreeNode) {
+            node = findTreeNode(rootOf((TreeNode<K, V>) head), hash, key);
+        } else {
+            node = head;
+            while (node != null && !(node.hash == hash && keyEquals(node.key, key))) {
+                node = node.next;
+                length++;
+            }
+        }
+        if (node != null && node.value != null) {
+            return node.value;
+        }
 
-        // Overwrite existing value if key already exists.
-        Node<K, V> existing = selectNode(key);
-        if (existing != null) {
-            existing.value = value;
-            return;
+        int mc = modCount;
+        V value = mappingFunction.apply(key);
+        checkModCount(mc);
+        if (value == null) {
+            return null;
+        }
+        if (node != null) {
+            node.value = value;
+        } else {
+            linkNewNode(index, hash, key, value, length);
         }
+        return value;
+    }
 
-        addSize();
+    private V computeIfAbsentFlat(int index, FlatBin<K, V> bin, int hash, K key,
+                                  Function<? super K, ? extends V> mappingFunction) {
+        int i = flatIndexOf(bin, hash, key);
+        V old = i < 0 ? null : bin.valueAt(i);
+        if (old != null) {
+            return old;
+        }
+        int mc = modCount;
+        V value = mappingFunction.apply(key);
+        checkModCount(mc);
+        return value == null ? null : storeComputedFlat(index, bin, i, hash, key, value);
+    }
 
-        if (buckets[index] instanceof TreeNode) {
-            TreeNode<K, V> node = new TreeNode<>(hash, key, value, null);
-            insertTreeNode(index, node);
+    /**
+     * Compute a new value from the key and its current value (null if absent). A null result
+     * removes the entry.
+     *
+     * @return the new value, or null if the entry is now absent.
+     * @throws ConcurrentModificationException if the function added or removed entries.
+     */
+    public V compute(K key, BiFunction<? super K, ? super V, ? extends V> remappingFunction) {
+        int hash = computeHash(key);
+        helpTransfer(hash);
+        int index = computeBucketIndex(hash);
+        int length = 0;
+        Node<K, V> head = buckets[index];
+        if (head instanceof FlatBin) {
+            FlatBin<K, V> bin = (FlatBin<K, V>) head;
+            int i = flatIndexOf(bin, hash, key);
+            int mc = modCount;
+            V value = remappingFunction.apply(key, i < 0 ? null : bin.valueAt(i));
+            checkModCount(mc);
+            return storeComputedFlat(index, bin, i, hash, key, value);
+        }
+        Node<K, V> node;
+        Node<K, V> pred = null;
+        if (head instanceof TreeNode) {
+            node = findTreeNode(rootOf((TreeNode<K, V>) head), hash, key);
         } else {
-            Node<K, V> node = new Node<>(hash, key, value, null);
-            insertToBucket(node);
+            node = head;
+            while (node != null && !(node.hash == hash && keyEquals(node.key, key))) {
+                pred = node;
+                node = node.next;
+                length++;
+            }
         }
+
+        int mc = modCount;
+        V value = remappingFunction.apply(key, node == null ? null : node.value);
+        checkModCount(mc);
+        return storeComputed(index, hash, key, node, pred, value, length);
     }
 
-    private Node<K, V> selectNode(K key) {
+    /**
+     * Insert {@code value} if the key is absent (or mapped to null), otherwise replace the current
+     * value with {@code remappingFunction(current, value)}; a null result removes the entry.
+     * {@code merge(word, 1, Integer::sum)} counts occurrences in one pass.
+     *
+     * @return the new value, or null if the entry is now absent.
+     * @throws ConcurrentModificationException if the function added or removed entries.
+     */
+    public V merge(K key, V value, BiFunction<? super V, ? super V, ? extends V> remappingFunction) {
+        if (value == null) {
+            throw new NullPointerException("value");
+        }
         int hash = computeHash(key);
+        helpTransfer(hash);
         int index = computeBucketIndex(hash);
-        Node<K, V> iterator = buckets[index];
+        int length = 0;
+        Node<K, V> head = buckets[index];
+        if (head instanceof FlatBin) {
+            FlatBin<K, V> bin = (FlatBin<K, V>) head;
+            int i = flatIndexOf(bin, hash, key);
+            V old = i < 0 ? null : bin.valueAt(i);
+            V newValue;
+            if (old == null) {
+                newValue = value;
+            } else {
+                int mc = modCount;
+                newValue = remappingFunction.apply(old, value);
+                checkModCount(mc);
+            }
+            return storeComputedFlat(index, bin, i, hash, key, newValue);
+        }
+        Node<K, V> node;
+        Node<K, V> pred = null;
+        if (head instanceof TreeNode) {
+            node = findTreeNode(rootOf((TreeNode<K, V>) head), hash, key);
+        } else {
+            node = head;
+            while (node != null && !(node.hash == hash && keyEquals(node.key, key))) {
+                pred = node;
+                node = node.next;
+                length++;
+            }
+        }
+
+        V newValue;
+        if (node == null || node.value == null) {
+            newValue = value;
+        } else {
+            int mc = modCount;
+            newValue = remappingFunction.apply(node.value, value);
+            checkModCount(mc);
+        }
+        return storeComputed(index, hash, key, node, pred, newValue, length);
+    }
+
+    /**
+     * Apply the result of compute/merge to the node found by the caller's pass: update it,
+     * unlink it (null result) or link a new node.
+     *
+     * @param pred   the node before {@code node} in a list bucket (null for the head or a tree bin).
+     * @param length number of nodes in the list bucket (unused for tree bins).
+     */
+    private V storeComputed(int index, int hash, K key, Node<K, V> node, Node<K, V> pred, V value, int length) {
+        if (node != null) {
+            if (value != null) {
+                node.value = value;
+            } else if (node instanceof TreeNode) {
+                deleteTreeNode(key, hash, index);
+            } else {
+                unlinkListNode(index, pred, node);
+            }
+        } else if (value != null) {
+            linkNewNode(index, hash, key, value, length);
+        }
+        return value;
+    }
+
+    /**
+     * Link a node for a key known to be absent from bucket {@code index}. List nodes go in at the
+     * head, so no walk to the tail is needed.
+     *
+     * @param length current number of nodes in the list bucket.
+     */
+    private void linkNewNode(int index, int hash, K key, V value, int length) {
+        linkEntry(index, hash, key, value, length);
+        addSize();
+    }
+
+    /** linkNewNode without the size update, shared with rehash. */
+    private void linkEntry(int index, int hash, K key, V value, int length) {
+        Node<K, V> head = buckets[index];
+        if (head instanceof FlatBin) {
+            addToFlatBin(index, (FlatBin<K, V>) head, hash, key, value);
+        } else if (head instanceof TreeNode) {
+            insertTreeNode(index, new TreeNode<>(hash, key, value, null));
+        } else if (head != null && NeedFlatten(length)) {
+            buckets[index] = toFlatBin(head, length, hash, key, value);
+        } else {
+            buckets[index] = new Node<>(hash, key, value, head);
+            if (NeedTreeify(length + 1)) {
+                treeify(index);
+            }
+        }
+    }
+
+    private void checkModCount(int expected) {
+        if (modCount != expected) {
+            throw new ConcurrentModificationException("table was modified by the mapping function");
+        }
+    }
+
+    private Node<K, V> selectNode(Node<K, V> head, int hash, K key) {
+        if (head instanceof TreeNode) {
+            return findTreeNode(rootOf((TreeNode<K, V>) head), hash, key);
+        }
+        Node<K, V> iterator = head;
         while (iterator != null) {
-            if (iterator.hash == hash && iterator.key.equals(key)) {
+            if (iterator.hash == hash && keyEquals(iterator.key, key)) {
                 return iterator;
             } else {
                 iterator = iterator.next;
@@ -560,13 +1126,70 @@ public class HashTable<K, V> {
     }
 
     public V get(K key) {
-        Node<K, V> node = selectNode(key);
+        int hash = computeHash(key);
+        helpTransfer(hash);
+        Node<K, V> head = buckets[computeBucketIndex(hash)];
+        if (head instanceof FlatBin) {
+            FlatBin<K, V> bin = (FlatBin<K, V>) head;
+            int i = flatIndexOf(bin, hash, key);
+            return i < 0 ? null : bin.valueAt(i);
+        }
+        Node<K, V> node = selectNode(head, hash, key);
         if (node == null) {
             return null;
         }
         return node.value;
     }
 
+    public int size() {
+        return size;
+    }
+
+    int capacity() {
+        return capacity;
+    }
+
+    /**
+     * Grow the bucket array, if needed, so that {@code expectedSize} entries fit without a resize.
+     * Call before a bulk load whose size is known to skip the intermediate doublings.
+     */
+    public void ensureCapacity(int expectedSize) {
+        int needed = capacityFor(expectedSize, loadFactor);
+        if (needed > capacity) {
+            rehash(needed);
+        }
+    }
+
+    /**
+     * Shrink the bucket array to the smallest power of two that holds the current entries within
+     * the load factor, e.g. after a purge.
+     */
+    public void trimToSize() {
+        int target = capacityFor(size, loadFactor);
+        if (target < capacity) {
+            rehash(target);
+        }
+    }
+
+    /**
+     * With auto-shrink on, a removal that leaves fewer than threshold / 4 entries halves the bucket
+     * array (never below 16 buckets). The table doubles again only past the full threshold, so
+     * alternating inserts and deletes around either boundary cannot make it resize back and forth.
+     * Off by default; a bulk load can run with it off and a later purge with it on.
+     */
+    public void setAutoShrink(boolean autoShrink) {
+        this.autoShrink = autoShrink;
+    }
+
+    private void unlinkListNode(int index, Node<K, V> pred, Node<K, V> node) {
+        if (pred != null) {
+            pred.next = node.next;
+        } else {
+            buckets[index] = node.next;
+        }
+        reduceSize();
+    }
+
     private boolean deleteListNode(K key, int hash, int index) {
         if (buckets[index] instanceof TreeNode) {
             return false;
@@ -574,13 +1197,8 @@ public class HashTable<K, V> {
         Node<K, V> iterator = buckets[index];
         Node<K, V> parent = null;
         while (iterator != null) {
-            if (iterator.hash == hash && iterator.key.equals(key)) {
-                if (parent != null) {
-                    parent.next = iterator.next;
-                } else {
-                    buckets[index] = iterator.next;
-                }
-                reduceSize();
+            if (iterator.hash == hash && keyEquals(iterator.key, key)) {
+                unlinkListNode(index, parent, iterator);
                 return true;
             } else {
                 parent = iterator;
@@ -657,81 +1275,697 @@ public class HashTable<K, V> {
             root = balanceDeletion(root, x, xParent);
         }
 
-        reduceSize();
-
-        // If bucket is empty now
-        if (buckets[index] == null) {
-            return true;
-        }
-
-        if (NeedUnTreeify(key, hash, index)) {
+        if (buckets[index] != null && NeedUnTreeify(key, hash, index)) {
             untreeify((TreeNode<K, V>) buckets[index]);
         }
+        reduceSize();
         return true;
     }
 
     public boolean delete(K key) {
         int hash = computeHash(key);
+        helpTransfer(hash);
         int index = computeBucketIndex(hash);
-        if (buckets[index] instanceof TreeNode) {
+        if (buckets[index] instanceof FlatBin) {
+            FlatBin<K, V> bin = (FlatBin<K, V>) buckets[index];
+            int i = flatIndexOf(bin, hash, key);
+            if (i < 0) {
+                return false;
+            }
+            removeFromFlatBin(index, bin, i);
+            return true;
+        } else if (buckets[index] instanceof TreeNode) {
             return deleteTreeNode(key, hash, index);
         } else {
             return deleteListNode(key, hash, index);
         }
     }
 
+    // -------------------- Iteration and bulk operations --------------------
+
+    /**
+     * Snapshot entries in bucket order; fails fast with ConcurrentModificationException if the
+     * table is structurally modified while iterating.
+     */
+    @Override
+    public Iterator<Map.Entry<K, V>> iterator() {
+        return Spliterators.iterator(spliterator());
+    }
+
+    /**
+     * Splits by halving the remaining bucket range, so a parallel stream gives each worker a
+     * contiguous slice of the bucket array.
+     */
+    @Override
+    public Spliterator<Map.Entry<K, V>> spliterator() {
+        finishTransfer();
+        return new EntrySpliterator(0, capacity, modCount);
+    }
+
+    /** Sequential stream of snapshot entries; call {@code parallel()} on it to split by bucket range. */
+    public Stream<Map.Entry<K, V>> stream() {
+        return StreamSupport.stream(spliterator(), false);
+    }
+
+    public void forEach(BiConsumer<? super K, ? super V> action) {
+        forEach(Long.MAX_VALUE, action);
+    }
+
+    /**
+     * Bulk operations below split the bucket array into ranges and run them as fork/join tasks in the
+     * calling thread's ForkJoinPool (the common pool from outside one). A range is split while it is
+     * estimated to hold more than {@code parallelismThreshold} entries: Long.MAX_VALUE runs
+     * sequentially, 1 gives the most parallelism. The functions run concurrently and must not modify
+     * the table; a forEach/reduce/search that sees the table modified throws ConcurrentModificationException.
+     */
+    public void forEach(long parallelismThreshold, BiConsumer<? super K, ? super V> action) {
+        finishTransfer();
+        int mc = modCount;
+        new BucketRangeTask<Void>(0, capacity, parallelismThreshold, (lo, hi) -> {
+            forEachInRange(lo, hi, action);
+            return null;
+        }, (a, b) -> null).invoke();
+        checkModCount(mc);
+    }
+
+    /**
+     * Fold {@code transformer(key, value)} over all entries with {@code reducer}; null transforms are
+     * skipped. The reducer must be associative and commutative, since bucket ranges are combined in
+     * no particular order.
+     *
+     * @return the reduction, or null if every transform was null.
+     */
+    public <U> U reduce(long parallelismThreshold, BiFunction<? super K, ? super V, ? extends U> transformer,
+                        BiFunction<? super U, ? super U, ? extends U> reducer) {
+        finishTransfer();
+        int mc = modCount;
+        U result = new BucketRangeTask<U>(0, capacity, parallelismThreshold,
+                (lo, hi) -> reduceInRange(lo, hi, transformer, reducer),
+                (a, b) -> a == null ? b : (b == null ? a : reducer.apply(a, b))).invoke();
+        checkModCount(mc);
+        return result;
+    }
+
+    /**
+     * @return a non-null result of {@code searchFunction(key, value)} for some entry, or null if there
+     * is none. Once any task finds a result the others stop at their next bucket.
+     */
+    public <U> U search(long parallelismThreshold, BiFunction<? super K, ? super V, ? extends U> searchFunction) {
+        finishTransfer();
+        int mc = modCount;
+        AtomicReference<U> found = new AtomicReference<>();
+        new BucketRangeTask<Void>(0, capacity, parallelismThreshold, (lo, hi) -> {
+            searchInRange(lo, hi, searchFunction, found);
+            return null;
+        }, (a, b) -> null, found).invoke();
+        checkModCount(mc);
+        return found.get();
+    }
+
+    /**
+     * Remove every entry matching {@code filter}. Each task only rewrites the buckets in its own range;
+     * the size is settled once all of them finish, and with auto-shrink on the table then shrinks once.
+     *
+     * @return the number of entries removed.
+     */
+    public int removeIf(long parallelismThreshold, BiPredicate<? super K, ? super V> filter) {
+        finishTransfer();
+        AtomicInteger removed = new AtomicInteger();
+        try {
+            new BucketRangeTask<Void>(0, capacity, parallelismThreshold, (lo, hi) -> {
+                for (int i = lo; i < hi; i++) {
+                    int n = removeMatching(i, filter);
+                    if (n != 0) {
+                        removed.addAndGet(n);
+                    }
+                }
+                return null;
+            }, (a, b) -> null).invoke();
+        } finally {
+            int n = removed.get();
+            if (n != 0) {
+                modCount++;
+                size -= n;
+                if (autoShrink) {
+                    shrinkIfSparse();
+                }
+            }
+        }
+        return removed.get();
+    }
+
+    public int removeIf(BiPredicate<? super K, ? super V> filter) {
+        return removeIf(Long.MAX_VALUE, filter);
+    }
+
+    @FunctionalInterface
+    private interface RangeFunction<R> {
+        R apply(int lo, int hi);
+    }
+
+    /**
+     * Runs {@code leaf} over the bucket range [lo, hi), forking halves while the range is estimated
+     * (from the average load) to hold more than {@code threshold} entries, and folds the halves with
+     * {@code combine}. With a {@code stop} reference set, no more ranges are started.
+     */
+    private final class BucketRangeTask<R> extends RecursiveTask<R> {
+        private static final long serialVersionUID = 1L;
+
+        private final int lo, hi;
+        private final long threshold;
+        private final RangeFunction<R> leaf;
+        private final BinaryOperator<R> combine;
+        private final AtomicReference<?> stop;
+
+        BucketRangeTask(int lo, int hi, long threshold, RangeFunction<R> leaf, BinaryOperator<R> combine) {
+            this(lo, hi, threshold, leaf, combine, null);
+        }
+
+        BucketRangeTask(int lo, int hi, long threshold, RangeFunction<R> leaf, BinaryOperator<R> combine,
+                        AtomicReference<?> stop) {
+            this.lo = lo;
+            this.hi = hi;
+            this.threshold = threshold;
+            this.leaf = leaf;
+            this.combine = combine;
+            this.stop = stop;
+        }
+
+        @Override
+        protected R compute() {
+            if (stop != null && stop.get() != null) {
+                return null;
+            }
+            if (hi - lo > 1 && (long) size * (hi - lo) / capacity > threshold) {
+                int mid = (lo + hi) >>> 1;
+                BucketRangeTask<R> right = new BucketRangeTask<>(mid, hi, threshold, leaf, combine, stop);
+                right.fork();
+                R left = new BucketRangeTask<>(lo, mid, threshold, leaf, combine, stop).compute();
+                return combine.apply(left, right.join());
+            }
+            return leaf.apply(lo, hi);
+        }
+    }
+
+    private void forEachInRange(int lo, int hi, BiConsumer<? super K, ? super V> action) {
+        for (int i = lo; i < hi; i++) {
+            Node<K, V> head = buckets[i];
+            if (head instanceof FlatBin) {
+                FlatBin<K, V> bin = (FlatBin<K, V>) head;
+                for (int j = 0; j < bin.count; j++) {
+                    action.accept(bin.keyAt(j), bin.valueAt(j));
+                }
+            } else {
+                for (Node<K, V> e = head; e != null; e = e.next) {
+                    action.accept(e.key, e.value);
+                }
+            }
+        }
+    }
+
+    private <U> U reduceInRange(int lo, int hi, BiFunction<? super K, ? super V, ? extends U> transformer,
+                                BiFunction<? super U, ? super U, ? extends U> reducer) {
+        U result = null;
+        for (int i = lo; i < hi; i++) {
+            Node<K, V> head = buckets[i];
+            if (head instanceof FlatBin) {
+                FlatBin<K, V> bin = (FlatBin<K, V>) head;
+                for (int j = 0; j < bin.count; j++) {
+                    U u = transformer.apply(bin.keyAt(j), bin.valueAt(j));
+                    if (u != null) {
+                        result = (result == null) ? u : reducer.apply(result, u);
+                    }
+                }
+            } else {
+                for (Node<K, V> e = head; e != null; e = e.next) {
+                    U u = transformer.apply(e.key, e.value);
+                    if (u != null) {
+                        result = (result == null) ? u : reducer.apply(result, u);
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    private <U> void searchInRange(int lo, int hi, BiFunction<? super K, ? super V, ? extends U> searchFunction,
+                                   AtomicReference<U> found) {
+        for (int i = lo; i < hi && found.get() == null; i++) {
+            Node<K, V> head = buckets[i];
+            if (head instanceof FlatBin) {
+                FlatBin<K, V> bin = (FlatBin<K, V>) head;
+                for (int j = 0; j < bin.count; j++) {
+                    U u = searchFunction.apply(bin.keyAt(j), bin.valueAt(j));
+                    if (u != null) {
+                        found.compareAndSet(null, u);
+                        return;
+                    }
+                }
+            } else {
+                for (Node<K, V> e = head; e != null; e = e.next) {
+                    U u = searchFunction.apply(e.key, e.value);
+                    if (u != null) {
+                        found.compareAndSet(null, u);
+                        return;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Remove the entries of bucket {@code index} that match {@code filter}, touching no other bucket
+     * and not the size. Every filter call happens before a tree bin is rewritten, so a throwing
+     * filter leaves it intact.
+     *
+     * @return the number of entries removed.
+     */
+    private int removeMatching(int index, BiPredicate<? super K, ? super V> filter) {
+        Node<K, V> head = buckets[index];
+        if (head == null) {
+            return 0;
+        }
+        int removed = 0;
+        if (head instanceof FlatBin) {
+            FlatBin<K, V> bin = (FlatBin<K, V>) head;
+            for (int j = 0; j < bin.count; ) {
+                if (filter.test(bin.keyAt(j), bin.valueAt(j))) {
+                    bin.removeAt(j);
+                    removed++;
+                } else {
+                    j++;
+                }
+            }
+            buckets[index] = (bin.count == 0) ? null : unpackSingle(bin);
+        } else if (head instanceof TreeNode) {
+            List<TreeNode<K, V>> kept = new ArrayList<>();
+            for (Node<K, V> e = head; e != null; e = e.next) {
+                if (filter.test(e.key, e.value)) {
+                    removed++;
+                } else {
+                    kept.add((TreeNode<K, V>) e);
+                }
+            }
+            if (removed != 0) {
+                buckets[index] = rebuildTreeBin(kept);
+            }
+        } else {
+            Node<K, V> pred = null;
+            for (Node<K, V> e = head; e != null; e = e.next) {
+                if (filter.test(e.key, e.value)) {
+                    if (pred == null) {
+                        buckets[index] = e.next;
+                    } else {
+                        pred.next = e.next;
+                    }
+                    removed++;
+                } else {
+                    pred = e;
+                }
+            }
+        }
+        return removed;
+    }
+
+    /** Relink the surviving nodes of a tree bin: a new tree, or a plain list at UNTREEIFY_THRESHOLD or fewer. */
+    private static <K, V> Node<K, V> rebuildTreeBin(List<TreeNode<K, V>> kept) {
+        TreeNode<K, V> head = null, tail = null;
+        for (TreeNode<K, V> e : kept) {
+            e.next = null;
+            e.prev = tail;
+            if (tail == null) {
+                head = e;
+            } else {
+                tail.next = e;
+            }
+            tail = e;
+        }
+        if (head == null) {
+            return null;
+        }
+        if (kept.size() <= UNTREEIFY_THRESHOLD) {
+            return toPlainList(head);
+        }
+        buildTree(head);
+        return head;
+    }
+
+    /** Walks bucket range [index, fence) of the bucket array it was created on. */
+    private final class EntrySpliterator implements Spliterator<Map.Entry<K, V>> {
+        private final Node<K, V>[] table = buckets;
+        private int index;
+        private final int fence;
+        private final int expectedModCount;
+        // Position inside the bucket being walked: a list/tree node, or a flat bin and slot.
+        private Node<K, V> node;
+        private FlatBin<K, V> bin;
+        private int slot;
+
+        EntrySpliterator(int index, int fence, int expectedModCount) {
+            this.index = index;
+            this.fence = fence;
+            this.expectedModCount = expectedModCount;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super Map.Entry<K, V>> action) {
+            while (true) {
+                if (bin != null) {
+                    if (slot < bin.count) {
+                        int j = slot++;
+                        return accept(action, bin.keyAt(j), bin.valueAt(j));
+                    }
+                    bin = null;
+                } else if (node != null) {
+                    Node<K, V> e = node;
+                    node = e.next;
+                    return accept(action, e.key, e.value);
+                } else if (index < fence) {
+                    Node<K, V> head = table[index++];
+                    if (head instanceof FlatBin) {
+                        bin = (FlatBin<K, V>) head;
+                        slot = 0;
+                    } else {
+                        node = head;
+                    }
+                } else {
+                    return false;
+                }
+            }
+        }
+
+        private boolean accept(Consumer<? super Map.Entry<K, V>> action, K key, V value) {
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            action.accept(new AbstractMap.SimpleImmutableEntry<>(key, value));
+            return true;
+        }
+
+        /** Hands off the first half of the untouched buckets; refuses while inside a bucket. */
+        @Override
+        public Spliterator<Map.Entry<K, V>> trySplit() {
+            int lo = index, mid = (lo + fence) >>> 1;
+            if (lo >= mid || node != null || bin != null) {
+                return null;
+            }
+            index = mid;
+            return new EntrySpliterator(lo, mid, expectedModCount);
+        }
+
+        @Override
+        public long estimateSize() {
+            return (long) size * (fence - index) / table.length;
+        }
+
+        @Override
+        public int characteristics() {
+            return Spliterator.DISTINCT | Spliterator.NONNULL;
+        }
+    }
+
+    /**
+     * Bucket-length distribution, for tests and benchmarks: result[i] is the number of buckets
+     * holding exactly i entries, and the last slot counts every bucket with maxLength or more.
+     */
+    int[] bucketLengthHistogram(int maxLength) {
+        finishTransfer();
+        int[] histogram = new int[maxLength + 1];
+        for (Node<K, V> head : buckets) {
+            int length = 0;
+            if (head instanceof FlatBin) {
+                length = ((FlatBin<K, V>) head).count;
+            } else {
+                for (Node<K, V> e = head; e != null; e = e.next) {
+                    length++;
+                }
+            }
+            histogram[Math.min(length, maxLength)]++;
+        }
+        return histogram;
+    }
+
     private void resize() {
+        // Never start a new doubling on top of an unfinished incremental one.
+        finishTransfer();
+
         int old_cap = capacity;
+        if (old_cap >= MAXIMUM_CAPACITY) {
+            threshold = Integer.MAX_VALUE;
+            return;
+        }
         int new_cap = old_cap << 1;
 
         capacity = new_cap;
-        threshold = threshold << 1;
+        threshold = (int) (new_cap * loadFactor);
 
+        Node<K, V>[] old_buckets = buckets;
         Node<K, V>[] new_buckets = (Node<K, V>[]) new Node[new_cap];
+        buckets = new_buckets;
+
+        if (incrementalResize) {
+            oldBuckets = old_buckets;
+            transferIndex = 0;
+            return;
+        }
 
-        // Simplified rehashing:
-        // - Iterate each old bucket via its linked list (works for both Node and TreeNode bins because TreeNode extends Node).
-        // - Recreate plain Nodes in new buckets (discarding any tree pointers), and let future insertions re-treeify if needed.
         for (int i = 0; i < old_cap; i++) {
-            Node<K, V> iter = buckets[i];
-            if (iter == null) {
-                continue;
+            transferBucket(old_buckets, i, new_buckets, old_cap);
+        }
+    }
+
+    /**
+     * Rebuild the table at {@code newCapacity} buckets, larger or smaller, re-linking every entry
+     * by its cached hash (no hashCode calls). Bins are rebuilt under the table's policy, so two
+     * tree bins folded together by a shrink become one tree.
+     */
+    private void rehash(int newCapacity) {
+        finishTransfer();
+        modCount++;
+        Node<K, V>[] old_buckets = buckets;
+        capacity = newCapacity;
+        threshold = (int) (newCapacity * loadFactor);
+        buckets = (Node<K, V>[]) new Node[newCapacity];
+
+        for (Node<K, V> head : old_buckets) {
+            if (head instanceof FlatBin) {
+                FlatBin<K, V> bin = (FlatBin<K, V>) head;
+                for (int i = 0; i < bin.count; i++) {
+                    relink(bin.hashes[i], bin.keyAt(i), bin.valueAt(i));
+                }
+            } else {
+                for (Node<K, V> e = head; e != null; e = e.next) {
+                    relink(e.hash, e.key, e.value);
+                }
             }
+        }
+    }
 
-            Node<K, V> lo_head = null, lo_tail = null;
-            Node<K, V> hi_head = null, hi_tail = null;
+    private void relink(int hash, K key, V value) {
+        int index = computeBucketIndex(hash);
+        linkEntry(index, hash, key, value, listLength(buckets[index]));
+    }
 
-            while (iter != null) {
-                Node<K, V> next = iter.next;
-                Node<K, V> n = new Node<>(iter.hash, iter.key, iter.value, null);
+    /** Length of a list bin, counted only as far as the treeify and flatten checks look. */
+    private static int listLength(Node<?, ?> head) {
+        int length = 0;
+        for (Node<?, ?> e = head; e != null && length <= TREEIFY_THRESHOLD; e = e.next) {
+            length++;
+        }
+        return length;
+    }
 
-                if ((iter.hash & old_cap) == 0) {
-                    if (lo_tail == null) {
-                        lo_head = n;
-                    } else {
-                        lo_tail.next = n;
-                    }
-                    lo_tail = n;
+    /**
+     * Incremental resize step, called before any access to the bucket of {@code hash}:
+     * first migrate that key's old bucket (so the operation only ever sees the new table),
+     * then move up to RESIZE_STEP further old buckets.
+     */
+    private void helpTransfer(int hash) {
+        Node<K, V>[] old_buckets = oldBuckets;
+        if (old_buckets == null) {
+            return;
+        }
+        int old_cap = old_buckets.length;
+        transferBucket(old_buckets, hash & (old_cap - 1), buckets, old_cap);
+
+        int end = Math.min(transferIndex + RESIZE_STEP, old_cap);
+        for (int i = transferIndex; i < end; i++) {
+            transferBucket(old_buckets, i, buckets, old_cap);
+        }
+        transferIndex = end;
+        if (end == old_cap) {
+            oldBuckets = null;
+        }
+    }
+
+    private void finishTransfer() {
+        Node<K, V>[] old_buckets = oldBuckets;
+        if (old_buckets == null) {
+            return;
+        }
+        int old_cap = old_buckets.length;
+        for (int i = transferIndex; i < old_cap; i++) {
+            transferBucket(old_buckets, i, buckets, old_cap);
+        }
+        oldBuckets = null;
+    }
+
+    /**
+     * Move old bucket i into slots i and i + old_cap of the doubled table, relinking the
+     * existing nodes in place (no allocation for list bins; order within each half is preserved).
+     */
+    private static <K, V> void transferBucket(Node<K, V>[] old_buckets, int i, Node<K, V>[] new_buckets, int old_cap) {
+        Node<K, V> iter = old_buckets[i];
+        if (iter == null) {
+            return;
+        }
+        old_buckets[i] = null;
+
+        if (iter instanceof FlatBin) {
+            splitFlatBin((FlatBin<K, V>) iter, new_buckets, i, old_cap);
+            return;
+        }
+        if (iter instanceof TreeNode) {
+            splitTreeBin((TreeNode<K, V>) iter, new_buckets, i, old_cap);
+            return;
+        }
+        if (iter.next == null) {
+            new_buckets[iter.hash & (2 * old_cap - 1)] = iter;
+            return;
+        }
+
+        Node<K, V> lo_head = null, lo_tail = null;
+        Node<K, V> hi_head = null, hi_tail = null;
+
+        while (iter != null) {
+            if ((iter.hash & old_cap) == 0) {
+                if (lo_tail == null) {
+                    lo_head = iter;
                 } else {
-                    if (hi_tail == null) {
-                        hi_head = n;
-                    } else {
-                        hi_tail.next = n;
-                    }
-                    hi_tail = n;
+                    lo_tail.next = iter;
+                }
+                lo_tail = iter;
+            } else {
+                if (hi_tail == null) {
+                    hi_head = iter;
+                } else {
+                    hi_tail.next = iter;
                 }
+                hi_tail = iter;
+            }
+            iter = iter.next;
+        }
+
+        if (lo_tail != null) {
+            lo_tail.next = null;
+            new_buckets[i] = lo_head;
+        }
+        if (hi_tail != null) {
+            hi_tail.next = null;
+            new_buckets[i + old_cap] = hi_head;
+        }
+    }
+
+    /**
+     * Split a flat bin into lo/hi halves. The lo entries are compacted in place, so at most the hi
+     * half allocates a bin; a half left with a single entry becomes a plain Node, and if every
+     * entry lands in the same half the bin moves as is.
+     */
+    private static <K, V> void splitFlatBin(FlatBin<K, V> bin, Node<K, V>[] new_buckets, int i, int old_cap) {
+        int n = bin.count;
+        int hi_count = 0;
+        for (int j = 0; j < n; j++) {
+            if ((bin.hashes[j] & old_cap) != 0) {
+                hi_count++;
+            }
+        }
+        if (hi_count == 0) {
+            new_buckets[i] = bin;
+            return;
+        }
+        if (hi_count == n) {
+            new_buckets[i + old_cap] = bin;
+            return;
+        }
+
+        FlatBin<K, V> hi = new FlatBin<>(hi_count);
+        Object[] slots = bin.slots;
+        int lo_count = 0;
+        for (int j = 0; j < n; j++) {
+            int hash = bin.hashes[j];
+            if ((hash & old_cap) != 0) {
+                hi.add(hash, slots[2 * j], slots[2 * j + 1]);
+            } else {
+                bin.hashes[lo_count] = hash;
+                slots[2 * lo_count] = slots[2 * j];
+                slots[2 * lo_count + 1] = slots[2 * j + 1];
+                lo_count++;
+            }
+        }
+        Arrays.fill(slots, 2 * lo_count, 2 * n, null);
+        bin.count = lo_count;
+        new_buckets[i] = unpackSingle(bin);
+        new_buckets[i + old_cap] = unpackSingle(hi);
+    }
+
+    private static <K, V> Node<K, V> unpackSingle(FlatBin<K, V> bin) {
+        return bin.count == 1 ? new Node<>(bin.hashes[0], bin.keyAt(0), bin.valueAt(0), null) : bin;
+    }
 
-                iter = next;
+    /**
+     * Split a tree bin into lo/hi halves (JDK HashMap.TreeNode.split style).
+     * Each half stays a tree (rebuilt over the same TreeNodes) unless it has shrunk to
+     * UNTREEIFY_THRESHOLD or fewer entries, in which case it becomes a plain list.
+     * If every entry lands in the same half, the existing tree is kept untouched.
+     */
+    private static <K, V> void splitTreeBin(TreeNode<K, V> head, Node<K, V>[] new_buckets, int i, int old_cap) {
+        TreeNode<K, V> lo_head = null, lo_tail = null;
+        TreeNode<K, V> hi_head = null, hi_tail = null;
+        int lo_count = 0, hi_count = 0;
+
+        for (TreeNode<K, V> e = head, next; e != null; e = next) {
+            next = (TreeNode<K, V>) e.next;
+            e.next = null;
+            if ((e.hash & old_cap) == 0) {
+                e.prev = lo_tail;
+                if (lo_tail == null) {
+                    lo_head = e;
+                } else {
+                    lo_tail.next = e;
+                }
+                lo_tail = e;
+                lo_count++;
+            } else {
+                e.prev = hi_tail;
+                if (hi_tail == null) {
+                    hi_head = e;
+                } else {
+                    hi_tail.next = e;
+                }
+                hi_tail = e;
+                hi_count++;
             }
+        }
 
-            if (lo_head != null) {
+        if (lo_head != null) {
+            if (lo_count <= UNTREEIFY_THRESHOLD) {
+                new_buckets[i] = toPlainList(lo_head);
+            } else {
                 new_buckets[i] = lo_head;
+                if (hi_head != null) {
+                    buildTree(lo_head);
+                }
             }
-            if (hi_head != null) {
+        }
+        if (hi_head != null) {
+            if (hi_count <= UNTREEIFY_THRESHOLD) {
+                new_buckets[i + old_cap] = toPlainList(hi_head);
+            } else {
                 new_buckets[i + old_cap] = hi_head;
+                if (lo_head != null) {
+                    buildTree(hi_head);
+                }
             }
         }
-
-        buckets = new_buckets;
     }
 }
@@ -0,0 +1,189 @@
+package ds.hashtable;
+
+/**
+ * Hash table keyed by primitive {@code int}: keys are stored unboxed in a {@code int[]} next to
+ * a parallel value array, so insert/get/delete allocate nothing and never call hashCode/equals.
+ * <p>
+ * Open addressing with linear probing; deletion shifts the rest of the cluster back (Knuth's
+ * Algorithm R) instead of leaving tombstones. Key 0 marks an empty slot, so an entry with key 0
+ * is kept outside the arrays.
+ */
+public class IntHashTable<V> {
+    private static final int DEFAULT_CAPACITY = 16;
+    private static final float DEFAULT_LOAD_FACTOR = 0.75f;
+    private static final int MAXIMUM_CAPACITY = 1 << 30;
+
+    private final float loadFactor;
+
+    private int size;
+    private int capacity;
+    private int threshold;
+
+    private int[] keys;
+    private V[] values;
+
+    private boolean hasZeroKey;
+    private V zeroValue;
+
+    public IntHashTable() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public IntHashTable(int capacity) {
+        this(capacity, DEFAULT_LOAD_FACTOR);
+    }
+
+    public IntHashTable(int capacity, float loadFactor) {
+        if (!(loadFactor > 0 && loadFactor < 1)) {
+            throw new IllegalArgumentException("loadFactor must be in (0, 1): " + loadFactor);
+        }
+        this.loadFactor = loadFactor;
+        init(tableSizeFor(capacity));
+    }
+
+    private void init(int capacity) {
+        this.capacity = capacity;
+        threshold = (int) (capacity * loadFactor);
+        keys = new int[capacity];
+        values = (V[]) new Object[capacity];
+    }
+
+    private static int tableSizeFor(int capacity) {
+        // Clamp first: rounding anything above 2^30 up to a power of two would overflow int.
+        int n = -1 >>> Integer.numberOfLeadingZeros(Math.max(Math.min(capacity, MAXIMUM_CAPACITY), 2) - 1);
+        return n + 1;
+    }
+
+    private int computeBucketIndex(int key) {
+        return HashStrategies.fmix32(key) & (capacity - 1);
+    }
+
+    /**
+     * @throws IllegalStateException if the key is new and the table is already at its load factor
+     *                               with {@code 2^30} slots, so it cannot grow; the table is unchanged.
+     */
+    public void insert(int key, V value) {
+        if (key == 0) {
+            if (!hasZeroKey) {
+                hasZeroKey = true;
+                size++;
+            }
+            zeroValue = value;
+            return;
+        }
+        int mask = capacity - 1;
+        int index = computeBucketIndex(key);
+        int k;
+        while ((k = keys[index]) != 0) {
+            if (k == key) {
+                values[index] = value;
+                return;
+            }
+            index = (index + 1) & mask;
+        }
+        // Reject the new key while the table is still intact if it cannot double any more; this
+        // keeps at least one slot empty, so every probe terminates.
+        if (size >= threshold && capacity == MAXIMUM_CAPACITY) {
+            throw new IllegalStateException("table is full: " + size + " entries in " + capacity + " slots");
+        }
+        keys[index] = key;
+        values[index] = value;
+        if (++size > threshold) {
+            resize();
+        }
+    }
+
+    private int findIndex(int key) {
+        int mask = capacity - 1;
+        int index = computeBucketIndex(key);
+        int k;
+        while ((k = keys[index]) != 0) {
+            if (k == key) {
+                return index;
+            }
+            index = (index + 1) & mask;
+        }
+        return -1;
+    }
+
+    public V get(int key) {
+        if (key == 0) {
+            return zeroValue;
+        }
+        int index = findIndex(key);
+        return index < 0 ? null : values[index];
+    }
+
+    public boolean containsKey(int key) {
+        return key == 0 ? hasZeroKey : findIndex(key) >= 0;
+    }
+
+    public boolean delete(int key) {
+        if (key == 0) {
+            if (!hasZeroKey) {
+                return false;
+            }
+            hasZeroKey = false;
+            zeroValue = null;
+            size--;
+            return true;
+        }
+        int index = findIndex(key);
+        if (index < 0) {
+            return false;
+        }
+        shiftKeys(index);
+        size--;
+        return true;
+    }
+
+    /**
+     * Close the hole at {@code pos}: move back every later entry of the cluster whose home slot
+     * is not cyclically in (hole, entry].
+     */
+    private void shiftKeys(int pos) {
+        int mask = capacity - 1;
+        while (true) {
+            int last = pos;
+            pos = (pos + 1) & mask;
+            int k;
+            while (true) {
+                if ((k = keys[pos]) == 0) {
+                    keys[last] = 0;
+                    values[last] = null;
+                    return;
+                }
+                int home = computeBucketIndex(k);
+                if (last <= pos ? (last >= home || home > pos) : (last >= home && home > pos)) {
+                    break;
+                }
+                pos = (pos + 1) & mask;
+            }
+            keys[last] = k;
+            values[last] = values[pos];
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private void resize() {
+        // insert keeps a table at MAXIMUM_CAPACITY from ever passing its threshold.
+        int[] oldKeys = keys;
+        V[] oldValues = values;
+        init(capacity << 1);
+        int mask = capacity - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            int k = oldKeys[i];
+            if (k != 0) {
+                int index = computeBucketIndex(k);
+                while (keys[index] != 0) {
+                    index = (index + 1) & mask;
+                }
+                keys[index] = k;
+                values[index] = oldValues[i];
+            }
+        }
+    }
+}
@@ -0,0 +1,275 @@
+package ds.hashtable;
+
+import java.util.Arrays;
+import java.util.function.Function;
+
+/**
+ * Bounded cache with least-recently-used eviction.
+ * <p>
+ * Uses HashTable's chained layout with two extra links per node for the access order (eldest
+ * first), so one lookup both finds an entry and reaches its place in the eviction order; there is
+ * no second map. The bound fixes the entry count, so the bucket array is sized once for
+ * {@code maximumSize} at load factor 0.75 and never resized. Every operation is O(1) expected,
+ * including the eviction an insert may trigger. Not thread-safe.
+ * <p>
+ * There is no collision protection: unlike {@link HashTable}'s default {@link BinPolicy#TREE} bins,
+ * buckets here stay linked lists, so keys that share a bucket make a lookup, an insert and the
+ * bucket unlink of an eviction cost O(chain). For keys chosen by untrusted clients, use
+ * {@link HashStrategy#seeded()}. It defeats crafted String and byte[] collisions, but it cannot
+ * separate keys whose {@code hashCode()} is already equal.
+ */
+public class LruCache<K, V> {
+    private static final float LOAD_FACTOR = 0.75f;
+    private static final int MAXIMUM_CAPACITY = 1 << 30;
+
+    private static final class Node<K, V> {
+        final int hash;
+        final K key;
+        V value;
+        Node<K, V> next;
+        // Access order: before is older, after is more recently used.
+        Node<K, V> before, after;
+
+        Node(int hash, K key, V value, Node<K, V> next) {
+            this.hash = hash;
+            this.key = key;
+            this.value = value;
+            this.next = next;
+        }
+    }
+
+    private final Node<K, V>[] buckets;
+    private final int maximumSize;
+    private final HashStrategy<? super K> hashStrategy;
+    private int size;
+    // Eldest (next to evict) and youngest (most recently used) entries.
+    private Node<K, V> head, tail;
+
+    private long hitCount;
+    private long missCount;
+    private long evictionCount;
+
+    public LruCache(int maximumSize) {
+        this(maximumSize, HashStrategy.spread());
+    }
+
+    /**
+     * @param maximumSize most entries kept; inserting past it evicts the least recently used one.
+     */
+    public LruCache(int maximumSize, HashStrategy<? super K> hashStrategy) {
+        if (maximumSize <= 0) {
+            throw new IllegalArgumentException("maximumSize must be > 0: " + maximumSize);
+        }
+        this.maximumSize = maximumSize;
+        this.hashStrategy = hashStrategy;
+        buckets = (Node<K, V>[]) new Node[tableSizeFor((int) Math.min(Math.ceil(maximumSize / LOAD_FACTOR), MAXIMUM_CAPACITY))];
+    }
+
+    private static int tableSizeFor(int capacity) {
+        int n = -1 >>> Integer.numberOfLeadingZeros(Math.max(capacity, 2) - 1);
+        return Math.min(n + 1, MAXIMUM_CAPACITY);
+    }
+
+    private int computeHash(K key) {
+        return hashStrategy.hash(key);
+    }
+
+    private int computeBucketIndex(int hash) {
+        return hash & (buckets.length - 1);
+    }
+
+    private Node<K, V> findNode(int hash, K key) {
+        for (Node<K, V> e = buckets[computeBucketIndex(hash)]; e != null; e = e.next) {
+            if (e.hash == hash && hashStrategy.equals(e.key, key)) {
+                return e;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Look the key up and, on a hit, make it the most recently used entry.
+     *
+     * @return the cached value, or null on a miss.
+     */
+    public V get(K key) {
+        Node<K, V> node = findNode(computeHash(key), key);
+        if (node == null) {
+            missCount++;
+            return null;
+        }
+        hitCount++;
+        moveToTail(node);
+        return node.value;
+    }
+
+    /** Like {@link #get} but leaves the access order and the hit/miss counters untouched. */
+    public V peek(K key) {
+        Node<K, V> node = findNode(computeHash(key), key);
+        return node == null ? null : node.value;
+    }
+
+    /**
+     * Insert or replace the value and make the entry the most recently used one. A new entry that
+     * takes the cache past {@code maximumSize} evicts the least recently used entry.
+     */
+    public void insert(K key, V value) {
+        int hash = computeHash(key);
+        Node<K, V> node = findNode(hash, key);
+        if (node != null) {
+            node.value = value;
+            moveToTail(node);
+            return;
+        }
+        linkNewNode(hash, key, value);
+    }
+
+    /**
+     * Read-through lookup for a cache in front of a slower store: on a hit returns the cached value,
+     * on a miss loads it and caches it unless the loader returns null. Counts one hit or one miss.
+     */
+    public V computeIfAbsent(K key, Function<? super K, ? extends V> loader) {
+        int hash = computeHash(key);
+        Node<K, V> node = findNode(hash, key);
+        if (node != null) {
+            hitCount++;
+            moveToTail(node);
+            return node.value;
+        }
+        missCount++;
+        V value = loader.apply(key);
+        if (value != null) {
+            // The loader may have inserted the key itself.
+            node = findNode(hash, key);
+            if (node != null) {
+                node.value = value;
+                moveToTail(node);
+            } else {
+                linkNewNode(hash, key, value);
+            }
+        }
+        return value;
+    }
+
+    public boolean delete(K key) {
+        int hash = computeHash(key);
+        int index = computeBucketIndex(hash);
+        Node<K, V> pred = null;
+        for (Node<K, V> e = buckets[index]; e != null; pred = e, e = e.next) {
+            if (e.hash == hash && hashStrategy.equals(e.key, key)) {
+                unlinkFromBucket(index, pred, e);
+                unlinkFromOrder(e);
+                size--;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public void clear() {
+        Arrays.fill(buckets, null);
+        head = tail = null;
+        size = 0;
+    }
+
+    private void linkNewNode(int hash, K key, V value) {
+        int index = computeBucketIndex(hash);
+        Node<K, V> node = new Node<>(hash, key, value, buckets[index]);
+        buckets[index] = node;
+        linkLast(node);
+        if (++size > maximumSize) {
+            evictEldest();
+        }
+    }
+
+    private void evictEldest() {
+        Node<K, V> eldest = head;
+        int index = computeBucketIndex(eldest.hash);
+        Node<K, V> pred = null;
+        for (Node<K, V> e = buckets[index]; e != eldest; e = e.next) {
+            pred = e;
+        }
+        unlinkFromBucket(index, pred, eldest);
+        unlinkFromOrder(eldest);
+        size--;
+        evictionCount++;
+    }
+
+    private void unlinkFromBucket(int index, Node<K, V> pred, Node<K, V> node) {
+        if (pred == null) {
+            buckets[index] = node.next;
+        } else {
+            pred.next = node.next;
+        }
+        node.next = null;
+    }
+
+    private void linkLast(Node<K, V> node) {
+        Node<K, V> last = tail;
+        node.before = last;
+        node.after = null;
+        tail = node;
+        if (last == null) {
+            head = node;
+        } else {
+            last.after = node;
+        }
+    }
+
+    private void unlinkFromOrder(Node<K, V> node) {
+        Node<K, V> b = node.before, a = node.after;
+        if (b == null) {
+            head = a;
+        } else {
+            b.after = a;
+        }
+        if (a == null) {
+            tail = b;
+        } else {
+            a.before = b;
+        }
+        node.before = node.after = null;
+    }
+
+    private void moveToTail(Node<K, V> node) {
+        if (node != tail) {
+            unlinkFromOrder(node);
+            linkLast(node);
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int maximumSize() {
+        return maximumSize;
+    }
+
+    /** Key of the entry the next eviction would remove, or null if the cache is empty. */
+    public K eldestKey() {
+        return head == null ? null : head.key;
+    }
+
+    public long hitCount() {
+        return hitCount;
+    }
+
+    public long missCount() {
+        return missCount;
+    }
+
+    public long evictionCount() {
+        return evictionCount;
+    }
+
+    /** hits / (hits + misses) over get and computeIfAbsent calls, or 0 before the first one. */
+    public double hitRate() {
+        long requests = hitCount + missCount;
+        return requests == 0 ? 0.0 : (double) hitCount / requests;
+    }
+
+    public void resetStats() {
+        hitCount = missCount = evictionCount = 0;
+    }
+}
@@ -0,0 +1,398 @@
+package ds.hashtable;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Hash table whose entries live in native memory (direct {@link ByteBuffer}s) instead of on the
+ * Java heap, so millions of entries add nothing for the GC to trace.
+ * <p>
+ * Keys and values are fixed-width byte strings ({@code keySize} / {@code valueSize} bytes). Each
+ * slot is laid out as {@code [int hash][key bytes][value bytes]}, with hash 0 marking an empty slot.
+ * Open addressing with linear probing; deletion shifts the rest of the cluster back instead of
+ * leaving tombstones. The native memory is released by {@link #close()}; the table cannot be used
+ * afterwards.
+ * <p>
+ * The slot array is split over buffers of at most 1 GB each, so the table is not bound by the 2 GB
+ * limit of a single ByteBuffer and can hold up to 2^30 slots. An optional {@code maxOffHeapBytes}
+ * budget caps the native memory it may reserve. An insert that would have to grow past either
+ * limit throws {@link IllegalStateException} and leaves the table unchanged.
+ */
+public class OffHeapHashTable implements AutoCloseable {
+    private static final int DEFAULT_CAPACITY = 16;
+    private static final float LOAD_FACTOR = 0.75f;
+    private static final int HASH_BYTES = 4;
+    private static final int MAXIMUM_CAPACITY = 1 << 30;
+    private static final int DEFAULT_CHUNK_BYTES = 1 << 30;
+
+    private final int keySize;
+    private final int valueSize;
+    private final int slotSize;
+    private final long maxOffHeapBytes;
+    // Each chunk holds up to 2^chunkShift slots: slot i is at offset(i) in chunks[i >>> chunkShift].
+    private final int chunkShift;
+    private final int chunkMask;
+
+    private int size;
+    private int capacity;
+    private int threshold;
+
+    private ByteBuffer[] chunks;
+
+    public OffHeapHashTable(int keySize, int valueSize) {
+        this(keySize, valueSize, DEFAULT_CAPACITY);
+    }
+
+    public OffHeapHashTable(int keySize, int valueSize, int capacity) {
+        this(keySize, valueSize, capacity, Long.MAX_VALUE);
+    }
+
+    /**
+     * @param maxOffHeapBytes most native memory the table may reserve; growing past it fails the
+     *                        insert that needed the room.
+     */
+    public OffHeapHashTable(int keySize, int valueSize, int capacity, long maxOffHeapBytes) {
+        this(keySize, valueSize, capacity, maxOffHeapBytes, DEFAULT_CHUNK_BYTES);
+    }
+
+    /** Smaller chunks let tests cover probes and shifts that cross chunk boundaries. */
+    OffHeapHashTable(int keySize, int valueSize, int capacity, long maxOffHeapBytes, int chunkBytes) {
+        if (keySize <= 0 || valueSize < 0) {
+            throw new IllegalArgumentException("keySize must be > 0 and valueSize >= 0");
+        }
+        if (capacity < 0) {
+            throw new IllegalArgumentException("capacity must be >= 0: " + capacity);
+        }
+        long slotBytes = (long) HASH_BYTES + keySize + valueSize;
+        if (slotBytes > chunkBytes) {
+            throw new IllegalArgumentException("a slot of " + slotBytes + " bytes exceeds the " + chunkBytes + "-byte buffer limit");
+        }
+        this.keySize = keySize;
+        this.valueSize = valueSize;
+        this.slotSize = (int) slotBytes;
+        this.maxOffHeapBytes = maxOffHeapBytes;
+        this.chunkShift = 31 - Integer.numberOfLeadingZeros(chunkBytes / slotSize);
+        this.chunkMask = (1 << chunkShift) - 1;
+
+        int initialCapacity = tableSizeFor(capacity);
+        long bytes = bytesFor(initialCapacity);
+        if (bytes > maxOffHeapBytes) {
+            throw new IllegalArgumentException("capacity " + capacity + " needs " + bytes
+                    + " bytes, more than maxOffHeapBytes " + maxOffHeapBytes);
+        }
+        install(initialCapacity, allocate(initialCapacity));
+    }
+
+    private void install(int capacity, ByteBuffer[] chunks) {
+        this.capacity = capacity;
+        threshold = (int) (capacity * LOAD_FACTOR);
+        this.chunks = chunks;
+    }
+
+    private long bytesFor(int capacity) {
+        return (long) capacity * slotSize;
+    }
+
+    private ByteBuffer[] allocate(int capacity) {
+        int chunkSlots = Math.min(capacity, 1 << chunkShift);
+        ByteBuffer[] result = new ByteBuffer[capacity / chunkSlots];
+        try {
+            for (int i = 0; i < result.length; i++) {
+                // allocateDirect zero-fills, so every slot starts empty (hash 0).
+                result[i] = ByteBuffer.allocateDirect(chunkSlots * slotSize).order(ByteOrder.nativeOrder());
+            }
+        } catch (OutOfMemoryError e) {
+            for (ByteBuffer b : result) {
+                if (b != null) {
+                    free(b);
+                }
+            }
+            throw e;
+        }
+        return result;
+    }
+
+    private static int tableSizeFor(int capacity) {
+        // Clamp first: rounding anything above 2^30 up to a power of two would overflow int.
+        int n = -1 >>> Integer.numberOfLeadingZeros(Math.max(Math.min(capacity, MAXIMUM_CAPACITY), 2) - 1);
+        return n + 1;
+    }
+
+    private ByteBuffer[] buffers() {
+        ByteBuffer[] c = chunks;
+        if (c == null) {
+            throw new IllegalStateException("table is closed");
+        }
+        return c;
+    }
+
+    private void checkKey(byte[] key) {
+        if (key.length != keySize) {
+            throw new IllegalArgumentException("key must be " + keySize + " bytes, got " + key.length);
+        }
+    }
+
+    private void checkValue(byte[] value) {
+        if (value.length != valueSize) {
+            throw new IllegalArgumentException("value must be " + valueSize + " bytes, got " + value.length);
+        }
+    }
+
+    private static int computeHash(byte[] key) {
+        int h = HashStrategies.murmur3(key, 0);
+        return h == 0 ? 1 : h;
+    }
+
+    private ByteBuffer chunk(ByteBuffer[] c, int index) {
+        return c[index >>> chunkShift];
+    }
+
+    /** Offset of slot {@code index} within its chunk. */
+    private int offset(int index) {
+        return (index & chunkMask) * slotSize;
+    }
+
+    private boolean keyEquals(ByteBuffer b, int slotOffset, byte[] key) {
+        int base = slotOffset + HASH_BYTES;
+        int i = 0;
+        for (; i + 8 <= keySize; i += 8) {
+            if (b.getLong(base + i) != readLong(key, i)) {
+                return false;
+            }
+        }
+        for (; i < keySize; i++) {
+            if (b.get(base + i) != key[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Reads 8 key bytes at once, in the same (native) order the buffer uses.
+    private static final VarHandle LONG_VIEW =
+            MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.nativeOrder());
+
+    private static long readLong(byte[] a, int i) {
+        return (long) LONG_VIEW.get(a, i);
+    }
+
+    /**
+     * @return the key's slot, or {@code ~slot} of the empty slot that ends its probe if it is absent.
+     * The load never passes the threshold, so an empty slot always exists and the probe terminates.
+     */
+    private int findIndex(ByteBuffer[] c, int hash, byte[] key) {
+        int mask = capacity - 1;
+        int index = hash & mask;
+        while (true) {
+            ByteBuffer b = chunk(c, index);
+            int off = offset(index);
+            int h = b.getInt(off);
+            if (h == 0) {
+                return ~index;
+            }
+            if (h == hash && keyEquals(b, off, key)) {
+                return index;
+            }
+            index = (index + 1) & mask;
+        }
+    }
+
+    /**
+     * @throws IllegalStateException if the key is new and the table is at its load factor but cannot
+     *                               grow, because it already has 2^30 slots or doubling would pass
+     *                               {@code maxOffHeapBytes}; the table is unchanged.
+     */
+    public void insert(byte[] key, byte[] value) {
+        checkKey(key);
+        checkValue(value);
+        ByteBuffer[] c = buffers();
+        int hash = computeHash(key);
+        int index = findIndex(c, hash, key);
+        if (index >= 0) {
+            chunk(c, index).put(offset(index) + HASH_BYTES + keySize, value);
+            return;
+        }
+        // Grow before writing, so an insert that cannot get room fails with the table intact.
+        if (size >= threshold) {
+            resize();
+            c = chunks;
+            index = findIndex(c, hash, key);
+        }
+        index = ~index;
+        ByteBuffer b = chunk(c, index);
+        int off = offset(index);
+        b.putInt(off, hash);
+        b.put(off + HASH_BYTES, key);
+        b.put(off + HASH_BYTES + keySize, value);
+        size++;
+    }
+
+    /**
+     * @return a copy of the value, or null if the key is absent.
+     */
+    public byte[] get(byte[] key) {
+        byte[] value = new byte[valueSize];
+        return get(key, value) ? value : null;
+    }
+
+    /**
+     * Allocation-free lookup: copies the value into {@code dst}.
+     *
+     * @return false (leaving dst untouched) if the key is absent.
+     */
+    public boolean get(byte[] key, byte[] dst) {
+        checkKey(key);
+        checkValue(dst);
+        ByteBuffer[] c = buffers();
+        int index = findIndex(c, computeHash(key), key);
+        if (index < 0) {
+            return false;
+        }
+        chunk(c, index).get(offset(index) + HASH_BYTES + keySize, dst);
+        return true;
+    }
+
+    public boolean delete(byte[] key) {
+        checkKey(key);
+        ByteBuffer[] c = buffers();
+        int index = findIndex(c, computeHash(key), key);
+        if (index < 0) {
+            return false;
+        }
+        shiftSlots(c, index);
+        size--;
+        return true;
+    }
+
+    /**
+     * Close the hole at {@code pos}: move back every later slot of the cluster whose home slot
+     * is not cyclically in (hole, slot].
+     */
+    private void shiftSlots(ByteBuffer[] c, int pos) {
+        int mask = capacity - 1;
+        while (true) {
+            int last = pos;
+            pos = (pos + 1) & mask;
+            int h;
+            while (true) {
+                if ((h = chunk(c, pos).getInt(offset(pos))) == 0) {
+                    chunk(c, last).putInt(offset(last), 0);
+                    return;
+                }
+                int home = h & mask;
+                if (last <= pos ? (last >= home || home > pos) : (last >= home && home > pos)) {
+                    break;
+                }
+                pos = (pos + 1) & mask;
+            }
+            copySlot(chunk(c, pos), offset(pos), chunk(c, last), offset(last));
+        }
+    }
+
+    private void copySlot(ByteBuffer src, int srcOffset, ByteBuffer dst, int dstOffset) {
+        dst.put(dstOffset, src, srcOffset, slotSize);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /** Bytes of native memory currently reserved by the table. */
+    public long offHeapBytes() {
+        ByteBuffer[] c = chunks;
+        if (c == null) {
+            return 0;
+        }
+        long bytes = 0;
+        for (ByteBuffer b : c) {
+            bytes += b.capacity();
+        }
+        return bytes;
+    }
+
+    /**
+     * Double the slot array. The new chunks are filled before they replace the old ones, so a
+     * limit or a failed allocation leaves the table as it was.
+     */
+    private void resize() {
+        int oldCapacity = capacity;
+        if (oldCapacity >= MAXIMUM_CAPACITY) {
+            throw new IllegalStateException("table is full: " + size + " entries in " + oldCapacity + " slots");
+        }
+        int newCapacity = oldCapacity << 1;
+        long bytes = bytesFor(newCapacity);
+        if (bytes > maxOffHeapBytes) {
+            throw new IllegalStateException("table is full: growing to " + newCapacity + " slots needs " + bytes
+                    + " bytes, more than maxOffHeapBytes " + maxOffHeapBytes);
+        }
+        ByteBuffer[] old = chunks;
+        ByteBuffer[] fresh = allocate(newCapacity);
+        int mask = newCapacity - 1;
+        for (int i = 0; i < oldCapacity; i++) {
+            ByteBuffer src = chunk(old, i);
+            int srcOffset = offset(i);
+            int h = src.getInt(srcOffset);
+            if (h != 0) {
+                int index = h & mask;
+                while (chunk(fresh, index).getInt(offset(index)) != 0) {
+                    index = (index + 1) & mask;
+                }
+                copySlot(src, srcOffset, chunk(fresh, index), offset(index));
+            }
+        }
+        install(newCapacity, fresh);
+        for (ByteBuffer b : old) {
+            free(b);
+        }
+    }
+
+    /** Release the native memory now instead of waiting for the buffers to be garbage collected. */
+    @Override
+    public void close() {
+        ByteBuffer[] c = chunks;
+        if (c == null) {
+            return;
+        }
+        chunks = null;
+        size = 0;
+        for (ByteBuffer b : c) {
+            free(b);
+        }
+    }
+
+    // -------------------- explicit release of direct buffers --------------------
+
+    private static final Object UNSAFE;
+    private static final Method INVOKE_CLEANER;
+
+    static {
+        Object unsafe = null;
+        Method invokeCleaner = null;
+        try {
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+            theUnsafe.setAccessible(true);
+            unsafe = theUnsafe.get(null);
+            invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            // Not available: buffers are then released when they become unreachable.
+        }
+        UNSAFE = unsafe;
+        INVOKE_CLEANER = invokeCleaner;
+    }
+
+    private static void free(ByteBuffer buffer) {
+        if (INVOKE_CLEANER == null) {
+            return;
+        }
+        try {
+            INVOKE_CLEANER.invoke(UNSAFE, buffer);
+        } catch (ReflectiveOperationException e) {
+            // Fall back to GC-driven release.
+        }
+    }
+}
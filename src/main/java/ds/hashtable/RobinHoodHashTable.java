@@ -0,0 +1,257 @@
+package ds.hashtable;
+
+/**
+ * Open-addressing hash table with Robin Hood linear probing.
+ * <p>
+ * Entries live in parallel key/value/hash arrays, so there is no per-entry node object and a probe
+ * sequence walks adjacent slots. On insert, an entry that is further from its home slot than the
+ * resident one takes the slot ("steals from the rich"), which keeps probe lengths short and lets a
+ * lookup stop as soon as it sees a resident closer to home than itself. Deletion shifts the following
+ * cluster back by one slot instead of leaving tombstones.
+ * <p>
+ * Null keys are not supported (same as {@link HashTable}).
+ */
+public class RobinHoodHashTable<K, V> {
+    private static final int DEFAULT_CAPACITY = 16;
+    private static final float DEFAULT_LOAD_FACTOR = 0.75f;
+    private static final int MAXIMUM_CAPACITY = 1 << 30;
+
+    private final float loadFactor;
+    private final HashStrategy<? super K> hashStrategy;
+
+    private int size;
+    private int capacity;
+    private int threshold;
+
+    private K[] keys;
+    private V[] values;
+    private int[] hashes;
+
+    public RobinHoodHashTable() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public RobinHoodHashTable(int capacity) {
+        this(capacity, DEFAULT_LOAD_FACTOR);
+    }
+
+    public RobinHoodHashTable(int capacity, float loadFactor) {
+        this(capacity, loadFactor, HashStrategy.murmur3());
+    }
+
+    /**
+     * @param capacity   initial number of slots, rounded up to a power of two.
+     * @param loadFactor fraction of slots that may be filled before the table doubles, in (0, 1).
+     */
+    public RobinHoodHashTable(int capacity, float loadFactor, HashStrategy<? super K> hashStrategy) {
+        if (!(loadFactor > 0 && loadFactor < 1)) {
+            throw new IllegalArgumentException("loadFactor must be in (0, 1): " + loadFactor);
+        }
+        this.loadFactor = loadFactor;
+        this.hashStrategy = hashStrategy;
+        init(tableSizeFor(capacity));
+    }
+
+    private void init(int capacity) {
+        size = 0;
+        this.capacity = capacity;
+        threshold = (int) (capacity * loadFactor);
+        keys = (K[]) new Object[capacity];
+        values = (V[]) new Object[capacity];
+        hashes = new int[capacity];
+    }
+
+    private static int tableSizeFor(int capacity) {
+        // Clamp first: rounding anything above 2^30 up to a power of two would overflow int.
+        int n = -1 >>> Integer.numberOfLeadingZeros(Math.max(Math.min(capacity, MAXIMUM_CAPACITY), 2) - 1);
+        return n + 1;
+    }
+
+    private int computeHash(K key) {
+        return hashStrategy.hash(key);
+    }
+
+    /** How far slot {@code index} is from the home slot of the hash stored in it. */
+    private int probeDistance(int hash, int index) {
+        return (index - hash) & (capacity - 1);
+    }
+
+    /**
+     * @throws IllegalStateException if the key is new and the table is already at its load factor
+     *                               with {@code 2^30} slots, so it cannot grow; the table is unchanged.
+     */
+    public void insert(K key, V value) {
+        int hash = computeHash(key);
+        int mask = capacity - 1;
+        int index = hash & mask;
+        int dist = 0;
+
+        // Phase 1: look for the key; it can only be before the first slot whose resident is
+        // closer to home than we are, and that slot is exactly where the new entry belongs.
+        while (true) {
+            K k = keys[index];
+            if (k == null) {
+                checkCanGrow();
+                place(index, hash, key, value);
+                return;
+            }
+            int h = hashes[index];
+            if (h == hash && (k == key || hashStrategy.equals(k, key))) {
+                values[index] = value;
+                return;
+            }
+            if (probeDistance(h, index) < dist) {
+                break;
+            }
+            index = (index + 1) & mask;
+            dist++;
+        }
+
+        // Phase 2: the key is absent; take this slot and push the displaced entries forward.
+        checkCanGrow();
+        int curHash = hash;
+        K curKey = key;
+        V curValue = value;
+        while (true) {
+            K k = keys[index];
+            if (k == null) {
+                place(index, curHash, curKey, curValue);
+                return;
+            }
+            int h = hashes[index];
+            int residentDist = probeDistance(h, index);
+            if (residentDist < dist) {
+                V v = values[index];
+                keys[index] = curKey;
+                values[index] = curValue;
+                hashes[index] = curHash;
+                curKey = k;
+                curValue = v;
+                curHash = h;
+                dist = residentDist;
+            }
+            index = (index + 1) & mask;
+            dist++;
+        }
+    }
+
+    /**
+     * Reject a new entry before anything is written when the table is at its load factor and
+     * cannot double any more; this keeps at least one slot empty, so every probe terminates.
+     */
+    private void checkCanGrow() {
+        if (size >= threshold && capacity == MAXIMUM_CAPACITY) {
+            throw new IllegalStateException("table is full: " + size + " entries in " + capacity + " slots");
+        }
+    }
+
+    private void place(int index, int hash, K key, V value) {
+        keys[index] = key;
+        values[index] = value;
+        hashes[index] = hash;
+        if (++size > threshold) {
+            resize();
+        }
+    }
+
+    private int findIndex(K key) {
+        int hash = computeHash(key);
+        int mask = capacity - 1;
+        int index = hash & mask;
+        for (int dist = 0; ; dist++) {
+            K k = keys[index];
+            if (k == null) {
+                return -1;
+            }
+            int h = hashes[index];
+            if (h == hash && (k == key || hashStrategy.equals(k, key))) {
+                return index;
+            }
+            if (probeDistance(h, index) < dist) {
+                return -1;
+            }
+            index = (index + 1) & mask;
+        }
+    }
+
+    public V get(K key) {
+        int index = findIndex(key);
+        if (index < 0) {
+            return null;
+        }
+        return values[index];
+    }
+
+    public boolean delete(K key) {
+        int index = findIndex(key);
+        if (index < 0) {
+            return false;
+        }
+
+        // Backward-shift deletion: pull every following entry that is not in its home slot one step back.
+        int mask = capacity - 1;
+        int next = (index + 1) & mask;
+        while (keys[next] != null && probeDistance(hashes[next], next) > 0) {
+            keys[index] = keys[next];
+            values[index] = values[next];
+            hashes[index] = hashes[next];
+            index = next;
+            next = (next + 1) & mask;
+        }
+        keys[index] = null;
+        values[index] = null;
+        hashes[index] = 0;
+        size--;
+        return true;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private void resize() {
+        // checkCanGrow keeps a table at MAXIMUM_CAPACITY from ever passing its threshold.
+        K[] oldKeys = keys;
+        V[] oldValues = values;
+        int[] oldHashes = hashes;
+        int oldSize = size;
+
+        init(capacity << 1);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != null) {
+                reinsert(oldHashes[i], oldKeys[i], oldValues[i]);
+            }
+        }
+        size = oldSize;
+    }
+
+    /** Insert an entry known to be absent, without size bookkeeping (used while rehashing). */
+    private void reinsert(int hash, K key, V value) {
+        int mask = capacity - 1;
+        int index = hash & mask;
+        int dist = 0;
+        while (true) {
+            K k = keys[index];
+            if (k == null) {
+                keys[index] = key;
+                values[index] = value;
+                hashes[index] = hash;
+                return;
+            }
+            int h = hashes[index];
+            int residentDist = probeDistance(h, index);
+            if (residentDist < dist) {
+                V v = values[index];
+                keys[index] = key;
+                values[index] = value;
+                hashes[index] = hash;
+                key = k;
+                value = v;
+                hash = h;
+                dist = residentDist;
+            }
+            index = (index + 1) & mask;
+            dist++;
+        }
+    }
+}
@@ -0,0 +1,667 @@
+package ds.rbtree;
+
+import java.util.AbstractMap;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * Red-black tree whose nodes live in parallel arrays instead of one object per entry: node i is
+ * {@code keys[i]}, {@code values[i]}, {@code left[i]}, {@code right[i]}, {@code parent[i]} and bit i
+ * of the color bitset. Slot 0 is the shared black nil node, so the algorithms are the ones of
+ * {@link RedBlackTree} with references replaced by indices.
+ * <p>
+ * Deleted slots are threaded onto a free list through {@code left[]} and reused by later inserts,
+ * so a tree under steady churn stops growing. Per entry this costs three ints, two references and
+ * one bit (about 20 bytes with compressed oops, plus growth slack) against about 40 bytes for a
+ * {@link RedBlackTree} node, and the garbage collector sees a handful of arrays instead of one
+ * object per entry.
+ */
+public class ArrayRedBlackTree<K extends Comparable<K>, V> implements Iterable<Map.Entry<K, V>> {
+    private static final int NIL = 0;
+    private static final int DEFAULT_CAPACITY = 16;
+    private static final int MAXIMUM_CAPACITY = Integer.MAX_VALUE - 8;
+
+    private K[] keys;
+    private V[] values;
+    private int[] left;
+    private int[] right;
+    private int[] parent;
+    // Bit i set means node i is red; bit 0 (the nil node) is never set.
+    private long[] red;
+
+    private int root = NIL;
+    private int count;
+    private int modCount;
+    // First slot that has never been used, and the head of the list of freed slots.
+    private int nextSlot = 1;
+    private int freeHead = NIL;
+
+    public ArrayRedBlackTree() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /** @param capacity number of entries to allocate room for up front. */
+    public ArrayRedBlackTree(int capacity) {
+        if (capacity < 0 || capacity > MAXIMUM_CAPACITY - 1) {
+            throw new IllegalArgumentException("Illegal capacity: " + capacity);
+        }
+        int slots = capacity + 1;
+        keys = (K[]) new Comparable[slots];
+        values = (V[]) new Object[slots];
+        left = new int[slots];
+        right = new int[slots];
+        parent = new int[slots];
+        red = new long[(slots + 63) >>> 6];
+    }
+
+    // -------------------- slots --------------------
+
+    private boolean isRed(int node) {
+        return (red[node >>> 6] & (1L << node)) != 0;
+    }
+
+    private void setColor(int node, boolean isRed) {
+        if (isRed) {
+            red[node >>> 6] |= 1L << node;
+        } else {
+            red[node >>> 6] &= ~(1L << node);
+        }
+    }
+
+    private int allocate(K key, V value) {
+        int node;
+        if (freeHead != NIL) {
+            node = freeHead;
+            freeHead = left[node];
+        } else {
+            if (nextSlot == keys.length) {
+                grow();
+            }
+            node = nextSlot++;
+        }
+        keys[node] = key;
+        values[node] = value;
+        left[node] = NIL;
+        right[node] = NIL;
+        parent[node] = NIL;
+        setColor(node, true);
+        return node;
+    }
+
+    private void release(int node) {
+        keys[node] = null;
+        values[node] = null;
+        right[node] = NIL;
+        parent[node] = NIL;
+        setColor(node, false);
+        left[node] = freeHead;
+        freeHead = node;
+    }
+
+    private void grow() {
+        int oldSlots = keys.length;
+        if (oldSlots == MAXIMUM_CAPACITY) {
+            throw new IllegalStateException("ArrayRedBlackTree is full");
+        }
+        int slots = (int) Math.min((long) oldSlots + (oldSlots >> 1) + 1, MAXIMUM_CAPACITY);
+        keys = Arrays.copyOf(keys, slots);
+        values = Arrays.copyOf(values, slots);
+        left = Arrays.copyOf(left, slots);
+        right = Arrays.copyOf(right, slots);
+        parent = Arrays.copyOf(parent, slots);
+        red = Arrays.copyOf(red, (slots + 63) >>> 6);
+    }
+
+    /** Number of entries the arrays can hold without growing. */
+    int capacity() {
+        return keys.length - 1;
+    }
+
+    /**
+     * Re-lay out the entries in key order into arrays sized to fit, dropping the free list: slot
+     * i + 1 then holds the entry of rank i, so an in-order scan reads every array front to back.
+     * The tree is relinked perfectly balanced (as {@link RedBlackTree#buildFromSorted} does) in O(n).
+     */
+    public void compact() {
+        int n = count;
+        int slots = n + 1;
+        K[] newKeys = (K[]) new Comparable[slots];
+        V[] newValues = (V[]) new Object[slots];
+        int i = 1;
+        for (int node = (root == NIL) ? NIL : minimum(root); node != NIL; node = successor(node)) {
+            newKeys[i] = keys[node];
+            newValues[i] = values[node];
+            i++;
+        }
+        keys = newKeys;
+        values = newValues;
+        left = new int[slots];
+        right = new int[slots];
+        parent = new int[slots];
+        red = new long[(slots + 63) >>> 6];
+        nextSlot = slots;
+        freeHead = NIL;
+        modCount++;
+        root = (n == 0) ? NIL : linkSubtree(1, n, 0, 31 - Integer.numberOfLeadingZeros(n + 1));
+        parent[root] = NIL;
+    }
+
+    /** Only the nodes on the bottom, partially filled level are red; see RedBlackTree#relinkBalanced. */
+    private int linkSubtree(int lo, int hi, int level, int redLevel) {
+        int mid = (lo + hi) >>> 1;
+        if (lo < mid) {
+            left[mid] = linkSubtree(lo, mid - 1, level + 1, redLevel);
+            parent[left[mid]] = mid;
+        }
+        if (mid < hi) {
+            right[mid] = linkSubtree(mid + 1, hi, level + 1, redLevel);
+            parent[right[mid]] = mid;
+        }
+        setColor(mid, level == redLevel);
+        return mid;
+    }
+
+    // -------------------- rotations and fix-ups --------------------
+
+    private void leftRotate(int x) {
+        int y = right[x];
+        right[x] = left[y];
+        if (left[y] != NIL) {
+            parent[left[y]] = x;
+        }
+        parent[y] = parent[x];
+        if (parent[x] == NIL) {
+            root = y;
+        } else if (x == left[parent[x]]) {
+            left[parent[x]] = y;
+        } else {
+            right[parent[x]] = y;
+        }
+        left[y] = x;
+        parent[x] = y;
+    }
+
+    private void rightRotate(int x) {
+        int y = left[x];
+        left[x] = right[y];
+        if (right[y] != NIL) {
+            parent[right[y]] = x;
+        }
+        parent[y] = parent[x];
+        if (parent[x] == NIL) {
+            root = y;
+        } else if (x == right[parent[x]]) {
+            right[parent[x]] = y;
+        } else {
+            left[parent[x]] = y;
+        }
+        right[y] = x;
+        parent[x] = y;
+    }
+
+    private void fixAfterInsert(int z) {
+        while (isRed(parent[z])) {
+            int p = parent[z];
+            int g = parent[p];
+            if (p == left[g]) {
+                int uncle = right[g];
+                if (isRed(uncle)) {
+                    setColor(p, false);
+                    setColor(uncle, false);
+                    setColor(g, true);
+                    z = g;
+                } else {
+                    if (z == right[p]) {
+                        z = p;
+                        leftRotate(z);
+                        p = parent[z];
+                    }
+                    setColor(p, false);
+                    setColor(g, true);
+                    rightRotate(g);
+                }
+            } else {
+                int uncle = left[g];
+                if (isRed(uncle)) {
+                    setColor(p, false);
+                    setColor(uncle, false);
+                    setColor(g, true);
+                    z = g;
+                } else {
+                    if (z == left[p]) {
+                        z = p;
+                        rightRotate(z);
+                        p = parent[z];
+                    }
+                    setColor(p, false);
+                    setColor(g, true);
+                    leftRotate(g);
+                }
+            }
+        }
+        setColor(root, false);
+    }
+
+    private void transplant(int u, int v) {
+        if (parent[u] == NIL) {
+            root = v;
+        } else if (u == left[parent[u]]) {
+            left[parent[u]] = v;
+        } else {
+            right[parent[u]] = v;
+        }
+        parent[v] = parent[u];
+    }
+
+    private void deleteFixup(int x) {
+        while (x != root && !isRed(x)) {
+            int p = parent[x];
+            if (x == left[p]) {
+                int w = right[p];
+                if (isRed(w)) {
+                    setColor(w, false);
+                    setColor(p, true);
+                    leftRotate(p);
+                    w = right[p];
+                }
+                if (!isRed(left[w]) && !isRed(right[w])) {
+                    setColor(w, true);
+                    x = p;
+                } else {
+                    if (!isRed(right[w])) {
+                        setColor(left[w], false);
+                        setColor(w, true);
+                        rightRotate(w);
+                        w = right[p];
+                    }
+                    setColor(w, isRed(p));
+                    setColor(p, false);
+                    setColor(right[w], false);
+                    leftRotate(p);
+                    x = root;
+                }
+            } else {
+                int w = left[p];
+                if (isRed(w)) {
+                    setColor(w, false);
+                    setColor(p, true);
+                    rightRotate(p);
+                    w = left[p];
+                }
+                if (!isRed(left[w]) && !isRed(right[w])) {
+                    setColor(w, true);
+                    x = p;
+                } else {
+                    if (!isRed(left[w])) {
+                        setColor(right[w], false);
+                        setColor(w, true);
+                        leftRotate(w);
+                        w = left[p];
+                    }
+                    setColor(w, isRed(p));
+                    setColor(p, false);
+                    setColor(left[w], false);
+                    rightRotate(p);
+                    x = root;
+                }
+            }
+        }
+        setColor(x, false);
+    }
+
+    // -------------------- public API --------------------
+
+    /**
+     * Insert {@code key} unless it is already present; one compareTo per level. Unlike
+     * {@link RedBlackTree#insert} no slot is taken for a duplicate key.
+     *
+     * @return false if the tree already holds an equal key (its value is left unchanged).
+     */
+    public boolean insert(K key, V value) {
+        int p = NIL;
+        int current = root;
+        int cmp = 0;
+        while (current != NIL) {
+            p = current;
+            cmp = key.compareTo(keys[current]);
+            if (cmp < 0) {
+                current = left[current];
+            } else if (cmp > 0) {
+                current = right[current];
+            } else {
+                return false;
+            }
+        }
+        int node = allocate(key, value);
+        parent[node] = p;
+        if (p == NIL) {
+            root = node;
+        } else if (cmp < 0) {
+            left[p] = node;
+        } else {
+            right[p] = node;
+        }
+        count++;
+        modCount++;
+        fixAfterInsert(node);
+        return true;
+    }
+
+    private int search(K key) {
+        int current = root;
+        while (current != NIL) {
+            int cmp = key.compareTo(keys[current]);
+            if (cmp < 0) {
+                current = left[current];
+            } else if (cmp > 0) {
+                current = right[current];
+            } else {
+                return current;
+            }
+        }
+        return NIL;
+    }
+
+    public V get(K key) {
+        int node = search(key);
+        return node == NIL ? null : values[node];
+    }
+
+    public boolean containsKey(K key) {
+        return search(key) != NIL;
+    }
+
+    public Boolean getColor(K key) {
+        int node = search(key);
+        return node == NIL ? null : isRed(node);
+    }
+
+    public boolean delete(K key) {
+        int z = search(key);
+        if (z == NIL) {
+            return false;
+        }
+        int y = z;
+        boolean yOriginalRed = isRed(y);
+        int x;
+        if (left[z] == NIL) {
+            x = right[z];
+            transplant(z, x);
+        } else if (right[z] == NIL) {
+            x = left[z];
+            transplant(z, x);
+        } else {
+            y = minimum(right[z]);
+            yOriginalRed = isRed(y);
+            x = right[y];
+            if (parent[y] == z) {
+                parent[x] = y;
+            } else {
+                transplant(y, right[y]);
+                right[y] = right[z];
+                parent[right[y]] = y;
+            }
+            transplant(z, y);
+            left[y] = left[z];
+            parent[left[y]] = y;
+            setColor(y, isRed(z));
+        }
+        if (!yOriginalRed) {
+            deleteFixup(x);
+        }
+        parent[NIL] = NIL;
+        release(z);
+        count--;
+        modCount++;
+        return true;
+    }
+
+    public int size() {
+        return count;
+    }
+
+    // -------------------- navigation --------------------
+
+    private int minimum(int node) {
+        while (left[node] != NIL) {
+            node = left[node];
+        }
+        return node;
+    }
+
+    private int maximum(int node) {
+        while (right[node] != NIL) {
+            node = right[node];
+        }
+        return node;
+    }
+
+    private int successor(int node) {
+        if (right[node] != NIL) {
+            return minimum(right[node]);
+        }
+        int p = parent[node];
+        while (p != NIL && node == right[p]) {
+            node = p;
+            p = parent[p];
+        }
+        return p;
+    }
+
+    private int predecessor(int node) {
+        if (left[node] != NIL) {
+            return maximum(left[node]);
+        }
+        int p = parent[node];
+        while (p != NIL && node == left[p]) {
+            node = p;
+            p = parent[p];
+        }
+        return p;
+    }
+
+    private int ceilingNode(K key) {
+        int current = root;
+        int best = NIL;
+        while (current != NIL) {
+            int cmp = key.compareTo(keys[current]);
+            if (cmp == 0) {
+                return current;
+            }
+            if (cmp < 0) {
+                best = current;
+                current = left[current];
+            } else {
+                current = right[current];
+            }
+        }
+        return best;
+    }
+
+    private int floorNode(K key) {
+        int current = root;
+        int best = NIL;
+        while (current != NIL) {
+            int cmp = key.compareTo(keys[current]);
+            if (cmp == 0) {
+                return current;
+            }
+            if (cmp > 0) {
+                best = current;
+                current = right[current];
+            } else {
+                current = left[current];
+            }
+        }
+        return best;
+    }
+
+    /** @return the greatest key <= {@code key}, or null if there is none. */
+    public K floor(K key) {
+        return keys[floorNode(key)];
+    }
+
+    /** @return the least key >= {@code key}, or null if there is none. */
+    public K ceiling(K key) {
+        return keys[ceilingNode(key)];
+    }
+
+    /** @return the smallest key, or null if the tree is empty. */
+    public K firstKey() {
+        return root == NIL ? null : keys[minimum(root)];
+    }
+
+    /** @return the largest key, or null if the tree is empty. */
+    public K lastKey() {
+        return root == NIL ? null : keys[maximum(root)];
+    }
+
+    // -------------------- traversal --------------------
+
+    /**
+     * Ascending in-order iterator; O(1) extra memory. Slots are reused after deletion, so the
+     * entries are immutable snapshots; use a {@link Cursor} to update values in place.
+     */
+    @Override
+    public Iterator<Map.Entry<K, V>> iterator() {
+        return new Iterator<Map.Entry<K, V>>() {
+            private int next = (root == NIL) ? NIL : minimum(root);
+            private final int expectedModCount = modCount;
+
+            @Override
+            public boolean hasNext() {
+                return next != NIL;
+            }
+
+            @Override
+            public Map.Entry<K, V> next() {
+                if (next == NIL) {
+                    throw new NoSuchElementException();
+                }
+                if (modCount != expectedModCount) {
+                    throw new ConcurrentModificationException();
+                }
+                int node = next;
+                next = successor(node);
+                return new AbstractMap.SimpleImmutableEntry<>(keys[node], values[node]);
+            }
+        };
+    }
+
+    /** A new cursor, positioned nowhere until one of its seek methods is called. */
+    public Cursor cursor() {
+        return new Cursor();
+    }
+
+    /**
+     * Reusable position in the tree for allocation-free scans, with the same contract as
+     * {@link RedBlackTree.Cursor}.
+     */
+    public final class Cursor {
+        private int node = NIL;
+        private int expectedModCount;
+
+        private Cursor() {
+        }
+
+        private boolean moveTo(int target) {
+            node = target;
+            expectedModCount = modCount;
+            return target != NIL;
+        }
+
+        /** Position on the smallest key; false if the tree is empty. */
+        public boolean first() {
+            return moveTo(root == NIL ? NIL : minimum(root));
+        }
+
+        /** Position on the largest key; false if the tree is empty. */
+        public boolean last() {
+            return moveTo(root == NIL ? NIL : maximum(root));
+        }
+
+        /** Position on the least key >= {@code key}; false if there is none. */
+        public boolean seek(K key) {
+            return moveTo(ceilingNode(key));
+        }
+
+        /** Advance to the next larger key; false (and invalid) past the end. */
+        public boolean next() {
+            checkPosition();
+            node = successor(node);
+            return node != NIL;
+        }
+
+        /** Move to the next smaller key; false (and invalid) before the start. */
+        public boolean previous() {
+            checkPosition();
+            node = predecessor(node);
+            return node != NIL;
+        }
+
+        public boolean isValid() {
+            return node != NIL && expectedModCount == modCount;
+        }
+
+        public K key() {
+            checkPosition();
+            return keys[node];
+        }
+
+        public V value() {
+            checkPosition();
+            return values[node];
+        }
+
+        public V setValue(V value) {
+            checkPosition();
+            V old = values[node];
+            values[node] = value;
+            return old;
+        }
+
+        private void checkPosition() {
+            if (expectedModCount != modCount) {
+                throw new ConcurrentModificationException();
+            }
+            if (node == NIL) {
+                throw new NoSuchElementException();
+            }
+        }
+    }
+
+    // -------------------- validation --------------------
+
+    public boolean validateRBTree() {
+        if (root == NIL) {
+            return count == 0;
+        }
+        if (isRed(root) || parent[root] != NIL || isRed(NIL)) {
+            return false;
+        }
+        int[] visited = {0};
+        return validateAndBlackHeight(root, null, null, visited) != -1 && visited[0] == count;
+    }
+
+    private int validateAndBlackHeight(int node, K min, K max, int[] visited) {
+        if (node == NIL) {
+            return 1;
+        }
+        visited[0]++;
+        K key = keys[node];
+        if (min != null && key.compareTo(min) <= 0) return -1;
+        if (max != null && key.compareTo(max) >= 0) return -1;
+        if (left[node] != NIL && parent[left[node]] != node) return -1;
+        if (right[node] != NIL && parent[right[node]] != node) return -1;
+        if (isRed(node) && (isRed(left[node]) || isRed(right[node]))) return -1;
+
+        int leftBH = validateAndBlackHeight(left[node], min, key, visited);
+        if (leftBH == -1) return -1;
+        int rightBH = validateAndBlackHeight(right[node], key, max, visited);
+        if (rightBH == -1 || leftBH != rightBH) return -1;
+        return leftBH + (isRed(node) ? 0 : 1);
+    }
+}
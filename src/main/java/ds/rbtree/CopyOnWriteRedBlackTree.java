@@ -0,0 +1,390 @@
+package ds.rbtree;
+
+import java.util.AbstractMap;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * Persistent red-black tree for many readers and few writers. Nodes are immutable and have no
+ * parent pointers; {@code insert} and {@code delete} copy only the O(log n) nodes on the path from
+ * the root to the change and share every other subtree with the previous version. The result is
+ * published as a new {@link Snapshot} through a single volatile field, so readers never lock: each
+ * read works on whichever snapshot it loaded and always sees a complete, balanced tree.
+ * <p>
+ * Writers are serialized on the tree's monitor. Rebalancing follows Okasaki's insertion and Kahrs'
+ * deletion for functional red-black trees.
+ */
+public class CopyOnWriteRedBlackTree<K, V> {
+    private static final boolean RED = true;
+    private static final boolean BLACK = false;
+    // Height of a red-black tree with fewer than 2^31 nodes is below 2 * 31.
+    private static final int MAX_HEIGHT = 64;
+
+    private static final class Node<K, V> {
+        final K key;
+        final V value;
+        final Node<K, V> left, right;
+        final boolean color;
+
+        Node(boolean color, Node<K, V> left, K key, V value, Node<K, V> right) {
+            this.color = color;
+            this.left = left;
+            this.key = key;
+            this.value = value;
+            this.right = right;
+        }
+
+        Node<K, V> withColor(boolean c) {
+            return c == color ? this : new Node<>(c, left, key, value, right);
+        }
+    }
+
+    // Null means natural ordering, as in RedBlackTree.
+    private final Comparator<? super K> comparator;
+    private volatile Snapshot<K, V> current;
+
+    public CopyOnWriteRedBlackTree() {
+        this(null);
+    }
+
+    public CopyOnWriteRedBlackTree(Comparator<? super K> comparator) {
+        this.comparator = comparator;
+        this.current = new Snapshot<>(null, 0, comparator);
+    }
+
+    private static <K> int compare(Comparator<? super K> comparator, K a, K b) {
+        return comparator == null ? ((Comparable<? super K>) a).compareTo(b) : comparator.compare(a, b);
+    }
+
+    private int compare(K a, K b) {
+        return compare(comparator, a, b);
+    }
+
+    private static boolean isRed(Node<?, ?> n) {
+        return n != null && n.color == RED;
+    }
+
+    private static boolean isBlackNode(Node<?, ?> n) {
+        return n != null && n.color == BLACK;
+    }
+
+    // -------------------- writes --------------------
+
+    /**
+     * Insert {@code key} unless it is already present, publishing a new snapshot.
+     *
+     * @return false if the tree already holds an equal key (nothing is copied then).
+     */
+    public synchronized boolean insert(K key, V value) {
+        Snapshot<K, V> s = current;
+        if (s.root == null) {
+            compare(key, key); // type (and null) check, as TreeMap does for its first entry
+        } else if (s.find(key) != null) {
+            return false;
+        }
+        current = new Snapshot<>(ins(s.root, key, value).withColor(BLACK), s.size + 1, comparator);
+        return true;
+    }
+
+    /** Remove {@code key}, publishing a new snapshot; false (and no copying) if it is absent. */
+    public synchronized boolean delete(K key) {
+        Snapshot<K, V> s = current;
+        if (s.find(key) == null) {
+            return false;
+        }
+        Node<K, V> root = del(s.root, key);
+        current = new Snapshot<>(root == null ? null : root.withColor(BLACK), s.size - 1, comparator);
+        return true;
+    }
+
+    private Node<K, V> ins(Node<K, V> n, K key, V value) {
+        if (n == null) {
+            return new Node<>(RED, null, key, value, null);
+        }
+        int cmp = compare(key, n.key);   // never 0: insert checked that the key is absent
+        if (n.color == RED) {
+            return cmp < 0
+                    ? new Node<>(RED, ins(n.left, key, value), n.key, n.value, n.right)
+                    : new Node<>(RED, n.left, n.key, n.value, ins(n.right, key, value));
+        }
+        return cmp < 0
+                ? balance(ins(n.left, key, value), n, n.right)
+                : balance(n.left, n, ins(n.right, key, value));
+    }
+
+    /**
+     * A black node with entry {@code e} over {@code a} and {@code b}, where one side may be a red
+     * node with a red child; that red-red pair is rotated into a red node with two black children.
+     */
+    private static <K, V> Node<K, V> balance(Node<K, V> a, Node<K, V> e, Node<K, V> b) {
+        if (isRed(a) && isRed(b)) {
+            return new Node<>(RED, a.withColor(BLACK), e.key, e.value, b.withColor(BLACK));
+        }
+        if (isRed(a)) {
+            if (isRed(a.left)) {
+                return new Node<>(RED, a.left.withColor(BLACK), a.key, a.value,
+                        new Node<>(BLACK, a.right, e.key, e.value, b));
+            }
+            if (isRed(a.right)) {
+                Node<K, V> m = a.right;
+                return new Node<>(RED, new Node<>(BLACK, a.left, a.key, a.value, m.left), m.key, m.value,
+                        new Node<>(BLACK, m.right, e.key, e.value, b));
+            }
+        }
+        if (isRed(b)) {
+            if (isRed(b.right)) {
+                return new Node<>(RED, new Node<>(BLACK, a, e.key, e.value, b.left), b.key, b.value,
+                        b.right.withColor(BLACK));
+            }
+            if (isRed(b.left)) {
+                Node<K, V> m = b.left;
+                return new Node<>(RED, new Node<>(BLACK, a, e.key, e.value, m.left), m.key, m.value,
+                        new Node<>(BLACK, m.right, b.key, b.value, b.right));
+            }
+        }
+        return new Node<>(BLACK, a, e.key, e.value, b);
+    }
+
+    /** Delete {@code key} (known to be present) from the subtree {@code n}. */
+    private Node<K, V> del(Node<K, V> n, K key) {
+        int cmp = compare(key, n.key);
+        if (cmp < 0) {
+            Node<K, V> left = del(n.left, key);
+            return isBlackNode(n.left) ? balanceLeft(left, n, n.right)
+                    : new Node<>(RED, left, n.key, n.value, n.right);
+        }
+        if (cmp > 0) {
+            Node<K, V> right = del(n.right, key);
+            return isBlackNode(n.right) ? balanceRight(n.left, n, right)
+                    : new Node<>(RED, n.left, n.key, n.value, right);
+        }
+        return fuse(n.left, n.right);
+    }
+
+    /** The left subtree {@code a} has lost one black level; restore it around entry {@code e}. */
+    private static <K, V> Node<K, V> balanceLeft(Node<K, V> a, Node<K, V> e, Node<K, V> b) {
+        if (isRed(a)) {
+            return new Node<>(RED, a.withColor(BLACK), e.key, e.value, b);
+        }
+        if (isBlackNode(b)) {
+            return balance(a, e, b.withColor(RED));
+        }
+        // b is red with a black left child
+        Node<K, V> bl = b.left;
+        return new Node<>(RED, new Node<>(BLACK, a, e.key, e.value, bl.left), bl.key, bl.value,
+                balance(bl.right, b, b.right.withColor(RED)));
+    }
+
+    /** Mirror image of {@link #balanceLeft}. */
+    private static <K, V> Node<K, V> balanceRight(Node<K, V> a, Node<K, V> e, Node<K, V> b) {
+        if (isRed(b)) {
+            return new Node<>(RED, a, e.key, e.value, b.withColor(BLACK));
+        }
+        if (isBlackNode(a)) {
+            return balance(a.withColor(RED), e, b);
+        }
+        // a is red with a black right child
+        Node<K, V> ar = a.right;
+        return new Node<>(RED, balance(a.left.withColor(RED), a, ar.left), ar.key, ar.value,
+                new Node<>(BLACK, ar.right, e.key, e.value, b));
+    }
+
+    /** Join two subtrees of equal black height whose keys are all in order, {@code a} before {@code b}. */
+    private static <K, V> Node<K, V> fuse(Node<K, V> a, Node<K, V> b) {
+        if (a == null) {
+            return b;
+        }
+        if (b == null) {
+            return a;
+        }
+        if (a.color == BLACK && b.color == RED) {
+            return new Node<>(RED, fuse(a, b.left), b.key, b.value, b.right);
+        }
+        if (a.color == RED && b.color == BLACK) {
+            return new Node<>(RED, a.left, a.key, a.value, fuse(a.right, b));
+        }
+        Node<K, V> middle = fuse(a.right, b.left);
+        if (a.color == RED) {
+            if (isRed(middle)) {
+                return new Node<>(RED, new Node<>(RED, a.left, a.key, a.value, middle.left), middle.key, middle.value,
+                        new Node<>(RED, middle.right, b.key, b.value, b.right));
+            }
+            return new Node<>(RED, a.left, a.key, a.value, new Node<>(RED, middle, b.key, b.value, b.right));
+        }
+        if (isRed(middle)) {
+            return new Node<>(RED, new Node<>(BLACK, a.left, a.key, a.value, middle.left), middle.key, middle.value,
+                    new Node<>(BLACK, middle.right, b.key, b.value, b.right));
+        }
+        return balanceLeft(a.left, a, new Node<>(BLACK, middle, b.key, b.value, b.right));
+    }
+
+    // -------------------- reads (lock-free, on the current snapshot) --------------------
+
+    /**
+     * The current version of the tree. It never changes, so a reader that needs several consistent
+     * lookups (or a whole scan) should take one snapshot and use it throughout.
+     */
+    public Snapshot<K, V> snapshot() {
+        return current;
+    }
+
+    public V get(K key) {
+        return current.get(key);
+    }
+
+    public boolean containsKey(K key) {
+        return current.containsKey(key);
+    }
+
+    public int size() {
+        return current.size();
+    }
+
+    public boolean validateRBTree() {
+        return current.validateRBTree();
+    }
+
+    /** An immutable version of the tree: the root of one generation plus its size. */
+    public static final class Snapshot<K, V> implements Iterable<Map.Entry<K, V>> {
+        private final Node<K, V> root;
+        private final int size;
+        private final Comparator<? super K> comparator;
+
+        private Snapshot(Node<K, V> root, int size, Comparator<? super K> comparator) {
+            this.root = root;
+            this.size = size;
+            this.comparator = comparator;
+        }
+
+        private Node<K, V> find(K key) {
+            Node<K, V> current = root;
+            while (current != null) {
+                int cmp = compare(comparator, key, current.key);
+                if (cmp < 0) {
+                    current = current.left;
+                } else if (cmp > 0) {
+                    current = current.right;
+                } else {
+                    return current;
+                }
+            }
+            return null;
+        }
+
+        public V get(K key) {
+            Node<K, V> n = find(key);
+            return n == null ? null : n.value;
+        }
+
+        public boolean containsKey(K key) {
+            return find(key) != null;
+        }
+
+        public int size() {
+            return size;
+        }
+
+        /** @return the greatest key <= {@code key}, or null if there is none. */
+        public K floor(K key) {
+            Node<K, V> current = root;
+            K best = null;
+            while (current != null) {
+                int cmp = compare(comparator, key, current.key);
+                if (cmp == 0) {
+                    return current.key;
+                }
+                if (cmp > 0) {
+                    best = current.key;
+                    current = current.right;
+                } else {
+                    current = current.left;
+                }
+            }
+            return best;
+        }
+
+        /** @return the least key >= {@code key}, or null if there is none. */
+        public K ceiling(K key) {
+            Node<K, V> current = root;
+            K best = null;
+            while (current != null) {
+                int cmp = compare(comparator, key, current.key);
+                if (cmp == 0) {
+                    return current.key;
+                }
+                if (cmp < 0) {
+                    best = current.key;
+                    current = current.left;
+                } else {
+                    current = current.right;
+                }
+            }
+            return best;
+        }
+
+        /**
+         * Ascending iterator over this snapshot. Nodes have no parent pointers, so it keeps the
+         * path to the next entry on a fixed-size stack (O(log n) memory); writes to the tree after
+         * the snapshot was taken are not seen and never disturb it.
+         */
+        @Override
+        public Iterator<Map.Entry<K, V>> iterator() {
+            return new Iterator<Map.Entry<K, V>>() {
+                private final Node<K, V>[] stack = (Node<K, V>[]) new Node[MAX_HEIGHT];
+                private int depth;
+
+                {
+                    pushLeft(root);
+                }
+
+                private void pushLeft(Node<K, V> n) {
+                    for (; n != null; n = n.left) {
+                        stack[depth++] = n;
+                    }
+                }
+
+                @Override
+                public boolean hasNext() {
+                    return depth > 0;
+                }
+
+                @Override
+                public Map.Entry<K, V> next() {
+                    if (depth == 0) {
+                        throw new NoSuchElementException();
+                    }
+                    Node<K, V> n = stack[--depth];
+                    pushLeft(n.right);
+                    return new AbstractMap.SimpleImmutableEntry<>(n.key, n.value);
+                }
+            };
+        }
+
+        public boolean validateRBTree() {
+            if (root == null) {
+                return size == 0;
+            }
+            int[] visited = {0};
+            return root.color == BLACK && validateAndBlackHeight(root, null, null, visited) != -1
+                    && visited[0] == size;
+        }
+
+        private int validateAndBlackHeight(Node<K, V> node, K min, K max, int[] visited) {
+            if (node == null) {
+                return 1;
+            }
+            visited[0]++;
+            if (min != null && compare(comparator, node.key, min) <= 0) return -1;
+            if (max != null && compare(comparator, node.key, max) >= 0) return -1;
+            if (node.color == RED && (isRed(node.left) || isRed(node.right))) return -1;
+
+            int leftBH = validateAndBlackHeight(node.left, min, node.key, visited);
+            if (leftBH == -1) return -1;
+            int rightBH = validateAndBlackHeight(node.right, node.key, max, visited);
+            if (rightBH == -1 || leftBH != rightBH) return -1;
+            return leftBH + (node.color == BLACK ? 1 : 0);
+        }
+    }
+}
@@ -1,97 +1,234 @@
 package ds.rbtree;
 
+import java.util.AbstractMap;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
 import java.util.Queue;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
-public class RedBlackTree <K extends Comparable<K>, V> {
+public class RedBlackTree <K, V> implements Iterable<Map.Entry<K, V>> {
     private static final boolean RED = true;
     private static final boolean BLACK = false;
 
-    private class Node {
+    private static final class Node<K, V> implements Map.Entry<K, V> {
         K key;
         V value;
-        Node left, right, parent;
+        Node<K, V> left, right, parent;
         boolean color;
+        // Number of nodes in this subtree; only maintained when orderStatistics is on.
+        int size;
 
         Node(K key, V value) {
             this.key = key;
             this.value = value;
             this.color = RED;
-            this.left = nilNode;
-            this.right = nilNode;
-            this.parent = nilNode;
+            this.size = 1;
         }
 
-        Node() {
-            this.key = null;
-            this.value = null;
-            this.color = BLACK;
-            this.left = this;
-            this.right = this;
-            this.parent = this;
+        @Override
+        public K getKey() {
+            return key;
+        }
+
+        @Override
+        public V getValue() {
+            return value;
+        }
+
+        @Override
+        public V setValue(V value) {
+            V old = this.value;
+            this.value = value;
+            return old;
+        }
+
+        // Iteration hands nodes out as entries, so they follow the Map.Entry equals/hashCode contract.
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Map.Entry)) {
+                return false;
+            }
+            Map.Entry<?, ?> e = (Map.Entry<?, ?>) o;
+            return Objects.equals(key, e.getKey()) && Objects.equals(value, e.getValue());
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hashCode(key) ^ Objects.hashCode(value);
+        }
+
+        @Override
+        public String toString() {
+            return key + "=" + value;
         }
     }
 
-    private Node rootNode;
-    private Node nilNode = new Node();
+    // Absent children and the root's parent are null; there is no shared sentinel node, so a
+    // delete never writes to anything outside the nodes it relinks.
+    private Node<K, V> rootNode;
+    private int count;
+    // Structural modifications (insert, delete, rebuild), so iterators, cursors and spliterators
+    // can fail fast instead of walking relinked nodes.
+    private int modCount;
+    // When set, every node tracks its subtree size, which enables rank/select in O(log n).
+    private final boolean orderStatistics;
+    // Null means natural ordering. Insert and lookup test it once and then run a loop that calls
+    // only compareTo or only the comparator, so each loop's call site can stay monomorphic.
+    private final Comparator<? super K> comparator;
     
     RedBlackTree() {
-        rootNode = nilNode;
+        this(null, false);
+    }
+
+    RedBlackTree(boolean orderStatistics) {
+        this(null, orderStatistics);
     }
+
+    RedBlackTree(Comparator<? super K> comparator) {
+        this(comparator, false);
+    }
+
+    /**
+     * @param comparator      the key ordering, or null for the keys' natural ordering (the keys
+     *                        must then implement Comparable).
+     * @param orderStatistics maintain subtree sizes so that {@link #rank}, {@link #select} and
+     *                        {@link #countInRange} run in O(log n); costs an int per node and a
+     *                        little work on every insert, delete and rotation.
+     */
+    RedBlackTree(Comparator<? super K> comparator, boolean orderStatistics) {
+        this.comparator = comparator;
+        this.orderStatistics = orderStatistics;
+    }
+
     RedBlackTree(K key, V value) {
-        rootNode = new Node(key, value);
+        this(false);
+        rootNode = new Node<>(key, value);
         rootNode.color = BLACK;
+        count = 1;
     }
 
-    private boolean BSTinsertNode(Node node, Node root){
-        if(root == nilNode){
-            return false;
-        }
+    /** The key ordering, or null if the tree uses the keys' natural ordering. */
+    public Comparator<? super K> comparator(){
+        return comparator;
+    }
 
-        if(node.key.compareTo(root.key) < 0){
-            if(root.left == nilNode){
-                root.left = node;
-                node.parent = root;
-                return true;
-            } else {
-                return BSTinsertNode(node, root.left);
-            }
-        }else if(node.key.compareTo(root.key) > 0){
-            if(root.right == nilNode){
-                root.right = node;
-                node.parent = root;
-                return true;
-            } else {
-                return BSTinsertNode(node, root.right);
+    /** Comparison for the colder paths; insert and lookup inline both variants instead. */
+    @SuppressWarnings("unchecked")
+    private int compare(K a, K b){
+        return comparator == null ? ((Comparable<? super K>) a).compareTo(b) : comparator.compare(a, b);
+    }
+
+    /**
+     * Iterative descent from {@code root}, one comparison per level; links {@code node} under the
+     * last node visited using the cached comparison result.
+     *
+     * @return false if the tree is empty or already holds an equal key.
+     */
+    @SuppressWarnings("unchecked")
+    private boolean BSTinsertNode(Node<K, V> node, Node<K, V> root){
+        K key = node.key;
+        Node<K, V> parent = null;
+        Node<K, V> current = root;
+        int cmp = 0;
+        if(comparator == null){
+            Comparable<? super K> k = (Comparable<? super K>) key;
+            while(current != null){
+                parent = current;
+                cmp = k.compareTo(current.key);
+                if(cmp < 0){
+                    current = current.left;
+                } else if(cmp > 0){
+                    current = current.right;
+                } else {
+                    return false;
+                }
             }
         } else {
+            Comparator<? super K> c = comparator;
+            while(current != null){
+                parent = current;
+                cmp = c.compare(key, current.key);
+                if(cmp < 0){
+                    current = current.left;
+                } else if(cmp > 0){
+                    current = current.right;
+                } else {
+                    return false;
+                }
+            }
+        }
+        if(parent == null){
             return false;
         }
+
+        node.parent = parent;
+        if(cmp < 0){
+            parent.left = node;
+        } else {
+            parent.right = node;
+        }
+        return true;
     }
 
-    private Node BSTsearchNode(Node root, K key){
-        if (root == nilNode){
-            return nilNode;
+    /** Iterative lookup, one comparison per level. */
+    @SuppressWarnings("unchecked")
+    private Node<K, V> BSTsearchNode(Node<K, V> root, K key){
+        if(comparator != null){
+            return BSTsearchNodeUsingComparator(root, key);
         }
-        if (root.key.compareTo(key) == 0){
-            return root;
-        } else if (root.key.compareTo(key) > 0){
-            return BSTsearchNode(root.left, key);
-        } else {
-            return BSTsearchNode(root.right, key);
+        Comparable<? super K> k = (Comparable<? super K>) key;
+        Node<K, V> current = root;
+        while(current != null){
+            int cmp = k.compareTo(current.key);
+            if(cmp < 0){
+                current = current.left;
+            } else if(cmp > 0){
+                current = current.right;
+            } else {
+                return current;
+            }
+        }
+        return null;
+    }
+
+    private Node<K, V> BSTsearchNodeUsingComparator(Node<K, V> root, K key){
+        Comparator<? super K> c = comparator;
+        Node<K, V> current = root;
+        while(current != null){
+            int cmp = c.compare(key, current.key);
+            if(cmp < 0){
+                current = current.left;
+            } else if(cmp > 0){
+                current = current.right;
+            } else {
+                return current;
+            }
         }
+        return null;
     }
 
-    private void rightRotate(Node root){
-        Node leftChild = root.left;
+    private void rightRotate(Node<K, V> root){
+        Node<K, V> leftChild = root.left;
         root.left = leftChild.right;
-        if (leftChild.right != nilNode){
+        if (leftChild.right != null){
             leftChild.right.parent = root;
         }
         leftChild.parent = root.parent;
-        if (root.parent == nilNode){
+        if (root.parent == null){
             rootNode = leftChild;
         } else if (root == root.parent.right){
             root.parent.right = leftChild;
@@ -100,16 +237,20 @@ public class RedBlackTree <K extends Comparable<K>, V> {
         }
         leftChild.right = root;
         root.parent = leftChild;
+        if (orderStatistics){
+            leftChild.size = root.size;
+            root.size = sizeOf(root.left) + sizeOf(root.right) + 1;
+        }
     }
 
-    private void leftRotate(Node root){
-        Node rightChild = root.right;
+    private void leftRotate(Node<K, V> root){
+        Node<K, V> rightChild = root.right;
         root.right = rightChild.left;
-        if (rightChild.left != nilNode){
+        if (rightChild.left != null){
             rightChild.left.parent = root;
         }
         rightChild.parent = root.parent;
-        if (root.parent == nilNode){
+        if (root.parent == null){
             rootNode = rightChild;
         } else if (root == root.parent.left){
             root.parent.left = rightChild;
@@ -118,25 +259,29 @@ public class RedBlackTree <K extends Comparable<K>, V> {
         }
         rightChild.left = root;
         root.parent = rightChild;
+        if (orderStatistics){
+            rightChild.size = root.size;
+            root.size = sizeOf(root.left) + sizeOf(root.right) + 1;
+        }
     }
 
-    private void fixViolation(Node node){
-        while(node != rootNode && node != nilNode && node.parent != nilNode && node.parent.color == RED){
-            Node grandParent = node.parent.parent;
-            Node parent = node.parent;
+    private void fixViolation(Node<K, V> node){
+        while(node != rootNode && node != null && node.parent != null && node.parent.color == RED){
+            Node<K, V> grandParent = node.parent.parent;
+            Node<K, V> parent = node.parent;
 
-            if(grandParent == nilNode){
+            if(grandParent == null){
                 break;
             }
 
-            Node uncleNode = null;
+            Node<K, V> uncleNode = null;
             if(node.parent == grandParent.left){
                 uncleNode = grandParent.right;
             }else{
                 uncleNode = grandParent.left;
             }
 
-            if(uncleNode == nilNode || uncleNode.color == BLACK){
+            if(uncleNode == null || uncleNode.color == BLACK){
                 if(node.parent == grandParent.left){
                     if(node == node.parent.left){
                         rightRotate(grandParent);
@@ -178,14 +323,22 @@ public class RedBlackTree <K extends Comparable<K>, V> {
     }
 
     public boolean insert(K key, V value){
-        Node newNode = new Node(key, value);
-        if (rootNode == nilNode){
+        Node<K, V> newNode = new Node<>(key, value);
+        if (rootNode == null){
+            compare(key, key); // type (and null) check, as TreeMap does for its first entry
             newNode.color = BLACK;
             rootNode = newNode;
+            count++;
+            modCount++;
             return true;
         }
         boolean inserted = BSTinsertNode(newNode, rootNode);
         if (inserted){
+            count++;
+            modCount++;
+            if (orderStatistics){
+                addToAncestors(newNode.parent, 1);
+            }
             // there must be a rootnode, which means insertedNode must have a parent.
             fixViolation(newNode);
             rootNode.color = BLACK;
@@ -194,115 +347,147 @@ public class RedBlackTree <K extends Comparable<K>, V> {
     }
 
     public V get(K key) {
-        Node n = BSTsearchNode(rootNode, key);
-        if (n == nilNode) {
+        Node<K, V> n = BSTsearchNode(rootNode, key);
+        if (n == null) {
             return null;
         }
         return n.value;
     }
 
     public Boolean getColor(K key){
-        Node n = BSTsearchNode(rootNode, key);
-        if (n == nilNode){
+        Node<K, V> n = BSTsearchNode(rootNode, key);
+        if (n == null){
             return null;
         }
         return n.color;
     }
     
-    private void transplant(Node u, Node v){
-        if(u.parent == nilNode){
+    private void transplant(Node<K, V> u, Node<K, V> v){
+        if(u.parent == null){
             rootNode = v;
         } else if (u == u.parent.left){
             u.parent.left = v;
         } else {
             u.parent.right = v;
         }
-        v.parent = u.parent;
+        if (v != null){
+            v.parent = u.parent;
+        }
     }
 
-    private Node minimum(Node node){
-        while(node.left != nilNode){
+    private Node<K, V> minimum(Node<K, V> node){
+        while(node.left != null){
             node = node.left;
         }
         return node;
     }
 
-    private void deleteFixup(Node x){
-        while (x != rootNode && x.color == BLACK) {
-            if (x == x.parent.left) {
-                Node w = x.parent.right; // sibling
+    private static boolean isBlack(Node<?, ?> n){
+        return n == null || n.color == BLACK;
+    }
+
+    private static int sizeOf(Node<?, ?> n){
+        return n == null ? 0 : n.size;
+    }
+
+    /**
+     * Deletion fix-up for a possibly null x, so x's parent is passed in explicitly (as
+     * HashTable.balanceDeletion does) instead of being stored in a sentinel. The sibling of a doubly
+     * black x is never null: its subtree holds at least one black node.
+     */
+    private void deleteFixup(Node<K, V> x, Node<K, V> xParent){
+        while (x != rootNode && isBlack(x)) {
+            if (x == xParent.left) {
+                Node<K, V> w = xParent.right; // sibling
                 // Case 1: sibling is RED
                 if (w.color == RED) {
                     w.color = BLACK;
-                    x.parent.color = RED;
-                    leftRotate(x.parent);
-                    w = x.parent.right;
+                    xParent.color = RED;
+                    leftRotate(xParent);
+                    w = xParent.right;
                 }
                 // Case 2: sibling BLACK and both children BLACK
-                if (w.left.color == BLACK && w.right.color == BLACK) {
+                if (isBlack(w.left) && isBlack(w.right)) {
                     w.color = RED;
-                    x = x.parent;
+                    x = xParent;
+                    xParent = x.parent;
                 } else {
                     // Case 3: sibling BLACK, sibling.right BLACK, sibling.left RED
-                    if (w.right.color == BLACK) {
+                    if (isBlack(w.right)) {
                         w.left.color = BLACK;
                         w.color = RED;
                         rightRotate(w);
-                        w = x.parent.right;
+                        w = xParent.right;
                     }
                     // Case 4: sibling BLACK, sibling.right RED
-                    w.color = x.parent.color;
-                    x.parent.color = BLACK;
+                    w.color = xParent.color;
+                    xParent.color = BLACK;
                     w.right.color = BLACK;
-                    leftRotate(x.parent);
+                    leftRotate(xParent);
                     x = rootNode;
                 }
             } else {
                 // symmetric
-                Node w = x.parent.left;
+                Node<K, V> w = xParent.left;
                 // Case 1
                 if (w.color == RED) {
                     w.color = BLACK;
-                    x.parent.color = RED;
-                    rightRotate(x.parent);
-                    w = x.parent.left;
+                    xParent.color = RED;
+                    rightRotate(xParent);
+                    w = xParent.left;
                 }
                 // Case 2
-                if (w.left.color == BLACK && w.right.color == BLACK) {
+                if (isBlack(w.left) && isBlack(w.right)) {
                     w.color = RED;
-                    x = x.parent;
+                    x = xParent;
+                    xParent = x.parent;
                 } else {
                     // Case 3
-                    if (w.left.color == BLACK) {
+                    if (isBlack(w.left)) {
                         w.right.color = BLACK;
                         w.color = RED;
                         leftRotate(w);
-                        w = x.parent.left;
+                        w = xParent.left;
                     }
                     // Case 4
-                    w.color = x.parent.color;
-                    x.parent.color = BLACK;
+                    w.color = xParent.color;
+                    xParent.color = BLACK;
                     w.left.color = BLACK;
-                    rightRotate(x.parent);
+                    rightRotate(xParent);
                     x = rootNode;
                 }
             }
         }
-        x.color = BLACK;
+        if (x != null) {
+            x.color = BLACK;
+        }
     }
     
-    private boolean deleteNode(Node z) {
-        if (rootNode == nilNode || z == nilNode) return false;
+    private boolean deleteNode(Node<K, V> z) {
+        if (z == null) return false;
     
-        Node y = z;                
+        Node<K, V> y = z;                
         boolean yOriginalColor = y.color;
-        Node x;                
+        Node<K, V> x;
+        Node<K, V> xParent;
+
+        if (orderStatistics) {
+            // Every node above the spliced-out position loses one descendant; the sizes are
+            // then correct before any rotation in deleteFixup reads them.
+            if (z.left == null || z.right == null) {
+                addToAncestors(z.parent, -1);
+            } else {
+                addToAncestors(minimum(z.right).parent, -1);
+            }
+        }
     
-        if (z.left == nilNode) {
+        if (z.left == null) {
             x = z.right;
+            xParent = z.parent;
             transplant(z, z.right);
-        } else if (z.right == nilNode) {
+        } else if (z.right == null) {
             x = z.left;
+            xParent = z.parent;
             transplant(z, z.left);
         } else {
             y = minimum(z.right);
@@ -310,8 +495,9 @@ public class RedBlackTree <K extends Comparable<K>, V> {
             x = y.right; 
     
             if (y.parent == z) {
-                x.parent = y;
+                xParent = y;
             } else {
+                xParent = y.parent;
                 transplant(y, y.right);
                 y.right = z.right;
                 y.right.parent = y;
@@ -321,41 +507,653 @@ public class RedBlackTree <K extends Comparable<K>, V> {
             y.left = z.left;
             y.left.parent = y;
             y.color = z.color;
+            y.size = z.size;
         }
     
         if (yOriginalColor == BLACK) {
-            deleteFixup(x);
+            deleteFixup(x, xParent);
         }
-    
-        if (rootNode != nilNode) rootNode.parent = nilNode;
-    
+
+        count--;
+        modCount++;
         return true;
     }
+
+    private void addToAncestors(Node<K, V> node, int delta){
+        for (Node<K, V> p = node; p != null; p = p.parent){
+            p.size += delta;
+        }
+    }
     
     public boolean delete(K key){
-        Node nodeToDelete = BSTsearchNode(rootNode, key);
+        Node<K, V> nodeToDelete = BSTsearchNode(rootNode, key);
         return deleteNode(nodeToDelete);
     }
 
+    // -------------------- ordered navigation --------------------
+
+    private Node<K, V> maximum(Node<K, V> node){
+        while(node.right != null){
+            node = node.right;
+        }
+        return node;
+    }
+
+    /** In-order successor via parent pointers; null after the last node. */
+    private Node<K, V> successor(Node<K, V> node){
+        if(node.right != null){
+            return minimum(node.right);
+        }
+        Node<K, V> p = node.parent;
+        while(p != null && node == p.right){
+            node = p;
+            p = p.parent;
+        }
+        return p;
+    }
+
+    /** In-order predecessor via parent pointers; null before the first node. */
+    private Node<K, V> predecessor(Node<K, V> node){
+        if(node.left != null){
+            return maximum(node.left);
+        }
+        Node<K, V> p = node.parent;
+        while(p != null && node == p.left){
+            node = p;
+            p = p.parent;
+        }
+        return p;
+    }
+
+    /**
+     * Smallest node with key >= {@code key} (or > when {@code inclusive} is false), one comparison
+     * per level: the best candidate so far is the last node where the descent turned left.
+     */
+    private Node<K, V> ceilingNode(K key, boolean inclusive){
+        Node<K, V> current = rootNode;
+        Node<K, V> best = null;
+        while(current != null){
+            int cmp = compare(key, current.key);
+            if(cmp == 0 && inclusive){
+                return current;
+            }
+            if(cmp < 0){
+                best = current;
+                current = current.left;
+            } else {
+                current = current.right;
+            }
+        }
+        return best;
+    }
+
+    /** Largest node with key <= {@code key} (or < when {@code inclusive} is false). */
+    private Node<K, V> floorNode(K key, boolean inclusive){
+        Node<K, V> current = rootNode;
+        Node<K, V> best = null;
+        while(current != null){
+            int cmp = compare(key, current.key);
+            if(cmp == 0 && inclusive){
+                return current;
+            }
+            if(cmp > 0){
+                best = current;
+                current = current.right;
+            } else {
+                current = current.left;
+            }
+        }
+        return best;
+    }
+
+    private K keyOrNull(Node<K, V> node){
+        return node == null ? null : node.key;
+    }
+
+    /** @return the greatest key <= {@code key}, or null if there is none. */
+    public K floor(K key){
+        return keyOrNull(floorNode(key, true));
+    }
+
+    /** @return the least key >= {@code key}, or null if there is none. */
+    public K ceiling(K key){
+        return keyOrNull(ceilingNode(key, true));
+    }
+
+    /** @return the least key strictly greater than {@code key}, or null if there is none. */
+    public K higher(K key){
+        return keyOrNull(ceilingNode(key, false));
+    }
+
+    /** @return the greatest key strictly less than {@code key}, or null if there is none. */
+    public K lower(K key){
+        return keyOrNull(floorNode(key, false));
+    }
+
+    /** @return the smallest key, or null if the tree is empty. */
+    public K firstKey(){
+        return rootNode == null ? null : minimum(rootNode).key;
+    }
+
+    /** @return the largest key, or null if the tree is empty. */
+    public K lastKey(){
+        return rootNode == null ? null : maximum(rootNode).key;
+    }
+
+    /** Remove and return the entry with the smallest key, or null if the tree is empty. */
+    public Map.Entry<K, V> pollFirst(){
+        return rootNode == null ? null : poll(minimum(rootNode));
+    }
+
+    /** Remove and return the entry with the largest key, or null if the tree is empty. */
+    public Map.Entry<K, V> pollLast(){
+        return rootNode == null ? null : poll(maximum(rootNode));
+    }
+
+    private Map.Entry<K, V> poll(Node<K, V> node){
+        Map.Entry<K, V> entry = new AbstractMap.SimpleImmutableEntry<>(node.key, node.value);
+        deleteNode(node);
+        return entry;
+    }
+
+    /**
+     * Lazy in-order iterator over the entries with {@code from <= key < to}: O(log n) to descend to
+     * the first entry, then amortized O(1) per entry by walking successors. Entries are the tree's
+     * own nodes, so {@code setValue} writes through. {@code remove()} deletes the last entry
+     * returned; any other structural change while iterating makes the iterator throw
+     * {@link ConcurrentModificationException}.
+     */
+    public Iterator<Map.Entry<K, V>> range(K from, K to){
+        return new EntryIterator(ceilingNode(from, true), to, false);
+    }
+
+    // -------------------- traversal --------------------
+
+    /** Ascending in-order iterator; O(1) extra memory (parent pointers, no stack). */
+    @Override
+    public Iterator<Map.Entry<K, V>> iterator(){
+        return new EntryIterator(rootNode == null ? null : minimum(rootNode), null, false);
+    }
+
+    /** Descending in-order iterator; O(1) extra memory. */
+    public Iterator<Map.Entry<K, V>> descendingIterator(){
+        return new EntryIterator(rootNode == null ? null : maximum(rootNode), null, true);
+    }
+
+    private final class EntryIterator implements Iterator<Map.Entry<K, V>> {
+        private Node<K, V> next;
+        private Node<K, V> lastReturned = null;
+        // Exclusive upper bound for ascending range iteration, null if unbounded.
+        private final K to;
+        private final boolean descending;
+        private int expectedModCount = modCount;
+
+        EntryIterator(Node<K, V> first, K to, boolean descending) {
+            this.to = to;
+            this.descending = descending;
+            this.next = inBounds(first) ? first : null;
+        }
+
+        private boolean inBounds(Node<K, V> node) {
+            return node != null && (to == null || compare(node.key, to) < 0);
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        public Map.Entry<K, V> next() {
+            if (next == null) {
+                throw new NoSuchElementException();
+            }
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            lastReturned = next;
+            Node<K, V> s = descending ? predecessor(next) : successor(next);
+            next = inBounds(s) ? s : null;
+            return lastReturned;
+        }
+
+        @Override
+        public void remove() {
+            if (lastReturned == null) {
+                throw new IllegalStateException();
+            }
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            // deleteNode relinks nodes rather than copying keys, so `next` stays valid.
+            deleteNode(lastReturned);
+            expectedModCount = modCount;
+            lastReturned = null;
+        }
+    }
+
+    /** A new cursor, positioned nowhere until one of its seek methods is called. */
+    public Cursor cursor(){
+        return new Cursor();
+    }
+
+    /**
+     * Reusable position in the tree for allocation-free scans:
+     * <pre>
+     * for (boolean ok = c.first(); ok; ok = c.next()) { use(c.key(), c.value()); }
+     * </pre>
+     * Re-seeking reuses the same object. A structural modification of the tree (other than
+     * through this cursor) invalidates the position; moving it afterwards throws
+     * {@link ConcurrentModificationException} until the cursor is positioned again.
+     */
+    public final class Cursor {
+        private Node<K, V> node = null;
+        private int expectedModCount;
+
+        private Cursor() {
+        }
+
+        private boolean moveTo(Node<K, V> target) {
+            node = target;
+            expectedModCount = modCount;
+            return target != null;
+        }
+
+        /** Position on the smallest key; false if the tree is empty. */
+        public boolean first() {
+            return moveTo(rootNode == null ? null : minimum(rootNode));
+        }
+
+        /** Position on the largest key; false if the tree is empty. */
+        public boolean last() {
+            return moveTo(rootNode == null ? null : maximum(rootNode));
+        }
+
+        /** Position on the least key >= {@code key}; false if there is none. */
+        public boolean seek(K key) {
+            return moveTo(ceilingNode(key, true));
+        }
+
+        /** Advance to the next larger key; false (and invalid) past the end. */
+        public boolean next() {
+            checkPosition();
+            node = successor(node);
+            return node != null;
+        }
+
+        /** Move to the next smaller key; false (and invalid) before the start. */
+        public boolean previous() {
+            checkPosition();
+            node = predecessor(node);
+            return node != null;
+        }
+
+        public boolean isValid() {
+            return node != null && expectedModCount == modCount;
+        }
+
+        public K key() {
+            checkPosition();
+            return node.key;
+        }
+
+        public V value() {
+            checkPosition();
+            return node.value;
+        }
+
+        public V setValue(V value) {
+            checkPosition();
+            return node.setValue(value);
+        }
+
+        private void checkPosition() {
+            if (expectedModCount != modCount) {
+                throw new ConcurrentModificationException();
+            }
+            if (node == null) {
+                throw new NoSuchElementException();
+            }
+        }
+    }
+
+    /**
+     * Ordered spliterator that splits along the tree structure: the first split hands off the keys
+     * below the root, later splits hand off the keys below the root of the remaining subtree, so
+     * both halves are roughly balanced without walking anything.
+     */
+    @Override
+    public Spliterator<Map.Entry<K, V>> spliterator(){
+        return new EntrySpliterator(rootNode == null ? null : minimum(rootNode), null, 0, count);
+    }
+
+    /** Sequential stream of the entries in key order; {@code stream().parallel()} splits by subtree. */
+    public Stream<Map.Entry<K, V>> stream(){
+        return StreamSupport.stream(spliterator(), false);
+    }
+
+    private final class EntrySpliterator implements Spliterator<Map.Entry<K, V>> {
+        private Node<K, V> current;       // first node not yet visited, null when exhausted
+        private final Node<K, V> fence;   // first node past the end, null for "to the last node"
+        // 0: whole tree, never split; 1: starts at a subtree root, whose right subtree is the next
+        // split point; -1: ends just before a subtree root, whose left subtree is the next split point.
+        private int side;
+        private long estimate;
+        private final int expectedModCount = modCount;
+
+        EntrySpliterator(Node<K, V> current, Node<K, V> fence, int side, long estimate) {
+            this.current = current;
+            this.fence = fence;
+            this.side = side;
+            this.estimate = estimate;
+        }
+
+        @Override
+        public Spliterator<Map.Entry<K, V>> trySplit() {
+            Node<K, V> start = current;
+            if (start == null || start == fence) {
+                return null;
+            }
+            Node<K, V> mid = (side == 0) ? rootNode
+                    : (side > 0) ? start.right
+                    : (fence != null) ? fence.left
+                    : null;
+            if (mid == null || mid == start || mid == fence || compare(start.key, mid.key) >= 0) {
+                return null;
+            }
+            side = 1;
+            current = mid;
+            estimate >>>= 1;
+            return new EntrySpliterator(start, mid, -1, estimate);
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super Map.Entry<K, V>> action) {
+            Node<K, V> e = current;
+            if (e == null || e == fence) {
+                return false;
+            }
+            current = successor(e);
+            if (estimate > 0) {
+                estimate--;
+            }
+            action.accept(e);
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            return true;
+        }
+
+        @Override
+        public void forEachRemaining(Consumer<? super Map.Entry<K, V>> action) {
+            Node<K, V> e = current;
+            current = fence;
+            estimate = 0;
+            for (; e != null && e != fence; e = successor(e)) {
+                action.accept(e);
+            }
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+        }
+
+        @Override
+        public long estimateSize() {
+            return estimate;
+        }
+
+        @Override
+        public int characteristics() {
+            return (side == 0 ? Spliterator.SIZED : 0)
+                    | Spliterator.DISTINCT | Spliterator.SORTED | Spliterator.ORDERED | Spliterator.NONNULL;
+        }
+
+        @Override
+        public Comparator<? super Map.Entry<K, V>> getComparator() {
+            return (a, b) -> compare(a.getKey(), b.getKey());
+        }
+    }
+
+    // -------------------- bulk loading --------------------
+
+    /**
+     * Build a tree from strictly increasing keys in O(n), without comparisons beyond the order check
+     * and without any rebalancing. {@code values} may be null (all values null).
+     *
+     * @throws IllegalArgumentException if the keys are not strictly increasing.
+     */
+    public static <K extends Comparable<K>, V> RedBlackTree<K, V> buildFromSorted(K[] keys, V[] values) {
+        return buildFromSorted(keys, values, false);
+    }
+
+    public static <K extends Comparable<K>, V> RedBlackTree<K, V> buildFromSorted(
+            K[] keys, V[] values, boolean orderStatistics) {
+        return buildFromSorted(keys, values, null, orderStatistics);
+    }
+
+    /**
+     * As {@link #buildFromSorted(Comparable[], Object[], boolean)}, with keys strictly increasing in
+     * {@code comparator} order (null for natural ordering).
+     */
+    public static <K, V> RedBlackTree<K, V> buildFromSorted(
+            K[] keys, V[] values, Comparator<? super K> comparator, boolean orderStatistics) {
+        if (values != null && values.length != keys.length) {
+            throw new IllegalArgumentException("keys and values differ in length");
+        }
+        RedBlackTree<K, V> tree = new RedBlackTree<>(comparator, orderStatistics);
+        Node<K, V>[] nodes = tree.newNodeArray(keys.length);
+        for (int i = 0; i < keys.length; i++) {
+            if (i > 0 && tree.compare(keys[i - 1], keys[i]) >= 0) {
+                throw new IllegalArgumentException("keys are not strictly increasing at index " + i);
+            }
+            nodes[i] = new Node<>(keys[i], values == null ? null : values[i]);
+        }
+        tree.relinkBalanced(nodes, keys.length);
+        return tree;
+    }
+
+    /**
+     * Build a tree from entries in strictly increasing key order, in O(n).
+     *
+     * @throws IllegalArgumentException if the keys are not strictly increasing.
+     */
+    public static <K extends Comparable<K>, V> RedBlackTree<K, V> buildFromSorted(
+            Iterator<? extends Map.Entry<? extends K, ? extends V>> entries, boolean orderStatistics) {
+        RedBlackTree<K, V> tree = new RedBlackTree<>(orderStatistics);
+        Node<K, V>[] nodes = tree.newNodeArray(16);
+        int n = 0;
+        while (entries.hasNext()) {
+            Map.Entry<? extends K, ? extends V> e = entries.next();
+            K key = e.getKey();
+            if (n > 0 && tree.compare(nodes[n - 1].key, key) >= 0) {
+                throw new IllegalArgumentException("keys are not strictly increasing at index " + n);
+            }
+            if (n == nodes.length) {
+                nodes = Arrays.copyOf(nodes, n + (n >> 1));
+            }
+            nodes[n++] = new Node<>(key, e.getValue());
+        }
+        tree.relinkBalanced(nodes, n);
+        return tree;
+    }
+
+    /**
+     * Insert a batch of strictly increasing keys. Existing keys keep their value, as with
+     * {@link #insert}. A batch that is small next to the tree is inserted key by key; a larger one is
+     * merged with the tree's in-order sequence and the whole tree is relinked in O(n + m), reusing
+     * the existing nodes.
+     *
+     * @return the number of keys that were added.
+     * @throws IllegalArgumentException if the batch is not strictly increasing.
+     */
+    public int insertAll(K[] keys, V[] values) {
+        int m = keys.length;
+        if (values != null && values.length != m) {
+            throw new IllegalArgumentException("keys and values differ in length");
+        }
+        for (int i = 1; i < m; i++) {
+            if (compare(keys[i - 1], keys[i]) >= 0) {
+                throw new IllegalArgumentException("keys are not strictly increasing at index " + i);
+            }
+        }
+
+        int n = count;
+        int log2n = 32 - Integer.numberOfLeadingZeros(n);
+        if ((long) m * log2n < n) {
+            int added = 0;
+            for (int i = 0; i < m; i++) {
+                if (insert(keys[i], values == null ? null : values[i])) {
+                    added++;
+                }
+            }
+            return added;
+        }
+
+        Node<K, V>[] merged = newNodeArray(n + m);
+        int size = 0;
+        int i = 0;
+        Node<K, V> current = rootNode == null ? null : minimum(rootNode);
+        while (current != null || i < m) {
+            int cmp = (current == null) ? 1 : (i == m) ? -1 : compare(current.key, keys[i]);
+            if (cmp < 0) {
+                merged[size++] = current;
+                current = successor(current);
+            } else if (cmp > 0) {
+                merged[size++] = new Node<>(keys[i], values == null ? null : values[i]);
+                i++;
+            } else {
+                merged[size++] = current;   // keep the existing entry
+                current = successor(current);
+                i++;
+            }
+        }
+        relinkBalanced(merged, size);
+        int added = size - n;
+        count = size;
+        return added;
+    }
+
+    private Node<K, V>[] newNodeArray(int length) {
+        return (Node<K, V>[]) new Node[length];
+    }
+
+    /**
+     * Make nodes[0..n) (in key order) the whole tree: a complete-as-possible binary tree where only
+     * the nodes on the bottom, partially filled level are red, so every path has the same number of
+     * black nodes and no red node has a red child.
+     */
+    private void relinkBalanced(Node<K, V>[] nodes, int n) {
+        count = n;
+        modCount++;
+        rootNode = (n == 0) ? null : linkSubtree(nodes, 0, n - 1, 0, 31 - Integer.numberOfLeadingZeros(n + 1));
+        if (rootNode != null) {
+            rootNode.parent = null;
+            rootNode.color = BLACK;
+        }
+    }
+
+    private Node<K, V> linkSubtree(Node<K, V>[] nodes, int lo, int hi, int level, int redLevel) {
+        int mid = (lo + hi) >>> 1;
+        Node<K, V> node = nodes[mid];
+        node.left = (lo < mid) ? linkSubtree(nodes, lo, mid - 1, level + 1, redLevel) : null;
+        node.right = (mid < hi) ? linkSubtree(nodes, mid + 1, hi, level + 1, redLevel) : null;
+        if (node.left != null) {
+            node.left.parent = node;
+        }
+        if (node.right != null) {
+            node.right.parent = node;
+        }
+        node.color = (level == redLevel) ? RED : BLACK;
+        node.size = hi - lo + 1;
+        return node;
+    }
+
+    // -------------------- order statistics --------------------
+
+    /** Number of entries; available whether or not order statistics are enabled. */
+    public int size(){
+        return count;
+    }
+
+    private void requireOrderStatistics(){
+        if (!orderStatistics){
+            throw new UnsupportedOperationException("order statistics are disabled for this tree");
+        }
+    }
+
+    /**
+     * @return the number of keys strictly less than {@code key}.
+     * @throws UnsupportedOperationException if the tree was built without order statistics.
+     */
+    public int rank(K key){
+        requireOrderStatistics();
+        int rank = 0;
+        Node<K, V> current = rootNode;
+        while(current != null){
+            int cmp = compare(key, current.key);
+            if(cmp < 0){
+                current = current.left;
+            } else if(cmp > 0){
+                rank += sizeOf(current.left) + 1;
+                current = current.right;
+            } else {
+                return rank + sizeOf(current.left);
+            }
+        }
+        return rank;
+    }
+
+    /**
+     * @return the key with the given 0-based rank, i.e. {@code select(0)} is the smallest key.
+     * @throws IndexOutOfBoundsException if {@code index} is not in [0, size()).
+     * @throws UnsupportedOperationException if the tree was built without order statistics.
+     */
+    public K select(int index){
+        requireOrderStatistics();
+        if(index < 0 || index >= count){
+            throw new IndexOutOfBoundsException("index " + index + " out of range [0, " + count + ")");
+        }
+        Node<K, V> current = rootNode;
+        while(true){
+            int leftSize = sizeOf(current.left);
+            if(index < leftSize){
+                current = current.left;
+            } else if(index > leftSize){
+                index -= leftSize + 1;
+                current = current.right;
+            } else {
+                return current.key;
+            }
+        }
+    }
+
+    /**
+     * @return the number of keys in [lo, hi), the same half-open interval {@link #range} uses.
+     * @throws UnsupportedOperationException if the tree was built without order statistics.
+     */
+    public int countInRange(K lo, K hi){
+        return Math.max(0, rank(hi) - rank(lo));
+    }
+
     public List<List<V>> levelOrderTravelValue(){
         List<List<V>> levels = new ArrayList<>();
-        if(rootNode == nilNode){
+        if(rootNode == null){
             return levels;
         }
 
-        Queue<Node> queue = new LinkedList<>();
+        Queue<Node<K, V>> queue = new LinkedList<>();
         queue.offer(rootNode);
         while(!queue.isEmpty()){
             int size = queue.size();
             List<V> level = new ArrayList<>();
             for(int i = 0; i < size; i++){
-                Node curr = queue.poll();
+                Node<K, V> curr = queue.poll();
                 level.add(curr.value);
 
-                if(curr.left != nilNode){
+                if(curr.left != null){
                     queue.offer(curr.left);
                 }
-                if (curr.right != nilNode){
+                if (curr.right != null){
                     queue.offer(curr.right);
                 }
             }
@@ -367,24 +1165,24 @@ public class RedBlackTree <K extends Comparable<K>, V> {
 
     public List<List<Boolean>> levelOrderTravelColor(){
         List<List<Boolean>> levels = new ArrayList<>();
-        if(rootNode == nilNode){
+        if(rootNode == null){
             return levels;
         }
 
-        Queue<Node> queue = new LinkedList<>();
+        Queue<Node<K, V>> queue = new LinkedList<>();
         queue.offer(rootNode);
 
         while(!queue.isEmpty()){
             int size = queue.size();
             List<Boolean> level = new ArrayList<>();
             for(int i = 0; i < size; i++){
-                Node curr = queue.poll();
+                Node<K, V> curr = queue.poll();
                 level.add(curr.color);
 
-                if(curr.left != nilNode){
+                if(curr.left != null){
                     queue.offer(curr.left);
                 }
-                if (curr.right != nilNode){
+                if (curr.right != null){
                     queue.offer(curr.right);
                 }
             }
@@ -395,36 +1193,40 @@ public class RedBlackTree <K extends Comparable<K>, V> {
     }
 
     public boolean validateRBTree() {
-        if (rootNode == nilNode) return true;
+        if (rootNode == null) return true;
     
         // 1) 根必须是黑
         if (rootNode.color != BLACK) return false;
     
         // 2) parent 指针一致性
-        if (rootNode.parent != nilNode) return false;
+        if (rootNode.parent != null) return false;
     
-        // 3) 综合校验：BST + 红红冲突 + 黑高一致
+        // 3) 综合校验：BST + 红红冲突 + 黑高一致（开启顺序统计时还校验子树大小）
+        if (orderStatistics && rootNode.size != count) return false;
         return validateAndBlackHeight(rootNode, null, null) != -1;
     }
     
-    private int validateAndBlackHeight(Node node, K min, K max) {
-        if (node == nilNode) {
+    private int validateAndBlackHeight(Node<K, V> node, K min, K max) {
+        if (node == null) {
             // NIL 视为黑：黑高 +1（你也可以返回 1 或 0，只要全程一致即可）
             return 1;
         }
     
         // A) BST 有序性：min < key < max
-        if (min != null && node.key.compareTo(min) <= 0) return -1;
-        if (max != null && node.key.compareTo(max) >= 0) return -1;
+        if (min != null && compare(node.key, min) <= 0) return -1;
+        if (max != null && compare(node.key, max) >= 0) return -1;
     
         // B) parent 指针一致性
-        if (node.left != nilNode && node.left.parent != node) return -1;
-        if (node.right != nilNode && node.right.parent != node) return -1;
+        if (node.left != null && node.left.parent != node) return -1;
+        if (node.right != null && node.right.parent != node) return -1;
+    
+        // B2) 子树大小 = 左 + 右 + 1
+        if (orderStatistics && node.size != sizeOf(node.left) + sizeOf(node.right) + 1) return -1;
     
         // C) 红红冲突：红节点不能有红孩子
         if (node.color == RED) {
-            if ((node.left != nilNode && node.left.color == RED) ||
-                (node.right != nilNode && node.right.color == RED)) {
+            if ((node.left != null && node.left.color == RED) ||
+                (node.right != null && node.right.color == RED)) {
                 return -1;
             }
         }
@@ -0,0 +1,266 @@
+package ds.hashtable;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.SplittableRandom;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+public class TestConcurrentHashTable {
+    public static void main(String[] args) throws InterruptedException {
+        basicInsertSelectDeleteTest();
+        testTreeBinInsertAndDelete();
+        testConcurrentInsertDuringResize();
+        testConcurrentReadersDuringWrites();
+        testThroughputScaling();
+    }
+
+    public static void basicInsertSelectDeleteTest() {
+        ConcurrentHashTable<Integer, String> table = new ConcurrentHashTable<>(4);
+
+        table.insert(1, "Value 1");
+        table.insert(2, "Value 2");
+        table.insert(3, "Value 3");
+        table.insert(4, "Value 4");
+
+        assert table.get(1).equals("Value 1") : "测试失败: 键1的值不正确";
+        assert table.get(2).equals("Value 2") : "测试失败: 键2的值不正确";
+
+        table.insert(5, "Value 5");
+        assert table.get(5).equals("Value 5") : "测试失败: 扩容后键5的值不正确";
+
+        table.insert(5, "Value 5'");
+        assert table.get(5).equals("Value 5'") : "测试失败: 覆盖写后键5的值不正确";
+        assert table.size() == 5 : "测试失败: 覆盖写不应改变 size";
+
+        assert table.delete(2) : "测试失败: 删除键2失败";
+        assert !table.delete(10) : "测试失败: 删除键10时应返回false";
+
+        assert table.get(2) == null : "测试失败: 键2未被删除";
+        assert table.size() == 4 : "测试失败: 删除后 size 不正确";
+    }
+
+    /** 所有键哈希相同：单个桶树化，再删到退化为链表。 */
+    public static void testTreeBinInsertAndDelete() {
+        ConcurrentHashTable<CollidingKey, Integer> table = new ConcurrentHashTable<>(64);
+        final int N = 1_000;
+        for (int i = 0; i < N; i++) {
+            table.insert(new CollidingKey(i), i);
+        }
+        for (int i = 0; i < N; i++) {
+            assert Objects.equals(table.get(new CollidingKey(i)), i) : "测试失败: 树化桶查找错误 key=" + i;
+        }
+        for (int i = 0; i < N; i += 2) {
+            assert table.delete(new CollidingKey(i)) : "测试失败: 树化桶删除失败 key=" + i;
+        }
+        for (int i = 0; i < N; i++) {
+            Integer expected = (i % 2 == 0) ? null : i;
+            assert Objects.equals(table.get(new CollidingKey(i)), expected) : "测试失败: 删除后查找错误 key=" + i;
+        }
+        for (int i = 1; i < N - 2; i += 2) {
+            table.delete(new CollidingKey(i));
+        }
+        assert table.size() == 1 : "测试失败: 删除后 size 不正确";
+        assert table.get(new CollidingKey(N - 1)) == N - 1 : "测试失败: 退化为链表后查找错误";
+    }
+
+    /** 多线程各自插入互不相交的键段，期间反复扩容；部分键哈希冲突以触发树化。 */
+    public static void testConcurrentInsertDuringResize() throws InterruptedException {
+        final int THREADS = 4;
+        final int PER_THREAD = 200_000;
+        ConcurrentHashTable<Object, Integer> table = new ConcurrentHashTable<>();
+
+        runConcurrently(THREADS, t -> {
+            int from = t * PER_THREAD;
+            for (int i = from; i < from + PER_THREAD; i++) {
+                Object key = (i % 100 == 0) ? new CollidingKey(i) : Integer.valueOf(i);
+                table.insert(key, i);
+            }
+            for (int i = from; i < from + PER_THREAD; i += 3) {
+                Object key = (i % 100 == 0) ? new CollidingKey(i) : Integer.valueOf(i);
+                table.delete(key);
+            }
+        });
+
+        int expectedSize = 0;
+        for (int i = 0; i < THREADS * PER_THREAD; i++) {
+            Object key = (i % 100 == 0) ? new CollidingKey(i) : Integer.valueOf(i);
+            int local = i % PER_THREAD;
+            Integer expected = (local % 3 == 0) ? null : i;
+            if (expected != null) {
+                expectedSize++;
+            }
+            assert Objects.equals(table.get(key), expected) : "测试失败: 并发插入后查找错误 key=" + i;
+        }
+        assert table.size() == expectedSize : "测试失败: 并发插入后 size 不正确: " + table.size();
+    }
+
+    /** 写线程不断覆盖和删除，读线程只能看到 null 或某个合法版本的值。 */
+    public static void testConcurrentReadersDuringWrites() throws InterruptedException {
+        final int KEYS = 10_000;
+        final int ROUNDS = 50;
+        ConcurrentHashTable<Integer, Integer> table = new ConcurrentHashTable<>();
+        AtomicInteger errors = new AtomicInteger();
+        CountDownLatch writerDone = new CountDownLatch(1);
+
+        Thread writer = new Thread(() -> {
+            for (int r = 0; r < ROUNDS; r++) {
+                for (int k = 0; k < KEYS; k++) {
+                    table.insert(k, k * ROUNDS + r);
+                }
+                for (int k = r % 2; k < KEYS; k += 2) {
+                    table.delete(k);
+                }
+            }
+            writerDone.countDown();
+        });
+        List<Thread> readers = new ArrayList<>();
+        for (int t = 0; t < 3; t++) {
+            readers.add(new Thread(() -> {
+                while (writerDone.getCount() > 0) {
+                    for (int k = 0; k < KEYS; k++) {
+                        Integer v = table.get(k);
+                        if (v != null && v / ROUNDS != k) {
+                            errors.incrementAndGet();
+                        }
+                    }
+                }
+            }));
+        }
+        writer.start();
+        readers.forEach(Thread::start);
+        writer.join();
+        for (Thread r : readers) {
+            r.join();
+        }
+        assert errors.get() == 0 : "测试失败: 读线程读到了不属于该键的值";
+    }
+
+    /** 1..N 线程吞吐：ConcurrentHashTable 对比全局锁包装的 HashTable，读多写少(90/10)与写多(50/50)两种比例。 */
+    public static void testThroughputScaling() throws InterruptedException {
+        System.out.println("\n====  并发吞吐测试 ====");
+        final int KEYS = 1 << 16;
+        final int OPS_PER_THREAD = 2_000_000;
+        int maxThreads = Math.max(4, Runtime.getRuntime().availableProcessors());
+        System.out.println("CPU 核数: " + Runtime.getRuntime().availableProcessors());
+
+        for (int readPercent : new int[]{90, 50}) {
+            System.out.println("读比例 " + readPercent + "%");
+            for (int threads = 1; threads <= maxThreads; threads <<= 1) {
+                ConcurrentHashTable<Integer, Integer> concurrent = new ConcurrentHashTable<>();
+                HashTable<Integer, Integer> locked = new HashTable<>();
+                for (int k = 0; k < KEYS; k++) {
+                    concurrent.insert(k, k);
+                    locked.insert(k, k);
+                }
+                Table concurrentOps = new Table() {
+                    public Integer get(Integer k) { return concurrent.get(k); }
+                    public void insert(Integer k, Integer v) { concurrent.insert(k, v); }
+                    public void delete(Integer k) { concurrent.delete(k); }
+                };
+                Table lockedOps = new Table() {
+                    public synchronized Integer get(Integer k) { return locked.get(k); }
+                    public synchronized void insert(Integer k, Integer v) { locked.insert(k, v); }
+                    public synchronized void delete(Integer k) { locked.delete(k); }
+                };
+                double c = measureOpsPerMicro(concurrentOps, threads, OPS_PER_THREAD, KEYS, readPercent);
+                double l = measureOpsPerMicro(lockedOps, threads, OPS_PER_THREAD, KEYS, readPercent);
+                System.out.printf("  线程数 %2d  ConcurrentHashTable(ops/us): %7.2f  全局锁 HashTable(ops/us): %7.2f%n",
+                        threads, c, l);
+            }
+        }
+    }
+
+    private interface Table {
+        Integer get(Integer key);
+
+        void insert(Integer key, Integer value);
+
+        void delete(Integer key);
+    }
+
+    private static double measureOpsPerMicro(Table table, int threads, int opsPerThread, int keys, int readPercent)
+            throws InterruptedException {
+        LongAdder found = new LongAdder();
+        long start = System.nanoTime();
+        runConcurrently(threads, t -> {
+            SplittableRandom rnd = new SplittableRandom(t);
+            int hits = 0;
+            for (int i = 0; i < opsPerThread; i++) {
+                Integer key = rnd.nextInt(keys);
+                int kind = rnd.nextInt(100);
+                if (kind < readPercent) {
+                    if (table.get(key) != null) {
+                        hits++;
+                    }
+                } else if ((kind & 1) == 0) {
+                    table.insert(key, i);
+                } else {
+                    table.delete(key);
+                }
+            }
+            found.add(hits);
+        });
+        long elapsed = System.nanoTime() - start;
+        assert found.sum() >= 0;
+        return (double) threads * opsPerThread / (elapsed / 1_000.0);
+    }
+
+    private interface Worker {
+        void run(int threadIndex);
+    }
+
+    private static void runConcurrently(int threads, Worker worker) throws InterruptedException {
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> list = new ArrayList<>();
+        List<Throwable> failures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            final int index = t;
+            Thread thread = new Thread(() -> {
+                try {
+                    start.await();
+                    worker.run(index);
+                } catch (Throwable e) {
+                    synchronized (failures) {
+                        failures.add(e);
+                    }
+                }
+            });
+            list.add(thread);
+            thread.start();
+        }
+        start.countDown();
+        for (Thread thread : list) {
+            thread.join();
+        }
+        if (!failures.isEmpty()) {
+            throw new AssertionError("工作线程异常", failures.get(0));
+        }
+    }
+
+    /** 哈希值恒定的键，所有实例落在同一个桶里；实现 Comparable 以便树内排序。 */
+    private static final class CollidingKey implements Comparable<CollidingKey> {
+        private final int id;
+
+        CollidingKey(int id) {
+            this.id = id;
+        }
+
+        @Override
+        public int hashCode() {
+            return 42;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof CollidingKey && ((CollidingKey) o).id == id;
+        }
+
+        @Override
+        public int compareTo(CollidingKey o) {
+            return Integer.compare(id, o.id);
+        }
+    }
+}
@@ -0,0 +1,242 @@
+package ds.hashtable;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+public class TestExpiringHashTable {
+    // 防止查找结果被 JIT 当作死代码消除
+    private static int sink;
+
+    public static void main(String[] args) {
+        basicExpiryTest();
+        testRandomOpsAgainstModel();
+        testCustomHashStrategy();
+        testCleanUpCostTracksExpired();
+        testChurnAgainstPeriodicSweep();
+    }
+
+    public static void basicExpiryTest() {
+        // 起点取负值：时钟与 System.nanoTime 一样可以是任意起点
+        long[] clock = {-5_000_000_000L};
+        ExpiringHashTable<Integer, String> table =
+                new ExpiringHashTable<>(16, 100, TimeUnit.MILLISECONDS, () -> clock[0]);
+        table.insert(1, "Value 1");
+        table.insert(2, "Value 2");
+        table.insert(3, "Value 3", 1, TimeUnit.HOURS);
+
+        clock[0] += TimeUnit.MILLISECONDS.toNanos(50);
+        assert table.get(1).equals("Value 1") : "测试失败: 未到期的键1应能查到";
+        table.insert(2, "Value 2'");
+
+        clock[0] += TimeUnit.MILLISECONDS.toNanos(60);
+        assert table.size() == 3 : "测试失败: 过期条目在清理前仍计入 size";
+        assert table.get(1) == null : "测试失败: 键1已过期，get 应返回 null";
+        assert table.size() == 2 && table.expiredCount() == 1 : "测试失败: get 应顺带删除过期条目";
+        assert table.get(2).equals("Value 2'") : "测试失败: 覆盖写应刷新键2的过期时间";
+
+        clock[0] += TimeUnit.MILLISECONDS.toNanos(100);
+        table.cleanUp();
+        assert table.size() == 1 && table.expiredCount() == 2 : "测试失败: cleanUp 应删除到期的键2";
+        assert table.get(3).equals("Value 3") : "测试失败: 单独指定 TTL 的键3不应过期";
+
+        table.insert(4, "Value 4");
+        assert table.delete(4) : "测试失败: 删除未过期的键4应返回true";
+        assert !table.delete(4) : "测试失败: 重复删除键4应返回false";
+        table.insert(5, "Value 5", 1, TimeUnit.MILLISECONDS);
+        clock[0] += TimeUnit.MILLISECONDS.toNanos(2);
+        assert !table.delete(5) : "测试失败: 删除已过期的键5应返回false";
+        assert table.size() == 1 && table.expiredCount() == 3 : "测试失败: 删除过期条目应计入过期数";
+
+        // 跨越顶层时间轮（约 4.9 小时）的 TTL 需要绕圈后重新归位
+        clock[0] += TimeUnit.HOURS.toNanos(1);
+        table.insert(6, "Value 6", 30, TimeUnit.HOURS);
+        clock[0] += TimeUnit.HOURS.toNanos(29);
+        table.cleanUp();
+        assert table.get(6).equals("Value 6") : "测试失败: 30 小时 TTL 的键6不应提前过期";
+        clock[0] += TimeUnit.HOURS.toNanos(2);
+        table.cleanUp();
+        assert table.size() == 0 : "测试失败: 键6到期后表应为空";
+
+        table.insert(7, "Value 7");
+        table.clear();
+        assert table.size() == 0 && table.get(7) == null : "测试失败: clear 后应为空";
+        table.insert(7, "Value 7");
+        assert table.get(7).equals("Value 7") : "测试失败: clear 后应能重新插入";
+
+        try {
+            table.insert(8, "Value 8", 0, TimeUnit.SECONDS);
+            assert false : "测试失败: TTL 为 0 应抛出 IllegalArgumentException";
+        } catch (IllegalArgumentException expected) {
+            // ok
+        }
+    }
+
+    /**
+     * 随机插入 / 查找 / 删除 / 推进时钟，与记录截止时间的 HashMap 对照。时钟步长从纳秒级到数小时，
+     * TTL 从微秒级到一天，覆盖时间轮的每一层与顶层绕圈。
+     */
+    public static void testRandomOpsAgainstModel() {
+        // 起点靠近 Long.MAX_VALUE，运行中时钟会溢出回绕
+        long[] clock = {Long.MAX_VALUE - TimeUnit.DAYS.toNanos(100)};
+        ExpiringHashTable<Integer, Integer> table =
+                new ExpiringHashTable<>(16, 1, TimeUnit.SECONDS, () -> clock[0]);
+        Map<Integer, long[]> ref = new HashMap<>();  // key -> {value, deadline}
+        Random rnd = new Random(2053L);
+        long[] steps = {1_000L, 1L << 20, TimeUnit.SECONDS.toNanos(1), TimeUnit.MINUTES.toNanos(5), TimeUnit.HOURS.toNanos(6)};
+        long[] ttls = {1_000L, TimeUnit.MILLISECONDS.toNanos(30), TimeUnit.SECONDS.toNanos(10),
+                TimeUnit.MINUTES.toNanos(30), TimeUnit.HOURS.toNanos(24)};
+
+        for (int op = 0; op < 1_000_000; op++) {
+            // 一部分键只在高位不同，落入同一个桶
+            int key = rnd.nextBoolean() ? rnd.nextInt(5_000) : (rnd.nextInt(64) << 20);
+            int kind = rnd.nextInt(20);
+            long now = clock[0];
+            if (kind < 8) {
+                long ttl = 1 + (long) (rnd.nextDouble() * ttls[rnd.nextInt(ttls.length)]);
+                table.insert(key, op, ttl, TimeUnit.NANOSECONDS);
+                ref.put(key, new long[]{op, now + ttl});
+            } else if (kind < 10) {
+                long[] e = ref.remove(key);
+                boolean live = e != null && e[1] - now > 0;
+                assert table.delete(key) == live : "删除返回值不正确: op=" + op + " key=" + key;
+            } else if (kind < 18) {
+                long[] e = ref.get(key);
+                Integer expected = e != null && e[1] - now > 0 ? (int) e[0] : null;
+                Integer actual = table.get(key);
+                assert expected == null ? actual == null : expected.equals(actual) : "查找不一致: op=" + op + " key=" + key;
+            } else if (kind < 19) {
+                clock[0] += (long) (rnd.nextDouble() * steps[rnd.nextInt(steps.length)]);
+            } else {
+                table.cleanUp();
+                // 清理后只允许残留最后一个 tick（约 1ms）内刚到期的条目
+                int live = 0, pending = 0;
+                for (long[] e : ref.values()) {
+                    if (e[1] - now > 0) {
+                        live++;
+                    } else if (now - e[1] < 1L << 20) {
+                        pending++;
+                    }
+                }
+                assert table.size() >= live && table.size() <= live + pending
+                        : "cleanUp 后 size 不正确: op=" + op + " size=" + table.size() + " live=" + live;
+            }
+        }
+        clock[0] += TimeUnit.DAYS.toNanos(2);
+        table.cleanUp();
+        assert table.size() == 0 : "测试失败: 所有条目到期后表应为空";
+    }
+
+    /** byte[] 会话令牌作键：byteArray() 按内容比较，seeded() 使用随机种子哈希。 */
+    public static void testCustomHashStrategy() {
+        long[] clock = {0};
+        ExpiringHashTable<byte[], String> tokens = new ExpiringHashTable<>(
+                16, 1, TimeUnit.MINUTES, HashStrategy.byteArray(), () -> clock[0]);
+        tokens.insert(new byte[]{1, 2, 3}, "session-1");
+        assert "session-1".equals(tokens.get(new byte[]{1, 2, 3})) : "测试失败: byteArray() 应按内容查找";
+        assert tokens.get(new byte[]{1, 2, 4}) == null : "测试失败: 内容不同的键不应命中";
+        clock[0] += TimeUnit.MINUTES.toNanos(2);
+        assert tokens.get(new byte[]{1, 2, 3}) == null : "测试失败: 令牌过期后应查不到";
+
+        ExpiringHashTable<String, Integer> sessions =
+                new ExpiringHashTable<>(16, 1, TimeUnit.HOURS, HashStrategy.seeded());
+        for (int i = 0; i < 10_000; i++) {
+            sessions.insert("session-" + i, i);
+        }
+        for (int i = 0; i < 10_000; i++) {
+            assert sessions.get("session-" + i) == i : "测试失败: seeded() 下查找不一致: " + i;
+        }
+        assert sessions.size() == 10_000 : "测试失败: seeded() 下 size 不正确";
+    }
+
+    /** 100 万条长 TTL 条目中混入少量即将到期的条目：时间轮清理只做到期部分的工作，全表扫描做 O(n)。 */
+    public static void testCleanUpCostTracksExpired() {
+        System.out.println("\n====  ExpiringHashTable 清理开销 测试 ====");
+        final int N = 1_000_000;
+        for (int expiring : new int[]{1_000, 10_000, 100_000}) {
+            long[] clock = {0};
+            ExpiringHashTable<Integer, Integer> table =
+                    new ExpiringHashTable<>(N, 1, TimeUnit.HOURS, () -> clock[0]);
+            HashTable<Integer, Long> swept = new HashTable<>(N);
+            long shortDeadline = TimeUnit.MILLISECONDS.toNanos(10), longDeadline = TimeUnit.HOURS.toNanos(1);
+            for (int i = 0; i < N; i++) {
+                boolean soon = i % (N / expiring) == 0;
+                table.insert(i, i, soon ? shortDeadline : longDeadline, TimeUnit.NANOSECONDS);
+                swept.insert(i, soon ? shortDeadline : longDeadline);
+            }
+            clock[0] = TimeUnit.MILLISECONDS.toNanos(20);
+
+            long start = System.nanoTime();
+            table.cleanUp();
+            long wheelTime = System.nanoTime() - start;
+            long now = clock[0];
+            start = System.nanoTime();
+            int removed = swept.removeIf((k, deadline) -> deadline <= now);
+            long sweepTime = System.nanoTime() - start;
+
+            assert table.expiredCount() == expiring && removed == expiring : "测试失败: 到期条目数不正确";
+            assert table.size() == N - expiring && swept.size() == N - expiring : "测试失败: 清理后 size 不正确";
+            System.out.printf("到期 %d / %d | 时间轮 cleanUp(us): %d | 全表扫描(us): %d%n",
+                    expiring, N, wheelTime / 1_000, sweepTime / 1_000);
+        }
+    }
+
+    /**
+     * 持续写入：虚拟时钟每次写入前进 100ns，TTL 100ms，稳态约 100 万条。对比时间轮（插入时摊还清理）
+     * 与 HashTable 每 10ms 全表扫描一次：平均开销与最慢的一个 1000 次写入批次。
+     */
+    public static void testChurnAgainstPeriodicSweep() {
+        System.out.println("\n====  ExpiringHashTable 持续写入 测试 ====");
+        final int OPS = 5_000_000;
+        final long STEP = 100, TTL = TimeUnit.MILLISECONDS.toNanos(100);
+        final int SWEEP_EVERY = (int) (TimeUnit.MILLISECONDS.toNanos(10) / STEP);
+        final int BATCH = 1_000;
+        Integer[] keys = new Integer[1 << 22];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = i;
+        }
+
+        long[] clock = {0};
+        ExpiringHashTable<Integer, Integer> table =
+                new ExpiringHashTable<>(16, TTL, TimeUnit.NANOSECONDS, () -> clock[0]);
+        long worstWheel = 0;
+        long start = System.nanoTime();
+        for (int op = 0; op < OPS; op += BATCH) {
+            long batchStart = System.nanoTime();
+            for (int i = op; i < op + BATCH; i++) {
+                clock[0] += STEP;
+                table.insert(keys[i & (keys.length - 1)], i);
+            }
+            worstWheel = Math.max(worstWheel, System.nanoTime() - batchStart);
+        }
+        long wheelTime = System.nanoTime() - start;
+        table.cleanUp();
+
+        HashTable<Integer, Long> swept = new HashTable<>();
+        long now = 0, worstSweep = 0;
+        start = System.nanoTime();
+        for (int op = 0; op < OPS; op += BATCH) {
+            long batchStart = System.nanoTime();
+            for (int i = op; i < op + BATCH; i++) {
+                now += STEP;
+                swept.insert(keys[i & (keys.length - 1)], now + TTL);
+                if ((i + 1) % SWEEP_EVERY == 0) {
+                    long t = now;
+                    swept.removeIf((k, deadline) -> deadline <= t);
+                }
+            }
+            worstSweep = Math.max(worstSweep, System.nanoTime() - batchStart);
+        }
+        long sweepTime = System.nanoTime() - start;
+        long t = now;
+        swept.removeIf((k, deadline) -> deadline <= t);
+
+        int live = (int) (TTL / STEP);
+        assert Math.abs(table.size() - live) <= (1 << 20) / STEP + 1 : "测试失败: 时间轮稳态条目数不正确: " + table.size();
+        assert swept.size() == live : "测试失败: 全表扫描稳态条目数不正确: " + swept.size();
+        sink += table.size() + swept.size();
+        System.out.printf("稳态 %d 条 | 时间轮(ns/op): %d, 最慢批次(us): %d | 定期全表扫描(ns/op): %d, 最慢批次(us): %d%n",
+                live, wheelTime / OPS, worstWheel / 1_000, sweepTime / OPS, worstSweep / 1_000);
+    }
+}
@@ -5,6 +5,26 @@ public class TestHashTable {
         basicInsertSelectDeleteTest();
         testHashCollisionAndResizePerformance();
         testTreeifyPerformance();
+        testTreeBinNonComparableKeys();
+        testCollisionHeavyLookupPerformance();
+        testTreeBinSplitOnResize();
+        testResizeAllocation();
+        testIncrementalResizeAgainstHashMap();
+        testResizeLatencyHistogram();
+        testByteArrayKeys();
+        testHashStrategyDistribution();
+        testComputeOperationsAgainstHashMap();
+        testSinglePassHashCalls();
+        testMergeCounterPerformance();
+        testBinPoliciesAgainstHashMap();
+        testBinPolicyPerformance();
+        testCapacityRoundingAndLoadFactor();
+        testEnsureCapacityAndTrimToSize();
+        testAutoShrinkHysteresis();
+        testBulkLoadThenPurge();
+        testIterationAgainstHashMap();
+        testParallelBulkOperations();
+        testParallelScanScaling();
     }
 
     public static void basicInsertSelectDeleteTest(){
@@ -100,7 +120,7 @@ public class TestHashTable {
         System.out.println("删除(ns): " + listDelete);
     
         // -------- 2. 红黑树桶（treeify 后） --------
-        HashTable<Integer, String> treeTable = new HashTable<>(CAPACITY);
+        HashTable<Integer, String> treeTable = new HashTable<>(CAPACITY, HashStrategy.identity());
     
         int treeSize = 64; // >> TREEIFY_THRESHOLD
         for (int i = 0; i < treeSize; i++) {
@@ -123,7 +143,7 @@ public class TestHashTable {
     ) {
         long total = 0;
         for (int r = 0; r < rounds; r++) {
-            HashTable<Integer, String> table = new HashTable<>(64);
+            HashTable<Integer, String> table = new HashTable<>(64, HashStrategy.identity());
             for (int i = 0; i < keysCount; i++) {
                 table.insert(i * step, "V" + i);
             }
@@ -137,5 +157,856 @@ public class TestHashTable {
         }
         return total / rounds;
     }
-}
 
+    /** 同 hash 且不可比较的键：树桶查找必须能用"相等但不同实例"的键命中。 */
+    public static void testTreeBinNonComparableKeys() {
+        HashTable<CollidingKey, Integer> ht = new HashTable<>(128);
+        int n = 200;
+        for (int i = 0; i < n; i++) {
+            ht.insert(new CollidingKey(i), i);
+        }
+        for (int i = 0; i < n; i++) {
+            Integer v = ht.get(new CollidingKey(i));
+            assert v != null && v == i : "树桶查找失败: id=" + i + " 实际 " + v;
+        }
+        ht.insert(new CollidingKey(7), -7);
+        assert ht.get(new CollidingKey(7)) == -7 : "树桶覆盖写失败";
+        for (int i = 0; i < n; i += 2) {
+            assert ht.delete(new CollidingKey(i)) : "树桶删除失败: id=" + i;
+        }
+        for (int i = 0; i < n; i++) {
+            Integer v = ht.get(new CollidingKey(i));
+            if (i % 2 == 0) {
+                assert v == null : "已删除的键仍可查到: id=" + i;
+            } else {
+                assert v != null : "未删除的键查不到: id=" + i;
+            }
+        }
+    }
+
+    public static void testCollisionHeavyLookupPerformance() {
+        System.out.println("\n====  高冲突桶查找性能测试 ====");
+
+        final int CAPACITY = 128;
+        final int STEP = 1 << 20;     // 低位全为 0，所有键落入同一个桶
+        final int ROUNDS = 2_000;
+        final int[] SIZES = {16, 128, 1024};
+
+        for (int keysCount : SIZES) {
+            HashTable<Integer, String> listTable = new ListHashTable<>(CAPACITY);
+            HashTable<Integer, String> treeTable = new HashTable<>(CAPACITY, HashStrategy.identity());
+            for (int i = 0; i < keysCount; i++) {
+                listTable.insert(i * STEP, "V" + i);
+                treeTable.insert(i * STEP, "V" + i);
+            }
+
+            // 预热
+            measureLookupNanos(listTable, STEP, keysCount, ROUNDS / 10);
+            measureLookupNanos(treeTable, STEP, keysCount, ROUNDS / 10);
+
+            long listLookup = measureLookupNanos(listTable, STEP, keysCount, ROUNDS) / keysCount;
+            long treeLookup = measureLookupNanos(treeTable, STEP, keysCount, ROUNDS) / keysCount;
+
+            System.out.println("桶长度 " + keysCount
+                    + " | 链表桶单次查找(ns): " + listLookup
+                    + " | 红黑树桶单次查找(ns): " + treeLookup);
+        }
+    }
+
+    /** 树桶在扩容时被拆分（部分保持树、部分退化为链表）后，所有键仍可查到。 */
+    public static void testTreeBinSplitOnResize() {
+        HashTable<Integer, Integer> ht = new HashTable<>(128, HashStrategy.identity());
+        int colliding = 1000;
+        for (int i = 0; i < colliding; i++) {
+            ht.insert(i << 12, i);          // capacity <= 4096 时全部落入桶 0
+        }
+        int filler = 40_000;
+        for (int j = 0; j < filler; j++) {
+            ht.insert(2 * j + 1, -j);       // 奇数键，推动多次扩容
+        }
+        for (int i = 0; i < colliding; i++) {
+            Integer v = ht.get(i << 12);
+            assert v != null && v == i : "扩容拆分后 key=" + (i << 12) + " 值不正确: " + v;
+        }
+        for (int j = 0; j < filler; j++) {
+            Integer v = ht.get(2 * j + 1);
+            assert v != null && v == -j : "扩容后 key=" + (2 * j + 1) + " 值不正确: " + v;
+        }
+        for (int i = 0; i < colliding; i += 3) {
+            assert ht.delete(i << 12) : "扩容拆分后删除失败: key=" + (i << 12);
+        }
+        for (int i = 0; i < colliding; i++) {
+            Integer v = ht.get(i << 12);
+            assert (i % 3 == 0) == (v == null) : "扩容拆分后删除结果不正确: key=" + (i << 12);
+        }
+    }
+
+    /** 从 16 增长到 1000 万条目，统计整个过程的分配字节数（扩容不再重新分配节点）。 */
+    public static void testResizeAllocation() {
+        System.out.println("\n====  Resize 分配测试 ====");
+        java.lang.management.ThreadMXBean bean = java.lang.management.ManagementFactory.getThreadMXBean();
+        if (!(bean instanceof com.sun.management.ThreadMXBean)) {
+            System.out.println("当前 JVM 不支持线程分配统计，跳过");
+            return;
+        }
+        com.sun.management.ThreadMXBean threadBean = (com.sun.management.ThreadMXBean) bean;
+        long tid = Thread.currentThread().getId();
+
+        final int N = 10_000_000;
+        Integer[] keys = new Integer[N];
+        for (int i = 0; i < N; i++) {
+            keys[i] = i;
+        }
+        String value = "V";
+
+        HashTable<Integer, String> ht = new HashTable<>(16);
+        long before = threadBean.getThreadAllocatedBytes(tid);
+        long start = System.nanoTime();
+        for (int i = 0; i < N; i++) {
+            ht.insert(keys[i], value);
+        }
+        long elapsed = System.nanoTime() - start;
+        long allocated = threadBean.getThreadAllocatedBytes(tid) - before;
+
+        // 所有桶数组的大小：16, 32, ..., 最终容量（每个引用按 4 字节估算，压缩指针）
+        long bucketBytes = 0;
+        for (long cap = 16; ; cap <<= 1) {
+            bucketBytes += 16 + cap * 4;
+            if (cap * 3 / 4 >= N) {
+                break;
+            }
+        }
+
+        assert ht.get(N - 1) == value : "增长后最后一个键查找失败";
+        System.out.println("插入 " + N + " 个条目用时(ms): " + elapsed / 1_000_000);
+        System.out.println("总分配(MB): " + allocated / (1 << 20)
+                + " | 其中桶数组约(MB): " + bucketBytes / (1 << 20));
+        System.out.println("每条目分配(字节，不含桶数组): " + (allocated - bucketBytes) / N);
+    }
+
+    /** 渐进式扩容模式：随机插入/查找/删除与 java.util.HashMap 对照。 */
+    public static void testIncrementalResizeAgainstHashMap() {
+        HashTable<Integer, Integer> ht = new HashTable<>(16, HashStrategy.identity(), true);
+        java.util.HashMap<Integer, Integer> ref = new java.util.HashMap<>();
+        java.util.Random rnd = new java.util.Random(2027L);
+
+        for (int op = 0; op < 300_000; op++) {
+            // 一部分键只在高位不同，让树桶也参与迁移
+            int key = rnd.nextBoolean() ? rnd.nextInt(100_000) : (rnd.nextInt(64) << 20);
+            int kind = rnd.nextInt(10);
+            if (kind < 6) {
+                ht.insert(key, op);
+                ref.put(key, op);
+            } else if (kind < 8) {
+                boolean removed = ht.delete(key);
+                assert removed == (ref.remove(key) != null) : "渐进扩容删除返回值不正确: key=" + key;
+            } else {
+                assert java.util.Objects.equals(ht.get(key), ref.get(key)) : "渐进扩容查找不一致: key=" + key;
+            }
+        }
+        for (java.util.Map.Entry<Integer, Integer> e : ref.entrySet()) {
+            assert e.getValue().equals(ht.get(e.getKey())) : "渐进扩容最终校验失败: key=" + e.getKey();
+        }
+    }
+
+    /** 单次插入延迟分布：一次性扩容 vs 渐进式扩容。 */
+    public static void testResizeLatencyHistogram() {
+        System.out.println("\n====  扩容延迟分布测试 ====");
+        final int N = 4_000_000;
+        Integer[] keys = new Integer[N];
+        for (int i = 0; i < N; i++) {
+            keys[i] = i;
+        }
+
+        for (int warm = 0; warm < 2; warm++) {
+            measureInsertLatencies(new HashTable<>(16, false), keys, N / 4);
+            measureInsertLatencies(new HashTable<>(16, true), keys, N / 4);
+        }
+
+        // 最大值可能混入 GC 停顿，因此同时给出超过 1ms 的插入次数
+        System.gc();
+        printLatencies("一次性扩容", measureInsertLatencies(new HashTable<>(16, false), keys, N));
+        System.gc();
+        printLatencies("渐进式扩容", measureInsertLatencies(new HashTable<>(16, true), keys, N));
+    }
+
+    private static long[] measureInsertLatencies(HashTable<Integer, String> ht, Integer[] keys, int n) {
+        long[] latencies = new long[n];
+        for (int i = 0; i < n; i++) {
+            long start = System.nanoTime();
+            ht.insert(keys[i], "V");
+            latencies[i] = System.nanoTime() - start;
+        }
+        return latencies;
+    }
+
+    private static void printLatencies(String tag, long[] latencies) {
+        java.util.Arrays.sort(latencies);
+        int n = latencies.length;
+        int stalls = 0;
+        for (int i = n - 1; i >= 0 && latencies[i] > 1_000_000; i--) {
+            stalls++;
+        }
+        System.out.println("[" + tag + "] 插入延迟(ns)"
+                + " p50=" + latencies[(int) (n * 0.50)]
+                + " p99=" + latencies[(int) (n * 0.99)]
+                + " p99.9=" + latencies[(int) (n * 0.999)]
+                + " p99.99=" + latencies[(int) (n * 0.9999)]
+                + " max=" + latencies[n - 1]
+                + " >1ms次数=" + stalls);
+    }
+
+    /** byte[] 作为键：按内容哈希与比较。 */
+    public static void testByteArrayKeys() {
+        HashTable<byte[], Integer> ht = new HashTable<>(HashStrategy.byteArray());
+        for (int i = 0; i < 1000; i++) {
+            ht.insert(("key-" + i).getBytes(), i);
+        }
+        for (int i = 0; i < 1000; i++) {
+            Integer v = ht.get(("key-" + i).getBytes());
+            assert v != null && v == i : "byte[] 键查找失败: i=" + i;
+        }
+        assert ht.delete("key-7".getBytes()) : "byte[] 键删除失败";
+        assert ht.get("key-7".getBytes()) == null : "byte[] 键未被删除";
+
+        HashTable<String, Integer> seeded = new HashTable<>(HashStrategy.seeded(12345));
+        for (int i = 0; i < 1000; i++) {
+            seeded.insert("s" + i, i);
+        }
+        for (int i = 0; i < 1000; i++) {
+            assert seeded.get("s" + i) == i : "seeded 策略查找失败: i=" + i;
+        }
+    }
+
+    /** 各哈希策略的桶长度分布与查找耗时。 */
+    public static void testHashStrategyDistribution() {
+        System.out.println("\n====  哈希策略分布测试 ====");
+        final int N = 1 << 16;
+        final int MAX_LENGTH = 8;
+
+        Integer[] highBitKeys = new Integer[N];
+        for (int i = 0; i < N; i++) {
+            highBitKeys[i] = i * (1 << 20) + (i >>> 12);   // 只在高位不同（与 Resize 性能测试同类）
+        }
+        String[] floodKeys = collidingStrings(12);          // 4096 个 hashCode 完全相同的字符串
+
+        String[] names = {"identity", "spread", "murmur3", "seeded"};
+        for (String name : names) {
+            HashTable<Integer, Integer> ints = new HashTable<>(strategyByName(name));
+            for (int i = 0; i < N; i++) {
+                ints.insert(highBitKeys[i], i);
+            }
+            HashTable<String, Integer> strings = new HashTable<>(strategyByName(name));
+            for (int i = 0; i < floodKeys.length; i++) {
+                strings.insert(floodKeys[i], i);
+            }
+
+            long intLookup = measureLookupNanos(ints, highBitKeys, 20);
+            long stringLookup = measureLookupNanos(strings, floodKeys, 20);
+
+            System.out.println("[" + name + "]");
+            System.out.println("  高位整数键 桶长度分布(0.." + MAX_LENGTH + "+): "
+                    + java.util.Arrays.toString(ints.bucketLengthHistogram(MAX_LENGTH))
+                    + " 单次查找(ns): " + intLookup);
+            System.out.println("  同 hashCode 字符串 桶长度分布(0.." + MAX_LENGTH + "+): "
+                    + java.util.Arrays.toString(strings.bucketLengthHistogram(MAX_LENGTH))
+                    + " 单次查找(ns): " + stringLookup);
+        }
+    }
+
+    private static <K> HashStrategy<K> strategyByName(String name) {
+        switch (name) {
+            case "identity":
+                return HashStrategy.identity();
+            case "spread":
+                return HashStrategy.spread();
+            case "murmur3":
+                return HashStrategy.murmur3();
+            default:
+                return HashStrategy.seeded();
+        }
+    }
+
+    private static <K> long measureLookupNanos(HashTable<K, Integer> ht, K[] keys, int rounds) {
+        for (K key : keys) {
+            ht.get(key);
+        }
+        long start = System.nanoTime();
+        for (int r = 0; r < rounds; r++) {
+            for (K key : keys) {
+                Integer v = ht.get(key);
+                assert v != null : "测量时 key=" + key + " 返回null";
+            }
+        }
+        return (System.nanoTime() - start) / ((long) rounds * keys.length);
+    }
+
+    /** "Aa" 与 "BB" 的 hashCode 相同，拼接 blocks 次得到 2^blocks 个 hashCode 相同的字符串。 */
+    private static String[] collidingStrings(int blocks) {
+        String[] result = new String[1 << blocks];
+        for (int i = 0; i < result.length; i++) {
+            StringBuilder sb = new StringBuilder();
+            for (int b = 0; b < blocks; b++) {
+                sb.append(((i >>> b) & 1) == 0 ? "Aa" : "BB");
+            }
+            result[i] = sb.toString();
+        }
+        return result;
+    }
+
+    /** putIfAbsent / computeIfAbsent / compute / merge 随机操作与 HashMap 对照，普通与渐进扩容两种模式，含树桶。 */
+    public static void testComputeOperationsAgainstHashMap() {
+        for (boolean incremental : new boolean[]{false, true}) {
+            HashTable<Integer, Integer> ht = new HashTable<>(16, HashStrategy.identity(), incremental);
+            java.util.HashMap<Integer, Integer> ref = new java.util.HashMap<>();
+            java.util.Random rnd = new java.util.Random(2029L);
+
+            for (int op = 0; op < 300_000; op++) {
+                // 一部分键只在高位不同，落入同一个树桶
+                int key = rnd.nextBoolean() ? rnd.nextInt(50_000) : (rnd.nextInt(64) << 20);
+                int arg = rnd.nextInt(5);
+                Integer actual, expected;
+                switch (rnd.nextInt(6)) {
+                    case 0:
+                        actual = ht.putIfAbsent(key, arg);
+                        expected = ref.putIfAbsent(key, arg);
+                        break;
+                    case 1:
+                        actual = ht.computeIfAbsent(key, k -> arg == 0 ? null : k + arg);
+                        expected = ref.computeIfAbsent(key, k -> arg == 0 ? null : k + arg);
+                        break;
+                    case 2:
+                        // 结果为 null 时删除条目
+                        actual = ht.compute(key, (k, v) -> arg == 0 ? null : (v == null ? arg : v + arg));
+                        expected = ref.compute(key, (k, v) -> arg == 0 ? null : (v == null ? arg : v + arg));
+                        break;
+                    case 3:
+                        actual = ht.merge(key, arg, (a, b) -> b == 0 ? null : a + b);
+                        expected = ref.merge(key, arg, (a, b) -> b == 0 ? null : a + b);
+                        break;
+                    case 4:
+                        ht.insert(key, arg);
+                        ref.put(key, arg);
+                        actual = expected = null;
+                        break;
+                    default:
+                        boolean removed = ht.delete(key);
+                        assert removed == (ref.remove(key) != null) : "删除返回值不正确: key=" + key;
+                        actual = expected = null;
+                }
+                assert java.util.Objects.equals(actual, expected) : "返回值不一致: op=" + op + " key=" + key;
+                assert ht.size() == ref.size() : "size 不一致: op=" + op;
+            }
+            for (java.util.Map.Entry<Integer, Integer> e : ref.entrySet()) {
+                assert e.getValue().equals(ht.get(e.getKey())) : "最终校验失败: key=" + e.getKey();
+            }
+        }
+
+        HashTable<Integer, Integer> ht = new HashTable<>();
+        try {
+            ht.computeIfAbsent(1, k -> {
+                ht.insert(2, 2);
+                return 1;
+            });
+            assert false : "测试失败: 映射函数修改表时应抛出 ConcurrentModificationException";
+        } catch (java.util.ConcurrentModificationException expected) {
+            // ok
+        }
+    }
+
+    /** 新键插入与 merge 计数都只调用一次 hashCode（扩容复用缓存的 hash）。 */
+    public static void testSinglePassHashCalls() {
+        HashTable<CountingKey, Integer> ht = new HashTable<>();
+        final int N = 10_000;
+        CountingKey[] keys = new CountingKey[N];
+        for (int i = 0; i < N; i++) {
+            keys[i] = new CountingKey(i);
+        }
+
+        CountingKey.calls = 0;
+        for (CountingKey k : keys) {
+            ht.insert(k, 1);
+        }
+        assert CountingKey.calls == N : "测试失败: 插入新键调用 hashCode " + CountingKey.calls + " 次，期望 " + N;
+
+        CountingKey.calls = 0;
+        for (CountingKey k : keys) {
+            ht.merge(k, 1, Integer::sum);
+        }
+        assert CountingKey.calls == N : "测试失败: merge 调用 hashCode " + CountingKey.calls + " 次，期望 " + N;
+        assert ht.get(keys[0]) == 2 : "测试失败: merge 计数不正确";
+    }
+
+    /** 词频计数：get + insert 两遍 vs merge 一遍。 */
+    public static void testMergeCounterPerformance() {
+        System.out.println("\n====  读-改-写计数 性能测试 ====");
+        final int WORDS = 1 << 16;
+        final int OPS = 5_000_000;
+        final int ROUNDS = 5;
+        String[] words = new String[WORDS];
+        for (int i = 0; i < WORDS; i++) {
+            words[i] = "word-" + i;
+        }
+        int[] stream = new int[OPS];
+        java.util.Random rnd = new java.util.Random(11L);
+        for (int i = 0; i < OPS; i++) {
+            stream[i] = rnd.nextInt(WORDS);
+        }
+
+        long getThenInsert = 0, merge = 0;
+        for (int r = 0; r < ROUNDS; r++) {
+            HashTable<String, Integer> a = new HashTable<>();
+            long start = System.nanoTime();
+            for (int i : stream) {
+                Integer c = a.get(words[i]);
+                a.insert(words[i], c == null ? 1 : c + 1);
+            }
+            getThenInsert += System.nanoTime() - start;
+
+            HashTable<String, Integer> b = new HashTable<>();
+            start = System.nanoTime();
+            for (int i : stream) {
+                b.merge(words[i], 1, Integer::sum);
+            }
+            merge += System.nanoTime() - start;
+            assert a.get(words[0]).equals(b.get(words[0])) : "两种计数方式结果不一致";
+        }
+        System.out.println("get + insert(ns/op): " + getThenInsert / ROUNDS / OPS
+                + " | merge(ns/op): " + merge / ROUNDS / OPS);
+    }
+
+    /** 三种桶布局（含渐进扩容）随机操作与 HashMap 对照；部分键同桶，覆盖 flat 桶溢出、树化与拆分。 */
+    public static void testBinPoliciesAgainstHashMap() {
+        for (BinPolicy policy : BinPolicy.values()) {
+            for (boolean incremental : new boolean[]{false, true}) {
+                HashTable<Integer, Integer> ht = new HashTable<>(16, HashStrategy.identity(), policy, incremental);
+                java.util.HashMap<Integer, Integer> ref = new java.util.HashMap<>();
+                java.util.Random rnd = new java.util.Random(2031L);
+
+                for (int op = 0; op < 200_000; op++) {
+                    int key = rnd.nextBoolean() ? rnd.nextInt(50_000) : (rnd.nextInt(64) << 20);
+                    int arg = rnd.nextInt(5);
+                    Integer actual, expected;
+                    switch (rnd.nextInt(6)) {
+                        case 0:
+                            actual = ht.putIfAbsent(key, arg);
+                            expected = ref.putIfAbsent(key, arg);
+                            break;
+                        case 1:
+                            actual = ht.compute(key, (k, v) -> arg == 0 ? null : (v == null ? arg : v + arg));
+                            expected = ref.compute(key, (k, v) -> arg == 0 ? null : (v == null ? arg : v + arg));
+                            break;
+                        case 2:
+                            actual = ht.merge(key, arg, (a, b) -> b == 0 ? null : a + b);
+                            expected = ref.merge(key, arg, (a, b) -> b == 0 ? null : a + b);
+                            break;
+                        case 3:
+                            ht.insert(key, arg);
+                            ref.put(key, arg);
+                            actual = expected = null;
+                            break;
+                        case 4:
+                            actual = ht.get(key);
+                            expected = ref.get(key);
+                            break;
+                        default:
+                            boolean removed = ht.delete(key);
+                            assert removed == (ref.remove(key) != null) : policy + " 删除返回值不正确: key=" + key;
+                            actual = expected = null;
+                    }
+                    assert java.util.Objects.equals(actual, expected) : policy + " 返回值不一致: op=" + op + " key=" + key;
+                    assert ht.size() == ref.size() : policy + " size 不一致: op=" + op;
+                }
+                for (java.util.Map.Entry<Integer, Integer> e : ref.entrySet()) {
+                    assert e.getValue().equals(ht.get(e.getKey())) : policy + " 最终校验失败: key=" + e.getKey();
+                }
+                int[] histogram = ht.bucketLengthHistogram(1 << 10);
+                int total = 0;
+                for (int len = 0; len < histogram.length; len++) {
+                    total += len * histogram[len];
+                }
+                assert total == ref.size() : policy + " 桶内条目数之和不等于 size";
+            }
+        }
+        assert new ListHashTable<Integer, Integer>().binPolicy() == BinPolicy.CHAIN : "ListHashTable 应使用 CHAIN";
+    }
+
+    /** 相同工作负载下三种桶布局的查找耗时（均匀键与高位冲突键）。 */
+    public static void testBinPolicyPerformance() {
+        System.out.println("\n====  桶布局 性能测试 ====");
+        final int N = 1 << 20;
+        final int ROUNDS = 5;
+        Integer[] uniform = new Integer[N];
+        Integer[] colliding = new Integer[N];
+        java.util.Random rnd = new java.util.Random(5L);
+        for (int i = 0; i < N; i++) {
+            uniform[i] = rnd.nextInt();
+            // identity 哈希下只有低 17 位参与桶选择，每桶约 8 个键
+            colliding[i] = (i >>> 3) | ((i & 7) << 24);
+        }
+
+        for (BinPolicy policy : BinPolicy.values()) {
+            StringBuilder line = new StringBuilder(policy.toString());
+            for (Integer[] keys : new Integer[][]{uniform, colliding}) {
+                HashTable<Integer, Integer> ht = new HashTable<>(16, HashStrategy.identity(), policy);
+                for (Integer k : keys) {
+                    ht.insert(k, k);
+                }
+                long best = Long.MAX_VALUE;
+                long sum = 0;
+                for (int r = 0; r < ROUNDS; r++) {
+                    long start = System.nanoTime();
+                    for (Integer k : keys) {
+                        sum += ht.get(k);
+                    }
+                    best = Math.min(best, System.nanoTime() - start);
+                }
+                assert sum != 1 : "";
+                line.append(keys == uniform ? " | 均匀键查找(ns/op): " : " | 每桶 8 键查找(ns/op): ").append(best / N);
+            }
+            System.out.println(line);
+        }
+    }
+
+    /** 非 2 的幂容量向上取整；负载因子决定扩容时机；按预期条目数预分配后加载过程中不再扩容。 */
+    public static void testCapacityRoundingAndLoadFactor() {
+        HashTable<Integer, Integer> ht = new HashTable<>(100);
+        assert ht.capacity() == 128 : "测试失败: 容量 100 应取整为 128，实际 " + ht.capacity();
+        for (int i = 0; i < 96; i++) {
+            ht.insert(i, i);
+        }
+        assert ht.capacity() == 128 : "测试失败: 96 个条目不应触发扩容";
+        assert ht.bucketLengthHistogram(2)[1] == 96 : "测试失败: 连续键应各占一个桶";
+
+        HashTable<Integer, Integer> dense = new HashTable<>(16, 2.0f);
+        for (int i = 0; i < 32; i++) {
+            dense.insert(i, i);
+        }
+        assert dense.capacity() == 16 : "测试失败: 负载因子 2 时 32 个条目不应扩容";
+        dense.insert(32, 32);
+        assert dense.capacity() == 32 : "测试失败: 超过阈值后应扩容到 32";
+
+        for (int expected : new int[]{0, 1, 12, 13, 1_000, 1_000_000}) {
+            HashTable<Integer, Integer> sized = HashTable.withExpectedSize(expected);
+            int capacity = sized.capacity();
+            for (int i = 0; i < expected; i++) {
+                sized.insert(i, i);
+            }
+            assert sized.capacity() == capacity : "测试失败: 预期 " + expected + " 个条目时加载中发生了扩容";
+            assert capacity == 2 || capacity / 2 * 0.75 < expected : "测试失败: 预期 " + expected + " 个条目时容量 " + capacity + " 过大";
+        }
+
+        for (float bad : new float[]{0f, -1f, Float.NaN, Float.POSITIVE_INFINITY}) {
+            try {
+                new HashTable<Integer, Integer>(16, bad);
+                assert false : "测试失败: 非法负载因子 " + bad + " 应抛出 IllegalArgumentException";
+            } catch (IllegalArgumentException expected) {
+                // ok
+            }
+        }
+    }
+
+    /** ensureCapacity 一次扩到位；trimToSize 在删除后收缩到最小容量，各种桶布局下内容不变。 */
+    public static void testEnsureCapacityAndTrimToSize() {
+        for (BinPolicy policy : BinPolicy.values()) {
+            HashTable<Integer, Integer> ht = new HashTable<>(16, HashStrategy.identity(), policy);
+            java.util.HashMap<Integer, Integer> ref = new java.util.HashMap<>();
+            ht.ensureCapacity(100_000);
+            int capacity = ht.capacity();
+            assert capacity == 262_144 : "测试失败: ensureCapacity(100000) 后容量应为 262144，实际 " + capacity;
+            java.util.Random rnd = new java.util.Random(23L);
+            for (int i = 0; i < 100_000; i++) {
+                // 一部分键只在高位不同，收缩后集中到同一个桶
+                int key = rnd.nextBoolean() ? rnd.nextInt() : (rnd.nextInt(256) << 20);
+                ht.insert(key, i);
+                ref.put(key, i);
+            }
+            assert ht.capacity() == capacity : "测试失败: ensureCapacity 之后加载中不应扩容";
+
+            java.util.Iterator<Integer> it = ref.keySet().iterator();
+            while (ref.size() > 1_000) {
+                Integer key = it.next();
+                it.remove();
+                assert ht.delete(key) : "测试失败: 删除失败 key=" + key;
+            }
+            ht.trimToSize();
+            assert ht.capacity() == 2048 : policy + " trimToSize 后容量应为 2048，实际 " + ht.capacity();
+            assert ht.size() == ref.size() : policy + " trimToSize 后 size 不一致";
+            for (java.util.Map.Entry<Integer, Integer> e : ref.entrySet()) {
+                assert e.getValue().equals(ht.get(e.getKey())) : policy + " trimToSize 后查找失败: key=" + e.getKey();
+            }
+            ht.ensureCapacity(10);
+            assert ht.capacity() == 2048 : "测试失败: ensureCapacity 不应缩小表";
+        }
+    }
+
+    /** 自动收缩：清空后回到最小容量；在阈值附近交替增删不会反复扩缩容；结果与 HashMap 一致。 */
+    public static void testAutoShrinkHysteresis() {
+        for (boolean incremental : new boolean[]{false, true}) {
+            HashTable<Integer, Integer> ht = new HashTable<>(16, HashStrategy.identity(), BinPolicy.TREE, incremental);
+            ht.setAutoShrink(true);
+            java.util.HashMap<Integer, Integer> ref = new java.util.HashMap<>();
+            java.util.Random rnd = new java.util.Random(2037L);
+            int n = 200_000;
+            for (int i = 0; i < n; i++) {
+                int key = rnd.nextBoolean() ? rnd.nextInt(1 << 24) : (rnd.nextInt(64) << 24);
+                ht.insert(key, i);
+                ref.put(key, i);
+            }
+            int peak = ht.capacity();
+            java.util.List<Integer> keys = new java.util.ArrayList<>(ref.keySet());
+            java.util.Collections.shuffle(keys, rnd);
+            for (int i = 0; i < keys.size(); i++) {
+                int key = keys.get(i);
+                if (i % 2 == 0) {
+                    assert ht.delete(key) : "测试失败: 自动收缩删除失败 key=" + key;
+                    ref.remove(key);
+                } else {
+                    assert ht.compute(key, (k, v) -> null) == null : "测试失败: compute 删除应返回 null";
+                    ref.remove(key);
+                }
+                if (i % 10_000 == 0) {
+                    for (int j = i + 1; j < Math.min(i + 200, keys.size()); j++) {
+                        Integer k = keys.get(j);
+                        assert ref.get(k).equals(ht.get(k)) : "测试失败: 收缩过程中查找失败 key=" + k;
+                    }
+                }
+            }
+            assert ht.size() == 0 : "测试失败: 全部删除后 size 应为 0";
+            assert ht.capacity() == 16 : "测试失败: 清空后应收缩到 16，实际 " + ht.capacity() + "（峰值 " + peak + "）";
+
+            // 在扩容边界附近交替插入删除：容量最多变化一次
+            for (int i = 0; i < 12; i++) {
+                ht.insert(i, i);
+            }
+            int changes = 0;
+            int last = ht.capacity();
+            for (int r = 0; r < 10_000; r++) {
+                ht.insert(100 + (r & 1), r);
+                ht.delete(100 + (r & 1));
+                if (ht.capacity() != last) {
+                    changes++;
+                    last = ht.capacity();
+                }
+            }
+            assert changes <= 1 : "测试失败: 边界处交替增删导致容量变化 " + changes + " 次";
+        }
+    }
+
+    /** 批处理场景：预分配加载 vs 逐步扩容，以及清洗后 trimToSize 前后的堆占用。 */
+    public static void testBulkLoadThenPurge() {
+        System.out.println("\n====  预分配加载与清洗收缩 测试 ====");
+        final int N = 2_000_000;
+        Integer[] keys = new Integer[N];
+        java.util.Random rnd = new java.util.Random(17L);
+        for (int i = 0; i < N; i++) {
+            keys[i] = rnd.nextInt();
+        }
+
+        long growing = Long.MAX_VALUE, presized = Long.MAX_VALUE;
+        for (int r = 0; r < 3; r++) {
+            long start = System.nanoTime();
+            HashTable<Integer, Integer> a = new HashTable<>();
+            for (Integer k : keys) {
+                a.insert(k, k);
+            }
+            growing = Math.min(growing, System.nanoTime() - start);
+
+            start = System.nanoTime();
+            HashTable<Integer, Integer> b = HashTable.withExpectedSize(N);
+            for (Integer k : keys) {
+                b.insert(k, k);
+            }
+            presized = Math.min(presized, System.nanoTime() - start);
+        }
+        System.out.println("逐步扩容加载(ms): " + growing / 1_000_000 + " | 预分配加载(ms): " + presized / 1_000_000);
+
+        HashTable<Integer, Integer> ht = HashTable.withExpectedSize(N);
+        for (Integer k : keys) {
+            ht.insert(k, k);
+        }
+        for (int i = 0; i < N - N / 100; i++) {
+            ht.delete(keys[i]);
+        }
+        long before = usedHeap();
+        ht.trimToSize();
+        long after = usedHeap();
+        assert ht.get(keys[N - 1]) != null : "测试失败: trimToSize 后丢失条目";
+        System.out.println("清洗 99% 后桶数组: trimToSize 前后堆占用差(MB): " + (before - after) / (1 << 20)
+                + " | 容量: " + ht.capacity());
+    }
+
+    /** 迭代器、spliterator 与 stream（含 parallel）在三种桶布局下覆盖全部条目；结构修改时快速失败。 */
+    public static void testIterationAgainstHashMap() {
+        for (BinPolicy policy : BinPolicy.values()) {
+            for (boolean incremental : new boolean[]{false, true}) {
+                HashTable<Integer, Integer> ht = new HashTable<>(16, HashStrategy.identity(), policy, incremental);
+                java.util.HashMap<Integer, Integer> ref = new java.util.HashMap<>();
+                java.util.Random rnd = new java.util.Random(2039L);
+                for (int i = 0; i < 100_000; i++) {
+                    int key = rnd.nextBoolean() ? rnd.nextInt() : (rnd.nextInt(64) << 20);
+                    ht.insert(key, i);
+                    ref.put(key, i);
+                }
+
+                java.util.HashMap<Integer, Integer> seen = new java.util.HashMap<>();
+                for (java.util.Map.Entry<Integer, Integer> e : ht) {
+                    assert seen.put(e.getKey(), e.getValue()) == null : policy + " 迭代器重复返回 key=" + e.getKey();
+                }
+                assert seen.equals(ref) : policy + " 迭代结果与 HashMap 不一致";
+
+                java.util.Map<Integer, Integer> collected = ht.stream().parallel()
+                        .collect(java.util.stream.Collectors.toMap(java.util.Map.Entry::getKey, java.util.Map.Entry::getValue));
+                assert collected.equals(ref) : policy + " parallel stream 结果与 HashMap 不一致";
+
+                java.util.HashMap<Integer, Integer> visited = new java.util.HashMap<>();
+                ht.forEach((k, v) -> visited.put(k, v));
+                assert visited.equals(ref) : policy + " forEach 结果与 HashMap 不一致";
+            }
+        }
+
+        HashTable<Integer, Integer> ht = new HashTable<>();
+        for (int i = 0; i < 100; i++) {
+            ht.insert(i, i);
+        }
+        try {
+            for (java.util.Map.Entry<Integer, Integer> e : ht) {
+                if (e.getKey() == 50) {
+                    ht.delete(e.getKey());
+                }
+            }
+            assert false : "测试失败: 迭代中删除应抛出 ConcurrentModificationException";
+        } catch (java.util.ConcurrentModificationException expected) {
+            // ok
+        }
+    }
+
+    /** forEach / reduce / search / removeIf 的并行与顺序结果一致，removeIf 后表结构与内容正确。 */
+    public static void testParallelBulkOperations() {
+        for (BinPolicy policy : BinPolicy.values()) {
+            HashTable<Integer, Long> ht = new HashTable<>(16, HashStrategy.identity(), policy);
+            java.util.HashMap<Integer, Long> ref = new java.util.HashMap<>();
+            java.util.Random rnd = new java.util.Random(2041L);
+            for (int i = 0; i < 200_000; i++) {
+                int key = rnd.nextBoolean() ? rnd.nextInt() : (rnd.nextInt(256) << 20);
+                ht.insert(key, (long) i);
+                ref.put(key, (long) i);
+            }
+            long expectedSum = ref.values().stream().mapToLong(Long::longValue).sum();
+
+            for (long threshold : new long[]{1, 1_000, Long.MAX_VALUE}) {
+                java.util.concurrent.atomic.LongAdder sum = new java.util.concurrent.atomic.LongAdder();
+                ht.forEach(threshold, (k, v) -> sum.add(v));
+                assert sum.sum() == expectedSum : policy + " 并行 forEach 求和不正确, threshold=" + threshold;
+
+                Long reduced = ht.reduce(threshold, (k, v) -> v, Long::sum);
+                assert reduced == expectedSum : policy + " 并行 reduce 结果不正确, threshold=" + threshold;
+                assert ht.reduce(threshold, (k, v) -> null, Long::sum) == null : "测试失败: 全部变换为 null 时应返回 null";
+
+                Integer target = 5 << 20;
+                Integer found = ht.search(threshold, (k, v) -> k.equals(target) ? k : null);
+                assert java.util.Objects.equals(found, ref.containsKey(target) ? target : null) : policy + " search 结果不正确";
+                assert ht.search(threshold, (k, v) -> v < 0 ? k : null) == null : "测试失败: 不存在的条目不应被找到";
+            }
+
+            ht.setAutoShrink(true);
+            int capacity = ht.capacity();
+            int removed = ht.removeIf(1, (k, v) -> v % 10 != 0);
+            int expectedRemoved = ref.size();
+            ref.values().removeIf(v -> v % 10 != 0);
+            expectedRemoved -= ref.size();
+            assert removed == expectedRemoved : policy + " removeIf 返回值不正确: " + removed + " 期望 " + expectedRemoved;
+            assert ht.size() == ref.size() : policy + " removeIf 后 size 不一致";
+            assert ht.capacity() < capacity : policy + " removeIf 之后应自动收缩";
+            for (java.util.Map.Entry<Integer, Long> e : ref.entrySet()) {
+                assert e.getValue().equals(ht.get(e.getKey())) : policy + " removeIf 后查找失败: key=" + e.getKey();
+            }
+            int[] histogram = ht.bucketLengthHistogram(1 << 12);
+            int total = 0;
+            for (int len = 0; len < histogram.length; len++) {
+                total += len * histogram[len];
+            }
+            assert total == ref.size() : policy + " removeIf 后桶内条目数之和不等于 size";
+            // 删除后的树桶仍可正常增删
+            for (int i = 0; i < 256; i++) {
+                ht.insert(i << 20, -1L);
+                assert ht.delete(i << 20) : policy + " removeIf 后树桶删除失败";
+            }
+            int before = ht.size();
+            assert ht.removeIf((k, v) -> false) == 0 && ht.size() == before : policy + " 无匹配的 removeIf 不应删除条目";
+        }
+    }
+
+    /** 对 1000 万条目做并行求和：1 线程与全部核心的耗时对比。 */
+    public static void testParallelScanScaling() {
+        System.out.println("\n====  并行扫描 测试 ====");
+        final int N = 10_000_000;
+        HashTable<Integer, Long> ht = HashTable.withExpectedSize(N);
+        for (int i = 0; i < N; i++) {
+            ht.insert(i, (long) i);
+        }
+        long expected = (long) N * (N - 1) / 2;
+        int cores = Runtime.getRuntime().availableProcessors();
+        for (int threads : java.util.stream.IntStream.of(1, cores).distinct().toArray()) {
+            java.util.concurrent.ForkJoinPool pool = new java.util.concurrent.ForkJoinPool(threads);
+            try {
+                long best = Long.MAX_VALUE;
+                for (int r = 0; r < 5; r++) {
+                    long start = System.nanoTime();
+                    long sum = pool.submit(() -> ht.reduce(10_000, (k, v) -> v, Long::sum)).join();
+                    best = Math.min(best, System.nanoTime() - start);
+                    assert sum == expected : "测试失败: 并行求和不正确";
+                }
+                System.out.println("线程数 " + threads + " | reduce 全表求和(ms): " + best / 1_000_000);
+            } finally {
+                pool.shutdown();
+            }
+        }
+    }
+
+    private static long usedHeap() {
+        Runtime rt = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return rt.totalMemory() - rt.freeMemory();
+    }
+
+    private static final class CountingKey {
+        static int calls;
+        final int id;
+
+        CountingKey(int id) {
+            this.id = id;
+        }
+
+        @Override
+        public int hashCode() {
+            calls++;
+            return id;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof CountingKey && ((CountingKey) o).id == id;
+        }
+    }
+
+    private static final class CollidingKey {
+        final int id;
+
+        CollidingKey(int id) {
+            this.id = id;
+        }
+
+        @Override
+        public int hashCode() {
+            return 42;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof CollidingKey && ((CollidingKey) o).id == id;
+        }
+    }
+}
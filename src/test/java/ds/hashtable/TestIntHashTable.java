@@ -0,0 +1,117 @@
+package ds.hashtable;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Random;
+
+public class TestIntHashTable {
+    public static void main(String[] args) {
+        basicInsertSelectDeleteTest();
+        testRandomOpsAgainstHashMap();
+        testFootprintAndLookupPerformance();
+    }
+
+    public static void basicInsertSelectDeleteTest() {
+        IntHashTable<String> table = new IntHashTable<>(4);
+
+        table.insert(0, "Zero");
+        table.insert(1, "Value 1");
+        table.insert(-1, "Value -1");
+        table.insert(Integer.MAX_VALUE, "Max");
+        table.insert(Integer.MIN_VALUE, "Min");
+
+        assert table.get(0).equals("Zero") : "测试失败: 键0的值不正确";
+        assert table.get(-1).equals("Value -1") : "测试失败: 键-1的值不正确";
+        assert table.get(Integer.MIN_VALUE).equals("Min") : "测试失败: 扩容后键MIN的值不正确";
+        assert table.size() == 5 : "测试失败: size 不正确";
+
+        assert table.delete(0) : "测试失败: 删除键0失败";
+        assert !table.delete(0) : "测试失败: 重复删除键0应返回false";
+        assert !table.delete(10) : "测试失败: 删除键10时应返回false";
+        assert table.get(0) == null : "测试失败: 键0未被删除";
+        assert table.size() == 4 : "测试失败: 删除后 size 不正确";
+    }
+
+    public static void testRandomOpsAgainstHashMap() {
+        IntHashTable<Integer> table = new IntHashTable<>(16);
+        Map<Integer, Integer> ref = new HashMap<>();
+        Random rnd = new Random(64L);
+
+        for (int op = 0; op < 300_000; op++) {
+            int key = (rnd.nextInt(8_000) - 4_000) * (rnd.nextBoolean() ? 1 : 1 << 20);
+            int kind = rnd.nextInt(10);
+            if (kind < 5) {
+                table.insert(key, op);
+                ref.put(key, op);
+            } else if (kind < 8) {
+                boolean removed = table.delete(key);
+                assert removed == (ref.remove(key) != null) : "删除返回值不正确: key=" + key;
+            } else {
+                assert Objects.equals(table.get(key), ref.get(key)) : "查找不一致: key=" + key;
+                assert table.containsKey(key) == ref.containsKey(key) : "containsKey 不一致: key=" + key;
+            }
+        }
+        assert table.size() == ref.size() : "size 不一致";
+        for (Map.Entry<Integer, Integer> e : ref.entrySet()) {
+            assert e.getValue().equals(table.get(e.getKey())) : "最终校验失败: key=" + e.getKey();
+        }
+    }
+
+    /** 与 HashTable<Integer, V> 对比：堆占用与查找耗时。 */
+    public static void testFootprintAndLookupPerformance() {
+        System.out.println("\n====  IntHashTable vs HashTable<Integer, V> ====");
+        final int N = 2_000_000;
+        final String VALUE = "V";
+        int[] keys = new int[N];
+        for (int i = 0; i < N; i++) {
+            keys[i] = (i + 1_000) * 0x9E3779B1;   // 乘奇数是双射：键互不相同、分布打散，且避开 Integer 缓存
+        }
+
+        long base = usedHeap();
+        IntHashTable<String> primitive = new IntHashTable<>();
+        for (int key : keys) {
+            primitive.insert(key, VALUE);
+        }
+        long primitiveBytes = usedHeap() - base;
+
+        base = usedHeap();
+        HashTable<Integer, String> boxed = new HashTable<>();
+        for (int key : keys) {
+            boxed.insert(key, VALUE);
+        }
+        long boxedBytes = usedHeap() - base;
+
+        long primitiveNanos = Long.MAX_VALUE, boxedNanos = Long.MAX_VALUE;
+        int found = 0;
+        for (int r = 0; r < 5; r++) {
+            long start = System.nanoTime();
+            for (int key : keys) {
+                if (primitive.get(key) != null) {
+                    found++;
+                }
+            }
+            primitiveNanos = Math.min(primitiveNanos, (System.nanoTime() - start) / N);
+
+            start = System.nanoTime();
+            for (int key : keys) {
+                if (boxed.get(key) != null) {
+                    found++;
+                }
+            }
+            boxedNanos = Math.min(boxedNanos, (System.nanoTime() - start) / N);
+        }
+        assert found == 10 * N : "查找结果数不正确";
+
+        System.out.println("IntHashTable         每条目堆占用(字节): " + primitiveBytes / N + " 查找(ns): " + primitiveNanos);
+        System.out.println("HashTable<Integer,V> 每条目堆占用(字节): " + boxedBytes / N + " 查找(ns): " + boxedNanos);
+    }
+
+    private static long usedHeap() {
+        Runtime rt = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return rt.totalMemory() - rt.freeMemory();
+    }
+}
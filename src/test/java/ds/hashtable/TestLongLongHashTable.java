@@ -0,0 +1,113 @@
+package ds.hashtable;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+public class TestLongLongHashTable {
+    public static void main(String[] args) {
+        basicInsertSelectDeleteTest();
+        testRandomOpsAgainstHashMap();
+        testFootprintAndLookupPerformance();
+    }
+
+    public static void basicInsertSelectDeleteTest() {
+        LongLongHashTable table = new LongLongHashTable(4, 0.75f, -1L);
+
+        table.insert(0L, 100L);
+        table.insert(1L, 101L);
+        table.insert(2L, 102L);
+        table.insert(3L, 103L);
+        table.insert(4L, 104L);
+
+        assert table.get(0L) == 100L : "测试失败: 键0的值不正确";
+        assert table.get(4L) == 104L : "测试失败: 扩容后键4的值不正确";
+        assert table.get(5L) == -1L : "测试失败: 不存在的键应返回 noEntryValue";
+        assert table.size() == 5 : "测试失败: size 不正确";
+
+        assert table.delete(0L) : "测试失败: 删除键0失败";
+        assert table.get(0L) == -1L : "测试失败: 键0未被删除";
+        assert !table.containsKey(0L) : "测试失败: 键0未被删除";
+        assert !table.delete(10L) : "测试失败: 删除键10时应返回false";
+        assert table.size() == 4 : "测试失败: 删除后 size 不正确";
+    }
+
+    public static void testRandomOpsAgainstHashMap() {
+        LongLongHashTable table = new LongLongHashTable();
+        Map<Long, Long> ref = new HashMap<>();
+        Random rnd = new Random(128L);
+
+        for (int op = 0; op < 300_000; op++) {
+            long key = (rnd.nextInt(8_000) - 4_000) * (rnd.nextBoolean() ? 1L : 1L << 40);
+            int kind = rnd.nextInt(10);
+            if (kind < 5) {
+                table.insert(key, op);
+                ref.put(key, (long) op);
+            } else if (kind < 8) {
+                boolean removed = table.delete(key);
+                assert removed == (ref.remove(key) != null) : "删除返回值不正确: key=" + key;
+            } else {
+                Long expected = ref.get(key);
+                assert table.containsKey(key) == (expected != null) : "containsKey 不一致: key=" + key;
+                assert table.get(key) == (expected == null ? table.getNoEntryValue() : expected) : "查找不一致: key=" + key;
+            }
+        }
+        assert table.size() == ref.size() : "size 不一致";
+        for (Map.Entry<Long, Long> e : ref.entrySet()) {
+            assert table.get(e.getKey()) == e.getValue() : "最终校验失败: key=" + e.getKey();
+        }
+    }
+
+    /** 与 HashTable<Long, Long> 对比：堆占用与查找耗时。 */
+    public static void testFootprintAndLookupPerformance() {
+        System.out.println("\n====  LongLongHashTable vs HashTable<Long, Long> ====");
+        final int N = 2_000_000;
+        long[] keys = new long[N];
+        Random rnd = new Random(2L);
+        for (int i = 0; i < N; i++) {
+            keys[i] = rnd.nextLong();
+        }
+
+        long base = usedHeap();
+        LongLongHashTable primitive = new LongLongHashTable();
+        for (long key : keys) {
+            primitive.insert(key, key + 1);
+        }
+        long primitiveBytes = usedHeap() - base;
+
+        base = usedHeap();
+        HashTable<Long, Long> boxed = new HashTable<>();
+        for (long key : keys) {
+            boxed.insert(key, key + 1);
+        }
+        long boxedBytes = usedHeap() - base;
+
+        long primitiveNanos = Long.MAX_VALUE, boxedNanos = Long.MAX_VALUE;
+        long sum = 0;
+        for (int r = 0; r < 5; r++) {
+            long start = System.nanoTime();
+            for (long key : keys) {
+                sum += primitive.get(key);
+            }
+            primitiveNanos = Math.min(primitiveNanos, (System.nanoTime() - start) / N);
+
+            start = System.nanoTime();
+            for (long key : keys) {
+                sum -= boxed.get(key);
+            }
+            boxedNanos = Math.min(boxedNanos, (System.nanoTime() - start) / N);
+        }
+        assert sum == 0 : "两种实现的查找结果不一致";
+
+        System.out.println("LongLongHashTable      每条目堆占用(字节): " + primitiveBytes / N + " 查找(ns): " + primitiveNanos);
+        System.out.println("HashTable<Long, Long>  每条目堆占用(字节): " + boxedBytes / N + " 查找(ns): " + boxedNanos);
+    }
+
+    private static long usedHeap() {
+        Runtime rt = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return rt.totalMemory() - rt.freeMemory();
+    }
+}
@@ -0,0 +1,192 @@
+package ds.hashtable;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Random;
+
+public class TestLruCache {
+    // 防止查找结果被 JIT 当作死代码消除
+    private static int sink;
+
+    public static void main(String[] args) {
+        basicEvictionTest();
+        testRandomOpsAgainstLinkedHashMap();
+        testComputeIfAbsentAndCounters();
+        testZipfianHitRateAndThroughput();
+    }
+
+    public static void basicEvictionTest() {
+        LruCache<Integer, String> cache = new LruCache<>(3);
+        cache.insert(1, "Value 1");
+        cache.insert(2, "Value 2");
+        cache.insert(3, "Value 3");
+        assert cache.eldestKey() == 1 : "测试失败: 最早插入的键应为 1";
+
+        assert cache.get(1).equals("Value 1") : "测试失败: 键1的值不正确";
+        cache.insert(4, "Value 4");
+        assert cache.size() == 3 : "测试失败: 超出容量后 size 应为 3";
+        assert cache.peek(2) == null : "测试失败: 最久未使用的键2应被淘汰";
+        assert cache.peek(1) != null : "测试失败: 刚访问过的键1不应被淘汰";
+        assert cache.evictionCount() == 1 : "测试失败: 淘汰计数应为 1";
+
+        cache.insert(3, "Value 3'");
+        cache.insert(5, "Value 5");
+        assert cache.peek(1) == null : "测试失败: 覆盖写键3后键1成为最久未使用，应被淘汰";
+        assert cache.get(3).equals("Value 3'") : "测试失败: 覆盖写后键3的值不正确";
+
+        assert cache.delete(4) : "测试失败: 删除键4失败";
+        assert !cache.delete(4) : "测试失败: 重复删除键4应返回false";
+        assert cache.size() == 2 : "测试失败: 删除后 size 不正确";
+
+        try {
+            new LruCache<Integer, Integer>(0);
+            assert false : "测试失败: 容量为 0 应抛出 IllegalArgumentException";
+        } catch (IllegalArgumentException expected) {
+            // ok
+        }
+    }
+
+    /** 随机操作与访问顺序的 LinkedHashMap（removeEldestEntry）对照，含同桶冲突键。 */
+    public static void testRandomOpsAgainstLinkedHashMap() {
+        final int MAX = 1_000;
+        LruCache<Integer, Integer> cache = new LruCache<>(MAX, HashStrategy.identity());
+        Map<Integer, Integer> ref = new LinkedHashMap<Integer, Integer>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, Integer> eldest) {
+                return size() > MAX;
+            }
+        };
+        Random rnd = new Random(2043L);
+        long evictions = 0;
+
+        for (int op = 0; op < 500_000; op++) {
+            // 一部分键只在高位不同，落入同一个桶
+            int key = rnd.nextBoolean() ? rnd.nextInt(3_000) : (rnd.nextInt(64) << 20);
+            int kind = rnd.nextInt(10);
+            if (kind < 4) {
+                boolean full = ref.size() == MAX && !ref.containsKey(key);
+                cache.insert(key, op);
+                ref.put(key, op);
+                if (full) {
+                    evictions++;
+                }
+            } else if (kind < 5) {
+                boolean removed = cache.delete(key);
+                assert removed == (ref.remove(key) != null) : "删除返回值不正确: key=" + key;
+            } else {
+                assert Objects.equals(cache.get(key), ref.get(key)) : "查找不一致: op=" + op + " key=" + key;
+            }
+            assert cache.size() == ref.size() : "size 不一致: op=" + op;
+            if (!ref.isEmpty()) {
+                assert ref.keySet().iterator().next().equals(cache.eldestKey()) : "淘汰顺序不一致: op=" + op;
+            }
+        }
+        for (Map.Entry<Integer, Integer> e : ref.entrySet()) {
+            assert e.getValue().equals(cache.peek(e.getKey())) : "最终校验失败: key=" + e.getKey();
+        }
+        assert cache.evictionCount() == evictions : "淘汰计数不正确: " + cache.evictionCount() + " 期望 " + evictions;
+    }
+
+    public static void testComputeIfAbsentAndCounters() {
+        LruCache<Integer, String> cache = new LruCache<>(2);
+        int[] loads = {0};
+        java.util.function.Function<Integer, String> loader = k -> {
+            loads[0]++;
+            return k < 0 ? null : "V" + k;
+        };
+        assert cache.computeIfAbsent(1, loader).equals("V1") : "测试失败: 首次加载值不正确";
+        assert cache.computeIfAbsent(1, loader).equals("V1") : "测试失败: 命中时值不正确";
+        assert loads[0] == 1 : "测试失败: 命中时不应调用加载函数";
+        assert cache.computeIfAbsent(-1, loader) == null : "测试失败: 加载结果为 null 时应返回 null";
+        assert cache.peek(-1) == null : "测试失败: null 结果不应被缓存";
+
+        cache.computeIfAbsent(2, loader);
+        cache.computeIfAbsent(3, loader);
+        assert cache.peek(1) == null && cache.evictionCount() == 1 : "测试失败: 加载新键后应淘汰键1";
+        assert cache.hitCount() == 1 && cache.missCount() == 4 : "测试失败: 命中/未命中计数不正确";
+        assert Math.abs(cache.hitRate() - 0.2) < 1e-9 : "测试失败: 命中率不正确";
+
+        cache.resetStats();
+        assert cache.hitCount() == 0 && cache.missCount() == 0 && cache.hitRate() == 0.0 : "测试失败: 重置统计失败";
+        cache.clear();
+        assert cache.size() == 0 && cache.eldestKey() == null && cache.get(2) == null : "测试失败: clear 后应为空";
+    }
+
+    /** Zipf 分布访问（theta = 0.99）：不同缓存容量下的命中率，以及与 LinkedHashMap 的吞吐对比。 */
+    public static void testZipfianHitRateAndThroughput() {
+        System.out.println("\n====  LruCache Zipf 命中率与吞吐 测试 ====");
+        final int KEYS = 1_000_000;
+        final int OPS = 5_000_000;
+        int[] trace = zipfTrace(KEYS, OPS, 0.99, 47L);
+        Integer[] keys = new Integer[KEYS];
+        for (int i = 0; i < KEYS; i++) {
+            keys[i] = i;
+        }
+        java.util.function.Function<Integer, Integer> loader = k -> k;
+
+        for (int max : new int[]{1_000, 10_000, 100_000}) {
+            long cacheBest = Long.MAX_VALUE, lhmBest = Long.MAX_VALUE;
+            double hitRate = 0, lhmHitRate = 0;
+            for (int r = 0; r < 3; r++) {
+                LruCache<Integer, Integer> cache = new LruCache<>(max);
+                long start = System.nanoTime();
+                for (int i : trace) {
+                    sink += cache.computeIfAbsent(keys[i], loader);
+                }
+                cacheBest = Math.min(cacheBest, System.nanoTime() - start);
+                hitRate = cache.hitRate();
+
+                final int bound = max;
+                Map<Integer, Integer> lhm = new LinkedHashMap<Integer, Integer>(16, 0.75f, true) {
+                    @Override
+                    protected boolean removeEldestEntry(Map.Entry<Integer, Integer> eldest) {
+                        return size() > bound;
+                    }
+                };
+                long hits = 0;
+                start = System.nanoTime();
+                for (int i : trace) {
+                    Integer v = lhm.get(keys[i]);
+                    if (v == null) {
+                        v = loader.apply(keys[i]);
+                        lhm.put(keys[i], v);
+                    } else {
+                        hits++;
+                    }
+                    sink += v;
+                }
+                lhmBest = Math.min(lhmBest, System.nanoTime() - start);
+                lhmHitRate = (double) hits / OPS;
+            }
+            assert Math.abs(hitRate - lhmHitRate) < 1e-9 : "测试失败: 与 LinkedHashMap 的命中率应一致";
+            System.out.printf("容量 %d | 命中率: %.3f | LruCache(ns/op): %d | LinkedHashMap(ns/op): %d%n",
+                    max, hitRate, cacheBest / OPS, lhmBest / OPS);
+        }
+    }
+
+    /** Zipf 分布的键下标（Gray 等人的近似生成法，与 YCSB 相同）。 */
+    private static int[] zipfTrace(int n, int length, double theta, long seed) {
+        double zetan = 0;
+        for (int i = 1; i <= n; i++) {
+            zetan += 1 / Math.pow(i, theta);
+        }
+        double zeta2 = 1 + 1 / Math.pow(2, theta);
+        double alpha = 1.0 / (1.0 - theta);
+        double eta = (1 - Math.pow(2.0 / n, 1 - theta)) / (1 - zeta2 / zetan);
+        Random rnd = new Random(seed);
+        int[] trace = new int[length];
+        for (int i = 0; i < length; i++) {
+            double u = rnd.nextDouble();
+            double uz = u * zetan;
+            if (uz < 1.0) {
+                trace[i] = 0;
+            } else if (uz < 1.0 + Math.pow(0.5, theta)) {
+                trace[i] = 1;
+            } else {
+                trace[i] = Math.min((int) (n * Math.pow(eta * u - eta + 1, alpha)), n - 1);
+            }
+        }
+        return trace;
+    }
+}
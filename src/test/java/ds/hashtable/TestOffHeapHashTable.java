@@ -0,0 +1,257 @@
+package ds.hashtable;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+public class TestOffHeapHashTable {
+    public static void main(String[] args) {
+        basicInsertSelectDeleteTest();
+        testRandomOpsAgainstHashMap();
+        testCloseReleasesTable();
+        testCapacityValidation();
+        testInsertFailsCleanlyAtLimit();
+        testSmallChunksAgainstHashMap();
+        testHeapAndGcAgainstOnHeapTable();
+    }
+
+    public static void basicInsertSelectDeleteTest() {
+        try (OffHeapHashTable table = new OffHeapHashTable(8, 8, 4)) {
+            for (long k = 1; k <= 5; k++) {
+                table.insert(bytes(k), bytes(k * 100));
+            }
+
+            assert Arrays.equals(table.get(bytes(1)), bytes(100)) : "测试失败: 键1的值不正确";
+            assert Arrays.equals(table.get(bytes(5)), bytes(500)) : "测试失败: 扩容后键5的值不正确";
+
+            table.insert(bytes(5), bytes(555));
+            assert Arrays.equals(table.get(bytes(5)), bytes(555)) : "测试失败: 覆盖写后键5的值不正确";
+            assert table.size() == 5 : "测试失败: 覆盖写不应改变 size";
+
+            assert table.delete(bytes(2)) : "测试失败: 删除键2失败";
+            assert !table.delete(bytes(10)) : "测试失败: 删除键10时应返回false";
+            assert table.get(bytes(2)) == null : "测试失败: 键2未被删除";
+            assert table.size() == 4 : "测试失败: 删除后 size 不正确";
+        }
+    }
+
+    /** 非 8 字节对齐的键宽（12 字节），覆盖逐字节比较路径。 */
+    public static void testRandomOpsAgainstHashMap() {
+        try (OffHeapHashTable table = new OffHeapHashTable(12, 4)) {
+            Map<Long, Integer> ref = new HashMap<>();
+            Random rnd = new Random(7L);
+            byte[] value = new byte[4];
+
+            for (int op = 0; op < 200_000; op++) {
+                long k = rnd.nextInt(20_000);
+                byte[] key = ByteBuffer.allocate(12).putLong(k).putInt((int) (k * 31)).array();
+                int kind = rnd.nextInt(10);
+                if (kind < 5) {
+                    table.insert(key, ByteBuffer.allocate(4).putInt(op).array());
+                    ref.put(k, op);
+                } else if (kind < 8) {
+                    boolean removed = table.delete(key);
+                    assert removed == (ref.remove(k) != null) : "删除返回值不正确: key=" + k;
+                } else {
+                    Integer expected = ref.get(k);
+                    boolean found = table.get(key, value);
+                    assert found == (expected != null) : "查找结果不一致: key=" + k;
+                    assert !found || ByteBuffer.wrap(value).getInt() == expected : "查找值不一致: key=" + k;
+                }
+            }
+            assert table.size() == ref.size() : "size 不一致";
+        }
+    }
+
+    public static void testCloseReleasesTable() {
+        OffHeapHashTable table = new OffHeapHashTable(8, 8);
+        table.insert(bytes(1), bytes(2));
+        assert table.offHeapBytes() > 0 : "测试失败: 未分配堆外内存";
+        table.close();
+        assert table.offHeapBytes() == 0 : "测试失败: close 后仍持有堆外内存";
+        table.close();   // 重复 close 无副作用
+        try {
+            table.get(bytes(1));
+            assert false : "测试失败: close 后访问应抛出 IllegalStateException";
+        } catch (IllegalStateException expected) {
+            // ok
+        }
+    }
+
+    public static void testCapacityValidation() {
+        try {
+            new OffHeapHashTable(8, 8, -1);
+            assert false : "测试失败: 负容量应抛出 IllegalArgumentException";
+        } catch (IllegalArgumentException expected) {
+            // ok
+        }
+        // 超过 2^30 的容量不应溢出为负数，而应按参数错误报告超出内存上限
+        try {
+            new OffHeapHashTable(8, 8, Integer.MAX_VALUE, 1L << 30);
+            assert false : "测试失败: 超出内存上限的容量应抛出 IllegalArgumentException";
+        } catch (IllegalArgumentException expected) {
+            assert expected.getMessage().contains("maxOffHeapBytes") : "测试失败: 异常信息应说明超出内存上限";
+        }
+    }
+
+    /** 内存上限 1024 个槽位（阈值 768 条）：装满后插入新键失败，表保持不变且查找仍能结束。 */
+    public static void testInsertFailsCleanlyAtLimit() {
+        try (OffHeapHashTable table = new OffHeapHashTable(8, 8, 16, 1024 * 20)) {
+            int inserted = 0;
+            try {
+                for (long k = 1; ; k++) {
+                    table.insert(bytes(k), bytes(k * 100));
+                    inserted++;
+                }
+            } catch (IllegalStateException expected) {
+                // ok
+            }
+            assert inserted == 768 && table.size() == 768 : "测试失败: 达到上限时应有 768 条, 实际 " + inserted;
+            assert table.offHeapBytes() == 1024 * 20 : "测试失败: 堆外内存不应超过上限";
+            for (long k = 1; k <= inserted; k++) {
+                assert Arrays.equals(table.get(bytes(k)), bytes(k * 100)) : "测试失败: 失败的插入不应影响已有键 " + k;
+            }
+            assert table.get(bytes(inserted + 1)) == null : "测试失败: 被拒绝的键不应写入";
+            assert !table.delete(bytes(-5)) : "测试失败: 删除不存在的键应返回 false";
+
+            table.insert(bytes(1), bytes(111));
+            assert Arrays.equals(table.get(bytes(1)), bytes(111)) : "测试失败: 满表时覆盖写已有键应成功";
+            assert table.delete(bytes(2)) : "测试失败: 满表时删除应成功";
+            table.insert(bytes(10_000), bytes(1));
+            assert table.size() == 768 : "测试失败: 删除后应能再插入一个新键";
+            try {
+                table.insert(bytes(10_001), bytes(1));
+                assert false : "测试失败: 再次满表后插入新键应抛出 IllegalStateException";
+            } catch (IllegalStateException expected) {
+                assert table.size() == 768 : "测试失败: 插入失败后 size 不应改变";
+            }
+        }
+    }
+
+    /** 每块只有 64 个槽位：探测、回移与扩容都会跨越块边界。 */
+    public static void testSmallChunksAgainstHashMap() {
+        try (OffHeapHashTable table = new OffHeapHashTable(8, 8, 16, Long.MAX_VALUE, 64 * 20)) {
+            Map<Long, Long> ref = new HashMap<>();
+            Random rnd = new Random(11L);
+            byte[] value = new byte[8];
+
+            for (int op = 0; op < 200_000; op++) {
+                long k = rnd.nextInt(5_000);
+                int kind = rnd.nextInt(10);
+                if (kind < 5) {
+                    table.insert(bytes(k), bytes(op));
+                    ref.put(k, (long) op);
+                } else if (kind < 8) {
+                    boolean removed = table.delete(bytes(k));
+                    assert removed == (ref.remove(k) != null) : "删除返回值不正确: key=" + k;
+                } else {
+                    Long expected = ref.get(k);
+                    boolean found = table.get(bytes(k), value);
+                    assert found == (expected != null) : "查找结果不一致: key=" + k;
+                    assert !found || Arrays.equals(value, bytes(expected)) : "查找值不一致: key=" + k;
+                }
+            }
+            assert table.size() == ref.size() : "size 不一致";
+            assert table.offHeapBytes() > 64 * 20 : "测试失败: 应已分成多个块";
+        }
+    }
+
+    /** 与 HashTable<Long, Long> 对比：堆占用、Full GC 停顿与吞吐。 */
+    public static void testHeapAndGcAgainstOnHeapTable() {
+        System.out.println("\n====  堆外 vs 堆内 ====");
+        final int N = 5_000_000;
+        final long SCRAMBLE = 0x9E3779B97F4A7C15L;   // 乘奇数是双射：键互不相同且无规律，两边都走随机访问
+
+        long base = usedHeap();
+        long start = System.nanoTime();
+        HashTable<Long, Long> onHeap = new HashTable<>();
+        for (long k = 0; k < N; k++) {
+            onHeap.insert(k * SCRAMBLE, k);
+        }
+        long onHeapInsert = System.nanoTime() - start;
+        long onHeapBytes = usedHeap() - base;
+        long onHeapGc = measureFullGcMillis();
+        start = System.nanoTime();
+        long sum = 0;
+        for (long k = 0; k < N; k++) {
+            sum += onHeap.get(k * SCRAMBLE);
+        }
+        long onHeapGet = System.nanoTime() - start;
+        onHeap = null;
+
+        base = usedHeap();
+        long offHeapBytes;
+        long offHeapInsert, offHeapGet, offHeapGc, offHeapUsed;
+        byte[] key = new byte[8];
+        byte[] value = new byte[8];
+        try (OffHeapHashTable offHeap = new OffHeapHashTable(8, 8)) {
+            start = System.nanoTime();
+            for (long k = 0; k < N; k++) {
+                fill(key, k * SCRAMBLE);
+                fill(value, k);
+                offHeap.insert(key, value);
+            }
+            offHeapInsert = System.nanoTime() - start;
+            offHeapUsed = usedHeap() - base;
+            offHeapGc = measureFullGcMillis();
+            start = System.nanoTime();
+            for (long k = 0; k < N; k++) {
+                fill(key, k * SCRAMBLE);
+                offHeap.get(key, value);
+                sum -= ByteBuffer.wrap(value).getLong();
+            }
+            offHeapGet = System.nanoTime() - start;
+            offHeapBytes = offHeap.offHeapBytes();
+        }
+        assert sum == 0 : "两种实现的查找结果不一致";
+
+        System.out.println("HashTable<Long,Long> 堆占用(MB): " + onHeapBytes / (1 << 20)
+                + " Full GC(ms): " + onHeapGc
+                + " 插入(ns/op): " + onHeapInsert / N + " 查找(ns/op): " + onHeapGet / N);
+        System.out.println("OffHeapHashTable     堆占用(MB): " + offHeapUsed / (1 << 20)
+                + " 堆外(MB): " + offHeapBytes / (1 << 20)
+                + " Full GC(ms): " + offHeapGc
+                + " 插入(ns/op): " + offHeapInsert / N + " 查找(ns/op): " + offHeapGet / N);
+    }
+
+    private static long measureFullGcMillis() {
+        long before = totalGcMillis();
+        long start = System.nanoTime();
+        System.gc();
+        long wall = (System.nanoTime() - start) / 1_000_000;
+        return Math.max(wall, totalGcMillis() - before);
+    }
+
+    private static long totalGcMillis() {
+        long total = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            total += Math.max(0, gc.getCollectionTime());
+        }
+        return total;
+    }
+
+    private static long usedHeap() {
+        Runtime rt = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return rt.totalMemory() - rt.freeMemory();
+    }
+
+    private static byte[] bytes(long v) {
+        byte[] b = new byte[8];
+        fill(b, v);
+        return b;
+    }
+
+    private static void fill(byte[] b, long v) {
+        for (int i = 7; i >= 0; i--) {
+            b[i] = (byte) v;
+            v >>>= 8;
+        }
+    }
+}
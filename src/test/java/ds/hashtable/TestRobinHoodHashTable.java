@@ -0,0 +1,142 @@
+package ds.hashtable;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Random;
+
+public class TestRobinHoodHashTable {
+    // 防止查找结果被 JIT 当作死代码消除
+    private static int sink;
+
+    public static void main(String[] args) {
+        basicInsertSelectDeleteTest();
+        testRandomOpsAgainstHashMap();
+        testLoadFactorPerformance();
+    }
+
+    public static void basicInsertSelectDeleteTest() {
+        RobinHoodHashTable<Integer, String> table = new RobinHoodHashTable<>(4);
+
+        table.insert(1, "Value 1");
+        table.insert(2, "Value 2");
+        table.insert(3, "Value 3");
+        table.insert(4, "Value 4");
+
+        assert table.get(1).equals("Value 1") : "测试失败: 键1的值不正确";
+        assert table.get(2).equals("Value 2") : "测试失败: 键2的值不正确";
+
+        table.insert(5, "Value 5");
+        assert table.get(5).equals("Value 5") : "测试失败: 扩容后键5的值不正确";
+
+        table.insert(5, "Value 5'");
+        assert table.get(5).equals("Value 5'") : "测试失败: 覆盖写后键5的值不正确";
+        assert table.size() == 5 : "测试失败: 覆盖写不应改变 size";
+
+        assert table.delete(2) : "测试失败: 删除键2失败";
+        assert !table.delete(10) : "测试失败: 删除键10时应返回false";
+
+        assert table.get(2) == null : "测试失败: 键2未被删除";
+        assert table.size() == 4 : "测试失败: 删除后 size 不正确";
+    }
+
+    /** 高负载因子 + identity 哈希（制造长探测序列），随机操作与 HashMap 对照，覆盖回移删除。 */
+    public static void testRandomOpsAgainstHashMap() {
+        for (float loadFactor : new float[]{0.5f, 0.9f}) {
+            RobinHoodHashTable<Integer, Integer> table =
+                    new RobinHoodHashTable<>(16, loadFactor, HashStrategy.identity());
+            Map<Integer, Integer> ref = new HashMap<>();
+            Random rnd = new Random(31L);
+
+            for (int op = 0; op < 200_000; op++) {
+                // 键集中在少数几个 home slot 附近，探测序列很长
+                int key = rnd.nextInt(4_000) * (rnd.nextBoolean() ? 1 : 64);
+                int kind = rnd.nextInt(10);
+                if (kind < 5) {
+                    table.insert(key, op);
+                    ref.put(key, op);
+                } else if (kind < 8) {
+                    boolean removed = table.delete(key);
+                    assert removed == (ref.remove(key) != null) : "删除返回值不正确: key=" + key;
+                } else {
+                    assert Objects.equals(table.get(key), ref.get(key)) : "查找不一致: key=" + key;
+                }
+                assert table.size() == ref.size() : "size 不一致: op=" + op;
+            }
+            for (Map.Entry<Integer, Integer> e : ref.entrySet()) {
+                assert e.getValue().equals(table.get(e.getKey())) : "最终校验失败: key=" + e.getKey();
+            }
+        }
+    }
+
+    /** 与 HashTable 对比：不同负载因子下的命中/未命中查找耗时。 */
+    public static void testLoadFactorPerformance() {
+        System.out.println("\n====  开放寻址 vs 链式 性能测试 ====");
+        final int CAPACITY = 1 << 20;
+        final int ROUNDS = 5;
+        Random rnd = new Random(7L);
+
+        for (float loadFactor : new float[]{0.5f, 0.6f, 0.7f, 0.8f, 0.9f}) {
+            int n = (int) (CAPACITY * loadFactor);
+            Integer[] hits = new Integer[n];
+            Integer[] misses = new Integer[n];
+            for (int i = 0; i < n; i++) {
+                hits[i] = rnd.nextInt() & ~1;      // 偶数：表中存在
+                misses[i] = rnd.nextInt() | 1;     // 奇数：表中不存在
+            }
+
+            RobinHoodHashTable<Integer, String> open = new RobinHoodHashTable<>(CAPACITY, loadFactor);
+            HashTable<Integer, String> chained = new HashTable<>(CAPACITY);
+            long start = System.nanoTime();
+            for (Integer key : hits) {
+                open.insert(key, "V");
+            }
+            long openInsert = (System.nanoTime() - start) / n;
+            start = System.nanoTime();
+            for (Integer key : hits) {
+                chained.insert(key, "V");
+            }
+            long chainedInsert = (System.nanoTime() - start) / n;
+
+            long openHit = 0, openMiss = 0, chainedHit = 0, chainedMiss = 0;
+            for (int r = 0; r < ROUNDS; r++) {
+                openHit += measureLookupNanos(open, hits);
+                openMiss += measureLookupNanos(open, misses);
+                chainedHit += measureLookupNanos(chained, hits);
+                chainedMiss += measureLookupNanos(chained, misses);
+            }
+
+            System.out.println("负载因子 " + loadFactor + " (" + n + " 个条目)");
+            System.out.println("  RobinHoodHashTable 插入(ns): " + openInsert
+                    + " 命中查找(ns): " + openHit / ROUNDS + " 未命中查找(ns): " + openMiss / ROUNDS);
+            System.out.println("  HashTable          插入(ns): " + chainedInsert
+                    + " 命中查找(ns): " + chainedHit / ROUNDS + " 未命中查找(ns): " + chainedMiss / ROUNDS);
+        }
+    }
+
+    private static long measureLookupNanos(RobinHoodHashTable<Integer, String> table, Integer[] keys) {
+        int found = 0;
+        long start = System.nanoTime();
+        for (Integer key : keys) {
+            if (table.get(key) != null) {
+                found++;
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+        sink += found;
+        return elapsed / keys.length;
+    }
+
+    private static long measureLookupNanos(HashTable<Integer, String> table, Integer[] keys) {
+        int found = 0;
+        long start = System.nanoTime();
+        for (Integer key : keys) {
+            if (table.get(key) != null) {
+                found++;
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+        sink += found;
+        return elapsed / keys.length;
+    }
+}
@@ -0,0 +1,251 @@
+package ds.rbtree;
+
+import java.util.*;
+
+public class TestArrayRedBlackTree {
+
+    public static void main(String[] args) {
+        try {
+            testRandomOpsAgainstTreeMap();
+            testFreeSlotsAreReused();
+            testCursorAndIterator();
+            testCompact();
+            System.out.println("所有 ArrayRedBlackTree 测试通过");
+
+            testFootprintAndScanPerformance();
+        } catch (AssertionError e) {
+            System.err.println(e.getMessage());
+            throw e;
+        }
+    }
+
+    private static void testRandomOpsAgainstTreeMap() {
+        ArrayRedBlackTree<Integer, Integer> t = new ArrayRedBlackTree<>(4);
+        TreeMap<Integer, Integer> ref = new TreeMap<>();
+        Random rnd = new Random(1616L);
+
+        for (int op = 0; op < 200_000; op++) {
+            int key = rnd.nextInt(5_000);
+            int kind = rnd.nextInt(10);
+            if (kind < 5) {
+                boolean inserted = t.insert(key, op);
+                if (inserted != (ref.putIfAbsent(key, op) == null)) {
+                    throw new AssertionError("insert result mismatch: key=" + key);
+                }
+            } else if (kind < 8) {
+                if (t.delete(key) != (ref.remove(key) != null)) {
+                    throw new AssertionError("delete result mismatch: key=" + key);
+                }
+            } else {
+                if (!Objects.equals(t.get(key), ref.get(key))
+                        || !Objects.equals(t.floor(key), ref.floorKey(key))
+                        || !Objects.equals(t.ceiling(key), ref.ceilingKey(key))) {
+                    throw new AssertionError("lookup mismatch: key=" + key);
+                }
+            }
+            if (op % 5_000 == 0 && !t.validateRBTree()) {
+                throw new AssertionError("RB property violated at op " + op);
+            }
+        }
+        if (!t.validateRBTree() || t.size() != ref.size()) {
+            throw new AssertionError("final state mismatch");
+        }
+        if (!Objects.equals(t.firstKey(), ref.firstKey()) || !Objects.equals(t.lastKey(), ref.lastKey())) {
+            throw new AssertionError("first/last key mismatch");
+        }
+        for (Map.Entry<Integer, Integer> e : ref.entrySet()) {
+            if (!e.getValue().equals(t.get(e.getKey()))) {
+                throw new AssertionError("final value mismatch: key=" + e.getKey());
+            }
+        }
+    }
+
+    private static void testFreeSlotsAreReused() {
+        final int N = 10_000;
+        ArrayRedBlackTree<Integer, Integer> t = new ArrayRedBlackTree<>();
+        for (int i = 0; i < N; i++) {
+            t.insert(i, i);
+        }
+        int capacity = t.capacity();
+        // 反复删除再插入新键：空闲槽位复用，容量不应继续增长
+        Random rnd = new Random(3L);
+        int nextKey = N;
+        for (int round = 0; round < 20; round++) {
+            for (int i = 0; i < N / 2; i++) {
+                t.delete(t.firstKey());
+            }
+            for (int i = 0; i < N / 2; i++) {
+                t.insert(nextKey + rnd.nextInt(1 << 20), i);
+            }
+            nextKey += 1 << 20;
+        }
+        if (t.capacity() != capacity) {
+            throw new AssertionError("capacity grew from " + capacity + " to " + t.capacity());
+        }
+        if (!t.validateRBTree()) {
+            throw new AssertionError("RB property violated after churn");
+        }
+        if (t.insert(t.firstKey(), -1)) {
+            throw new AssertionError("duplicate key must not be inserted");
+        }
+    }
+
+    private static void testCursorAndIterator() {
+        ArrayRedBlackTree<Integer, String> t = new ArrayRedBlackTree<>();
+        TreeMap<Integer, String> ref = new TreeMap<>();
+        Random rnd = new Random(7L);
+        for (int i = 0; i < 2_000; i++) {
+            int k = rnd.nextInt(100_000);
+            t.insert(k, "V" + k);
+            ref.putIfAbsent(k, "V" + k);
+        }
+
+        List<Integer> forward = new ArrayList<>();
+        for (Map.Entry<Integer, String> e : t) {
+            forward.add(e.getKey());
+        }
+        if (!forward.equals(new ArrayList<>(ref.keySet()))) {
+            throw new AssertionError("iterator order mismatch");
+        }
+
+        ArrayRedBlackTree<Integer, String>.Cursor c = t.cursor();
+        List<Integer> backward = new ArrayList<>();
+        for (boolean ok = c.last(); ok; ok = c.previous()) {
+            backward.add(c.key());
+        }
+        if (!backward.equals(new ArrayList<>(ref.descendingKeySet()))) {
+            throw new AssertionError("cursor backward scan mismatch");
+        }
+
+        if (!c.seek(50_000) || !c.key().equals(ref.ceilingKey(50_000))) {
+            throw new AssertionError("cursor seek mismatch");
+        }
+        c.setValue("updated");
+        if (!"updated".equals(t.get(c.key()))) {
+            throw new AssertionError("cursor setValue should write through");
+        }
+        t.delete(ref.firstKey());
+        try {
+            c.next();
+            throw new AssertionError("cursor should fail fast after a structural modification");
+        } catch (ConcurrentModificationException expected) {
+            // ok
+        }
+    }
+
+    private static void testCompact() {
+        ArrayRedBlackTree<Integer, Integer> t = new ArrayRedBlackTree<>();
+        TreeMap<Integer, Integer> ref = new TreeMap<>();
+        Random rnd = new Random(11L);
+        for (int i = 0; i < 20_000; i++) {
+            int k = rnd.nextInt(50_000);
+            t.insert(k, k);
+            ref.putIfAbsent(k, k);
+        }
+        for (int i = 0; i < 10_000; i++) {
+            int k = rnd.nextInt(50_000);
+            t.delete(k);
+            ref.remove(k);
+        }
+        t.compact();
+        if (!t.validateRBTree() || t.capacity() != ref.size()) {
+            throw new AssertionError("compact produced an invalid or oversized tree");
+        }
+        List<Integer> keys = new ArrayList<>();
+        for (Map.Entry<Integer, Integer> e : t) {
+            keys.add(e.getKey());
+        }
+        if (!keys.equals(new ArrayList<>(ref.keySet()))) {
+            throw new AssertionError("compact changed the contents");
+        }
+        // 压缩后仍可正常插入、删除
+        for (int i = 0; i < 5_000; i++) {
+            int k = rnd.nextInt(50_000);
+            if (rnd.nextBoolean()) {
+                t.insert(k, k);
+                ref.putIfAbsent(k, k);
+            } else {
+                t.delete(k);
+                ref.remove(k);
+            }
+        }
+        if (!t.validateRBTree() || t.size() != ref.size()) {
+            throw new AssertionError("tree invalid after operations following compact");
+        }
+        ArrayRedBlackTree<Integer, Integer> empty = new ArrayRedBlackTree<>();
+        empty.compact();
+        if (!empty.validateRBTree() || !empty.insert(1, 1) || empty.get(1) != 1) {
+            throw new AssertionError("compact of an empty tree");
+        }
+    }
+
+    /** 与 RedBlackTree 对比：每条目堆占用与顺序扫描耗时。 */
+    private static void testFootprintAndScanPerformance() {
+        System.out.println("\n====  ArrayRedBlackTree vs RedBlackTree ====");
+        final int N = 1_000_000;
+        Integer[] keys = new Integer[N];
+        Random rnd = new Random(42L);
+        for (int i = 0; i < N; i++) {
+            keys[i] = rnd.nextInt();
+        }
+        final String VALUE = "V";
+
+        long base = usedHeap();
+        ArrayRedBlackTree<Integer, String> array = new ArrayRedBlackTree<>();
+        for (Integer k : keys) {
+            array.insert(k, VALUE);
+        }
+        long arrayBytes = usedHeap() - base;
+
+        base = usedHeap();
+        RedBlackTree<Integer, String> object = new RedBlackTree<>();
+        for (Integer k : keys) {
+            object.insert(k, VALUE);
+        }
+        long objectBytes = usedHeap() - base;
+
+        long arrayNanos = Long.MAX_VALUE, objectNanos = Long.MAX_VALUE;
+        long seen = 0;
+        ArrayRedBlackTree<Integer, String>.Cursor ac = array.cursor();
+        RedBlackTree<Integer, String>.Cursor oc = object.cursor();
+        for (int r = 0; r < 5; r++) {
+            long start = System.nanoTime();
+            for (boolean ok = ac.first(); ok; ok = ac.next()) {
+                seen += ac.key() & 1;
+            }
+            arrayNanos = Math.min(arrayNanos, System.nanoTime() - start);
+
+            start = System.nanoTime();
+            for (boolean ok = oc.first(); ok; ok = oc.next()) {
+                seen += oc.key() & 1;
+            }
+            objectNanos = Math.min(objectNanos, System.nanoTime() - start);
+        }
+        array.compact();
+        long compactNanos = Long.MAX_VALUE;
+        for (int r = 0; r < 5; r++) {
+            long start = System.nanoTime();
+            for (boolean ok = ac.first(); ok; ok = ac.next()) {
+                seen += ac.key() & 1;
+            }
+            compactNanos = Math.min(compactNanos, System.nanoTime() - start);
+        }
+        if (array.size() != object.size() || seen % 15 != 0) {
+            throw new AssertionError("scan mismatch");
+        }
+
+        // 键对象（Integer）两边共享，不计入差值
+        System.out.println("ArrayRedBlackTree 每条目堆占用(字节): " + arrayBytes / N
+                + " 全量扫描(ms): " + arrayNanos / 1_000_000 + " compact 后(ms): " + compactNanos / 1_000_000);
+        System.out.println("RedBlackTree      每条目堆占用(字节): " + objectBytes / N
+                + " 全量扫描(ms): " + objectNanos / 1_000_000);
+    }
+
+    private static long usedHeap() {
+        Runtime rt = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return rt.totalMemory() - rt.freeMemory();
+    }
+}
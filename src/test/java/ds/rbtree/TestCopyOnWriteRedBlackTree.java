@@ -0,0 +1,232 @@
+package ds.rbtree;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+public class TestCopyOnWriteRedBlackTree {
+
+    public static void main(String[] args) throws Exception {
+        try {
+            testRandomOpsAgainstTreeMap();
+            testSnapshotIsolation();
+            testReadersSeeConsistentSnapshots();
+            System.out.println("所有 CopyOnWriteRedBlackTree 测试通过");
+
+            testReadThroughputAgainstLockedTree();
+        } catch (AssertionError e) {
+            System.err.println(e.getMessage());
+            throw e;
+        }
+    }
+
+    private static void testRandomOpsAgainstTreeMap() {
+        CopyOnWriteRedBlackTree<Integer, Integer> t = new CopyOnWriteRedBlackTree<>();
+        TreeMap<Integer, Integer> ref = new TreeMap<>();
+        Random rnd = new Random(1919L);
+
+        for (int op = 0; op < 100_000; op++) {
+            int key = rnd.nextInt(3_000);
+            int kind = rnd.nextInt(10);
+            if (kind < 5) {
+                if (t.insert(key, op) != (ref.putIfAbsent(key, op) == null)) {
+                    throw new AssertionError("insert result mismatch: key=" + key);
+                }
+            } else if (kind < 8) {
+                if (t.delete(key) != (ref.remove(key) != null)) {
+                    throw new AssertionError("delete result mismatch: key=" + key);
+                }
+            } else {
+                CopyOnWriteRedBlackTree.Snapshot<Integer, Integer> s = t.snapshot();
+                if (!Objects.equals(s.get(key), ref.get(key))
+                        || !Objects.equals(s.floor(key), ref.floorKey(key))
+                        || !Objects.equals(s.ceiling(key), ref.ceilingKey(key))) {
+                    throw new AssertionError("lookup mismatch: key=" + key);
+                }
+            }
+            if (op % 1_000 == 0 && !t.validateRBTree()) {
+                throw new AssertionError("RB property violated at op " + op);
+            }
+        }
+        if (!t.validateRBTree() || t.size() != ref.size()) {
+            throw new AssertionError("final state mismatch");
+        }
+        List<Integer> keys = new ArrayList<>();
+        for (Map.Entry<Integer, Integer> e : t.snapshot()) {
+            keys.add(e.getKey());
+        }
+        if (!keys.equals(new ArrayList<>(ref.keySet()))) {
+            throw new AssertionError("iteration order mismatch");
+        }
+
+        // 顺序插入、逆序删除：最容易触发旋转的序列
+        CopyOnWriteRedBlackTree<Integer, Integer> seq = new CopyOnWriteRedBlackTree<>(Comparator.reverseOrder());
+        for (int i = 0; i < 5_000; i++) {
+            seq.insert(i, i);
+        }
+        for (int i = 4_999; i >= 0; i -= 2) {
+            seq.delete(i);
+        }
+        if (!seq.validateRBTree() || seq.size() != 2_500 || seq.get(2) != 2 || seq.get(3) != null) {
+            throw new AssertionError("sequential insert/delete mismatch");
+        }
+    }
+
+    private static void testSnapshotIsolation() {
+        CopyOnWriteRedBlackTree<Integer, String> t = new CopyOnWriteRedBlackTree<>();
+        for (int i = 0; i < 1_000; i++) {
+            t.insert(i, "V" + i);
+        }
+        CopyOnWriteRedBlackTree.Snapshot<Integer, String> before = t.snapshot();
+        Iterator<Map.Entry<Integer, String>> it = before.iterator();
+        it.next();
+
+        for (int i = 0; i < 1_000; i += 2) {
+            t.delete(i);
+        }
+        t.insert(5_000, "new");
+
+        if (before.size() != 1_000 || !"V0".equals(before.get(0)) || before.get(5_000) != null) {
+            throw new AssertionError("old snapshot changed after writes");
+        }
+        int n = 1;
+        while (it.hasNext()) {
+            if (it.next().getKey() != n++) {
+                throw new AssertionError("iterator over old snapshot saw a write");
+            }
+        }
+        if (n != 1_000 || !before.validateRBTree()) {
+            throw new AssertionError("old snapshot iteration incomplete");
+        }
+        if (t.size() != 501 || t.get(0) != null || !"new".equals(t.get(5_000))) {
+            throw new AssertionError("current version mismatch");
+        }
+    }
+
+    /** 读线程在写线程持续修改的同时遍历快照：每个快照都必须有序，且条目数等于其 size。 */
+    private static void testReadersSeeConsistentSnapshots() throws Exception {
+        CopyOnWriteRedBlackTree<Integer, Integer> t = new CopyOnWriteRedBlackTree<>();
+        AtomicBoolean stop = new AtomicBoolean();
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        int readers = Math.max(2, Runtime.getRuntime().availableProcessors() - 1);
+        ExecutorService pool = Executors.newFixedThreadPool(readers);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int r = 0; r < readers; r++) {
+            futures.add(pool.submit(() -> {
+                try {
+                    while (!stop.get()) {
+                        CopyOnWriteRedBlackTree.Snapshot<Integer, Integer> s = t.snapshot();
+                        int count = 0;
+                        int prev = Integer.MIN_VALUE;
+                        for (Map.Entry<Integer, Integer> e : s) {
+                            if (e.getKey() <= prev && count > 0) {
+                                throw new AssertionError("snapshot iteration out of order");
+                            }
+                            prev = e.getKey();
+                            count++;
+                        }
+                        if (count != s.size()) {
+                            throw new AssertionError("snapshot size " + s.size() + " but " + count + " entries");
+                        }
+                    }
+                } catch (Throwable e) {
+                    failure.compareAndSet(null, e);
+                }
+            }));
+        }
+        Random rnd = new Random(5L);
+        for (int op = 0; op < 50_000; op++) {
+            int k = 1 + rnd.nextInt(2_000);
+            if (rnd.nextBoolean()) {
+                t.insert(k, k);
+            } else {
+                t.delete(k);
+            }
+        }
+        stop.set(true);
+        for (Future<?> f : futures) {
+            f.get();
+        }
+        pool.shutdown();
+        if (failure.get() != null) {
+            throw new AssertionError("reader failed: " + failure.get(), failure.get());
+        }
+        if (!t.validateRBTree()) {
+            throw new AssertionError("RB property violated after concurrent run");
+        }
+    }
+
+    /** 多读一写：无锁快照读 vs 读写锁保护的 RedBlackTree。 */
+    private static void testReadThroughputAgainstLockedTree() throws Exception {
+        System.out.println("\n====  CopyOnWriteRedBlackTree vs RedBlackTree + ReentrantReadWriteLock ====");
+        final int N = 100_000;
+        CopyOnWriteRedBlackTree<Integer, Integer> cow = new CopyOnWriteRedBlackTree<>();
+        RedBlackTree<Integer, Integer> locked = new RedBlackTree<>();
+        ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+        for (int i = 0; i < N; i++) {
+            cow.insert(i, i);
+            locked.insert(i, i);
+        }
+        int readers = Math.max(3, Runtime.getRuntime().availableProcessors() - 1);
+        long cowReads = runReaders(readers, key -> cow.get(key), key -> {
+            cow.delete(key);
+            cow.insert(key, key);
+        }, N);
+        long lockedReads = runReaders(readers, key -> {
+            lock.readLock().lock();
+            try {
+                return locked.get(key);
+            } finally {
+                lock.readLock().unlock();
+            }
+        }, key -> {
+            lock.writeLock().lock();
+            try {
+                locked.delete(key);
+                locked.insert(key, key);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }, N);
+        System.out.println(readers + " 个读线程 + 1 个写线程，500ms 内读次数: CopyOnWrite " + cowReads
+                + "，读写锁 " + lockedReads);
+    }
+
+    private static long runReaders(int readers, java.util.function.IntFunction<Integer> read,
+                                   java.util.function.IntConsumer write, int n) throws Exception {
+        AtomicBoolean stop = new AtomicBoolean();
+        AtomicLong reads = new AtomicLong();
+        Thread[] threads = new Thread[readers + 1];
+        for (int r = 0; r < readers; r++) {
+            final int seed = r;
+            threads[r] = new Thread(() -> {
+                SplittableRandom rnd = new SplittableRandom(seed);
+                long local = 0;
+                while (!stop.get()) {
+                    if (read.apply(rnd.nextInt(n)) != null) {
+                        local++;
+                    }
+                }
+                reads.addAndGet(local);
+            });
+        }
+        threads[readers] = new Thread(() -> {
+            SplittableRandom rnd = new SplittableRandom(99L);
+            while (!stop.get()) {
+                write.accept(rnd.nextInt(n));
+            }
+        });
+        for (Thread t : threads) {
+            t.start();
+        }
+        Thread.sleep(500);
+        stop.set(true);
+        for (Thread t : threads) {
+            t.join();
+        }
+        return reads.get();
+    }
+}
@@ -0,0 +1,137 @@
+package ds.rbtree;
+
+import java.util.*;
+
+public class TestIntRedBlackTree {
+
+    public static void main(String[] args) {
+        try {
+            testRandomOpsAgainstTreeMap();
+            testExtremeKeysAndCursor();
+            System.out.println("所有 IntRedBlackTree 测试通过");
+
+            testLookupPerformance();
+        } catch (AssertionError e) {
+            System.err.println(e.getMessage());
+            throw e;
+        }
+    }
+
+    private static void testRandomOpsAgainstTreeMap() {
+        IntRedBlackTree<Integer> t = new IntRedBlackTree<>(4);
+        TreeMap<Integer, Integer> ref = new TreeMap<>();
+        Random rnd = new Random(1717L);
+
+        for (int op = 0; op < 200_000; op++) {
+            int key = (rnd.nextInt(8_000) - 4_000) * (rnd.nextBoolean() ? 1 : 1 << 18);
+            int kind = rnd.nextInt(10);
+            if (kind < 5) {
+                if (t.insert(key, op) != (ref.putIfAbsent(key, op) == null)) {
+                    throw new AssertionError("insert result mismatch: key=" + key);
+                }
+            } else if (kind < 8) {
+                if (t.delete(key) != (ref.remove(key) != null)) {
+                    throw new AssertionError("delete result mismatch: key=" + key);
+                }
+            } else {
+                Integer floor = ref.floorKey(key);
+                Integer ceiling = ref.ceilingKey(key);
+                if (!Objects.equals(t.get(key), ref.get(key))
+                        || t.containsKey(key) != ref.containsKey(key)
+                        || t.floor(key, Integer.MIN_VALUE) != (floor == null ? Integer.MIN_VALUE : floor)
+                        || t.ceiling(key, Integer.MAX_VALUE) != (ceiling == null ? Integer.MAX_VALUE : ceiling)) {
+                    throw new AssertionError("lookup mismatch: key=" + key);
+                }
+            }
+            if (op % 5_000 == 0 && !t.validateRBTree()) {
+                throw new AssertionError("RB property violated at op " + op);
+            }
+        }
+        if (!t.validateRBTree() || t.size() != ref.size()) {
+            throw new AssertionError("final state mismatch");
+        }
+        for (Map.Entry<Integer, Integer> e : ref.entrySet()) {
+            if (!e.getValue().equals(t.get(e.getKey()))) {
+                throw new AssertionError("final value mismatch: key=" + e.getKey());
+            }
+        }
+    }
+
+    private static void testExtremeKeysAndCursor() {
+        IntRedBlackTree<String> t = new IntRedBlackTree<>();
+        int[] keys = {0, -1, 1, Integer.MIN_VALUE, Integer.MAX_VALUE, Integer.MIN_VALUE + 1, Integer.MAX_VALUE - 1};
+        for (int k : keys) {
+            if (!t.insert(k, "V" + k)) {
+                throw new AssertionError("insert failed: " + k);
+            }
+        }
+        if (t.firstKey() != Integer.MIN_VALUE || t.lastKey() != Integer.MAX_VALUE || !t.validateRBTree()) {
+            throw new AssertionError("extreme keys misordered");
+        }
+        int[] sorted = keys.clone();
+        Arrays.sort(sorted);
+        IntRedBlackTree<String>.Cursor c = t.cursor();
+        int i = 0;
+        for (boolean ok = c.first(); ok; ok = c.next()) {
+            if (c.key() != sorted[i] || !c.value().equals("V" + sorted[i])) {
+                throw new AssertionError("cursor mismatch at " + i);
+            }
+            i++;
+        }
+        if (i != sorted.length) {
+            throw new AssertionError("cursor visited " + i + " keys");
+        }
+        if (!c.seek(2) || c.key() != Integer.MAX_VALUE - 1 || !c.previous() || c.key() != 1) {
+            throw new AssertionError("cursor seek/previous mismatch");
+        }
+        try {
+            new IntRedBlackTree<String>().firstKey();
+            throw new AssertionError("firstKey of an empty tree should throw");
+        } catch (NoSuchElementException expected) {
+            // ok
+        }
+    }
+
+    /** 与 RedBlackTree<Integer, V> 对比查找耗时：装箱键 + compareTo vs 原始类型直接比较。 */
+    private static void testLookupPerformance() {
+        System.out.println("\n====  IntRedBlackTree vs RedBlackTree<Integer, V> ====");
+        final int N = 1_000_000;
+        final String VALUE = "V";
+        int[] keys = new int[N];
+        Random rnd = new Random(42L);
+        for (int i = 0; i < N; i++) {
+            keys[i] = rnd.nextInt();
+        }
+        IntRedBlackTree<String> primitive = new IntRedBlackTree<>();
+        RedBlackTree<Integer, String> boxed = new RedBlackTree<>();
+        for (int k : keys) {
+            primitive.insert(k, VALUE);
+            boxed.insert(k, VALUE);
+        }
+
+        long primitiveNanos = Long.MAX_VALUE, boxedNanos = Long.MAX_VALUE;
+        int found = 0;
+        for (int r = 0; r < 5; r++) {
+            long start = System.nanoTime();
+            for (int k : keys) {
+                if (primitive.get(k) != null) {
+                    found++;
+                }
+            }
+            primitiveNanos = Math.min(primitiveNanos, (System.nanoTime() - start) / N);
+
+            start = System.nanoTime();
+            for (int k : keys) {
+                if (boxed.get(k) != null) {   // 每次查找都装箱一次
+                    found++;
+                }
+            }
+            boxedNanos = Math.min(boxedNanos, (System.nanoTime() - start) / N);
+        }
+        if (found != 10 * N) {
+            throw new AssertionError("lookup count mismatch");
+        }
+        System.out.println("IntRedBlackTree          查找(ns): " + primitiveNanos);
+        System.out.println("RedBlackTree<Integer, V> 查找(ns): " + boxedNanos);
+    }
+}
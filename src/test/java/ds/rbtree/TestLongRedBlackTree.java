@@ -0,0 +1,137 @@
+package ds.rbtree;
+
+import java.util.*;
+
+public class TestLongRedBlackTree {
+
+    public static void main(String[] args) {
+        try {
+            testRandomOpsAgainstTreeMap();
+            testExtremeKeysAndCursor();
+            System.out.println("所有 LongRedBlackTree 测试通过");
+
+            testLookupPerformance();
+        } catch (AssertionError e) {
+            System.err.println(e.getMessage());
+            throw e;
+        }
+    }
+
+    private static void testRandomOpsAgainstTreeMap() {
+        LongRedBlackTree<Integer> t = new LongRedBlackTree<>(4);
+        TreeMap<Long, Integer> ref = new TreeMap<>();
+        Random rnd = new Random(1717L);
+
+        for (int op = 0; op < 200_000; op++) {
+            long key = (rnd.nextInt(8_000) - 4_000) * (rnd.nextBoolean() ? 1L : 1L << 50);
+            int kind = rnd.nextInt(10);
+            if (kind < 5) {
+                if (t.insert(key, op) != (ref.putIfAbsent(key, op) == null)) {
+                    throw new AssertionError("insert result mismatch: key=" + key);
+                }
+            } else if (kind < 8) {
+                if (t.delete(key) != (ref.remove(key) != null)) {
+                    throw new AssertionError("delete result mismatch: key=" + key);
+                }
+            } else {
+                Long floor = ref.floorKey(key);
+                Long ceiling = ref.ceilingKey(key);
+                if (!Objects.equals(t.get(key), ref.get(key))
+                        || t.containsKey(key) != ref.containsKey(key)
+                        || t.floor(key, Long.MIN_VALUE) != (floor == null ? Long.MIN_VALUE : floor)
+                        || t.ceiling(key, Long.MAX_VALUE) != (ceiling == null ? Long.MAX_VALUE : ceiling)) {
+                    throw new AssertionError("lookup mismatch: key=" + key);
+                }
+            }
+            if (op % 5_000 == 0 && !t.validateRBTree()) {
+                throw new AssertionError("RB property violated at op " + op);
+            }
+        }
+        if (!t.validateRBTree() || t.size() != ref.size()) {
+            throw new AssertionError("final state mismatch");
+        }
+        for (Map.Entry<Long, Integer> e : ref.entrySet()) {
+            if (!e.getValue().equals(t.get(e.getKey()))) {
+                throw new AssertionError("final value mismatch: key=" + e.getKey());
+            }
+        }
+    }
+
+    private static void testExtremeKeysAndCursor() {
+        LongRedBlackTree<String> t = new LongRedBlackTree<>();
+        long[] keys = {0, -1, 1, Long.MIN_VALUE, Long.MAX_VALUE, Long.MIN_VALUE + 1, Long.MAX_VALUE - 1};
+        for (long k : keys) {
+            if (!t.insert(k, "V" + k)) {
+                throw new AssertionError("insert failed: " + k);
+            }
+        }
+        if (t.firstKey() != Long.MIN_VALUE || t.lastKey() != Long.MAX_VALUE || !t.validateRBTree()) {
+            throw new AssertionError("extreme keys misordered");
+        }
+        long[] sorted = keys.clone();
+        Arrays.sort(sorted);
+        LongRedBlackTree<String>.Cursor c = t.cursor();
+        int i = 0;
+        for (boolean ok = c.first(); ok; ok = c.next()) {
+            if (c.key() != sorted[i] || !c.value().equals("V" + sorted[i])) {
+                throw new AssertionError("cursor mismatch at " + i);
+            }
+            i++;
+        }
+        if (i != sorted.length) {
+            throw new AssertionError("cursor visited " + i + " keys");
+        }
+        if (!c.seek(2) || c.key() != Long.MAX_VALUE - 1 || !c.previous() || c.key() != 1) {
+            throw new AssertionError("cursor seek/previous mismatch");
+        }
+        try {
+            new LongRedBlackTree<String>().firstKey();
+            throw new AssertionError("firstKey of an empty tree should throw");
+        } catch (NoSuchElementException expected) {
+            // ok
+        }
+    }
+
+    /** 与 RedBlackTree<Long, V> 对比查找耗时：装箱键 + compareTo vs 原始类型直接比较。 */
+    private static void testLookupPerformance() {
+        System.out.println("\n====  LongRedBlackTree vs RedBlackTree<Long, V> ====");
+        final int N = 1_000_000;
+        final String VALUE = "V";
+        long[] keys = new long[N];
+        Random rnd = new Random(42L);
+        for (int i = 0; i < N; i++) {
+            keys[i] = rnd.nextLong();
+        }
+        LongRedBlackTree<String> primitive = new LongRedBlackTree<>();
+        RedBlackTree<Long, String> boxed = new RedBlackTree<>();
+        for (long k : keys) {
+            primitive.insert(k, VALUE);
+            boxed.insert(k, VALUE);
+        }
+
+        long primitiveNanos = Long.MAX_VALUE, boxedNanos = Long.MAX_VALUE;
+        int found = 0;
+        for (int r = 0; r < 5; r++) {
+            long start = System.nanoTime();
+            for (long k : keys) {
+                if (primitive.get(k) != null) {
+                    found++;
+                }
+            }
+            primitiveNanos = Math.min(primitiveNanos, (System.nanoTime() - start) / N);
+
+            start = System.nanoTime();
+            for (long k : keys) {
+                if (boxed.get(k) != null) {   // 每次查找都装箱一次
+                    found++;
+                }
+            }
+            boxedNanos = Math.min(boxedNanos, (System.nanoTime() - start) / N);
+        }
+        if (found != 10 * N) {
+            throw new AssertionError("lookup count mismatch");
+        }
+        System.out.println("LongRedBlackTree      查找(ns): " + primitiveNanos);
+        System.out.println("RedBlackTree<Long, V> 查找(ns): " + boxedNanos);
+    }
+}
@@ -17,6 +17,30 @@ public class TestRedBlackTree {
             testDeleteDescending();
             testDeleteRandomStressAgainstTreeMap();
             System.out.println("所有删除性质测试通过");
+
+            testComparisonsPerOperation();
+
+            testNavigationAgainstTreeMap();
+            testRangeIterator();
+            System.out.println("所有导航/范围查询测试通过");
+
+            testOrderStatisticsAgainstTreeMap();
+            testOrderStatisticsDisabled();
+            System.out.println("所有顺序统计测试通过");
+
+            testBuildFromSorted();
+            testInsertAllAgainstTreeMap();
+            System.out.println("所有批量构建测试通过");
+
+            testIteratorsAgainstTreeMap();
+            testCursorScanAllocatesNothing();
+            testSpliteratorSplitsBySubtree();
+            testEntriesFollowMapEntryContract();
+            System.out.println("所有迭代器/游标/Spliterator 测试通过");
+
+            testComparatorAgainstTreeMap();
+            testComparatorWithNonComparableKeys();
+            System.out.println("所有 Comparator 测试通过");
         } catch (AssertionError e) {
             System.err.println(e.getMessage());
             throw e;
@@ -84,7 +108,7 @@ public class TestRedBlackTree {
         }
     }
 
-    private static <K extends Comparable<K>, V> void dumpTree(RedBlackTree<K, V> t) {
+    private static <K, V> void dumpTree(RedBlackTree<K, V> t) {
         System.err.println("\n========== RBTree Dump ==========");
 
         try {
@@ -274,7 +298,7 @@ public class TestRedBlackTree {
         assertValid(t, tag + " key=" + key);
     }
 
-    private static <K extends Comparable<K>, V> void assertValid(RedBlackTree<K, V> t, String tag) {
+    private static <K, V> void assertValid(RedBlackTree<K, V> t, String tag) {
         boolean valid = t.validateRBTree();
         if (!valid) {
             dumpTree(t);
@@ -282,4 +306,598 @@ public class TestRedBlackTree {
         }
     }
 
+    /** get / insert 每层只调用一次 compareTo：单次比较数不超过红黑树高度上界 2*log2(n+1)。 */
+    private static void testComparisonsPerOperation() {
+        final int N = 1 << 16;
+        RedBlackTree<CountingKey, Integer> t = new RedBlackTree<>();
+        Random rnd = new Random(99L);
+        List<Integer> ids = new ArrayList<>();
+        for (int i = 0; i < N; i++) {
+            ids.add(i);
+        }
+        Collections.shuffle(ids, rnd);
+
+        int heightBound = (int) Math.floor(2 * Math.log(N + 1) / Math.log(2));
+        long insertComparisons = 0;
+        for (int id : ids) {
+            CountingKey.calls = 0;
+            t.insert(new CountingKey(id), id);
+            if (CountingKey.calls > heightBound) {
+                throw new AssertionError("insert compared " + CountingKey.calls + " times, bound " + heightBound);
+            }
+            insertComparisons += CountingKey.calls;
+        }
+
+        long getComparisons = 0;
+        for (int id : ids) {
+            CountingKey.calls = 0;
+            Integer v = t.get(new CountingKey(id));
+            if (v == null || v != id) {
+                throw new AssertionError("get failed: key=" + id);
+            }
+            if (CountingKey.calls > heightBound) {
+                throw new AssertionError("get compared " + CountingKey.calls + " times, bound " + heightBound);
+            }
+            getComparisons += CountingKey.calls;
+        }
+
+        double log2n = Math.log(N) / Math.log(2);
+        double avgGet = (double) getComparisons / N;
+        if (avgGet > 1.5 * log2n) {
+            throw new AssertionError("get averaged " + avgGet + " comparisons for log2(n)=" + log2n);
+        }
+        System.out.printf("n=%d 平均比较次数: insert %.2f, get %.2f (log2 n = %.0f)%n",
+                N, (double) insertComparisons / N, avgGet, log2n);
+    }
+
+    private static void testNavigationAgainstTreeMap() {
+        RedBlackTree<Integer, Integer> t = new RedBlackTree<>();
+        TreeMap<Integer, Integer> ref = new TreeMap<>();
+        Random rnd = new Random(4242L);
+
+        if (t.firstKey() != null || t.lastKey() != null || t.pollFirst() != null || t.pollLast() != null) {
+            throw new AssertionError("empty tree navigation should return null");
+        }
+        for (int i = 0; i < 5_000; i++) {
+            int k = rnd.nextInt(20_000) * 2;   // 只插入偶数，奇数探测键必然不存在
+            t.insert(k, k);
+            ref.putIfAbsent(k, k);
+        }
+        for (int probe = -3; probe < 40_003; probe++) {
+            Integer key = probe;
+            if (!Objects.equals(t.floor(key), ref.floorKey(key))
+                    || !Objects.equals(t.ceiling(key), ref.ceilingKey(key))
+                    || !Objects.equals(t.higher(key), ref.higherKey(key))
+                    || !Objects.equals(t.lower(key), ref.lowerKey(key))) {
+                throw new AssertionError("navigation mismatch at probe=" + probe);
+            }
+        }
+        while (!ref.isEmpty()) {
+            if (!Objects.equals(t.firstKey(), ref.firstKey()) || !Objects.equals(t.lastKey(), ref.lastKey())) {
+                throw new AssertionError("first/last mismatch");
+            }
+            Map.Entry<Integer, Integer> got = rnd.nextBoolean() ? t.pollFirst() : t.pollLast();
+            Map.Entry<Integer, Integer> expected = got.getKey().equals(ref.firstKey()) ? ref.pollFirstEntry() : ref.pollLastEntry();
+            if (!got.equals(expected)) {
+                throw new AssertionError("poll mismatch: got " + got + " expected " + expected);
+            }
+            assertValid(t, "poll");
+        }
+        if (t.firstKey() != null) {
+            throw new AssertionError("tree should be empty after polling everything");
+        }
+    }
+
+    private static void testRangeIterator() {
+        RedBlackTree<Integer, Integer> t = new RedBlackTree<>();
+        TreeMap<Integer, Integer> ref = new TreeMap<>();
+        Random rnd = new Random(777L);
+        for (int i = 0; i < 10_000; i++) {
+            int k = rnd.nextInt(50_000);
+            t.insert(k, k);
+            ref.putIfAbsent(k, k);
+        }
+
+        for (int q = 0; q < 500; q++) {
+            int from = rnd.nextInt(52_000) - 1_000;
+            int to = from + rnd.nextInt(3_000);
+            List<Integer> got = new ArrayList<>();
+            for (Iterator<Map.Entry<Integer, Integer>> it = t.range(from, to); it.hasNext(); ) {
+                got.add(it.next().getKey());
+            }
+            List<Integer> expected = new ArrayList<>(ref.subMap(from, true, to, false).keySet());
+            if (!got.equals(expected)) {
+                throw new AssertionError("range mismatch: [" + from + ", " + to + ")");
+            }
+        }
+
+        // setValue 写穿到树中；remove 删除刚返回的条目，迭代继续
+        for (Iterator<Map.Entry<Integer, Integer>> it = t.range(10_000, 20_000); it.hasNext(); ) {
+            Map.Entry<Integer, Integer> e = it.next();
+            if (e.getKey() % 3 == 0) {
+                it.remove();
+                ref.remove(e.getKey());
+            } else {
+                e.setValue(-e.getKey());
+                ref.put(e.getKey(), -e.getKey());
+            }
+        }
+        assertValid(t, "range remove");
+        for (Map.Entry<Integer, Integer> e : ref.entrySet()) {
+            if (!e.getValue().equals(t.get(e.getKey()))) {
+                throw new AssertionError("value mismatch after range update: key=" + e.getKey());
+            }
+        }
+        for (int k = 10_002; k < 20_000; k += 3) {
+            if (t.get(k) != null) {
+                throw new AssertionError("range remove ineffective: key=" + k);
+            }
+        }
+        if (t.range(5, 5).hasNext() || t.range(100_000, 200_000).hasNext()) {
+            throw new AssertionError("empty range should have no entries");
+        }
+    }
+
+    private static void testOrderStatisticsAgainstTreeMap() {
+        RedBlackTree<Integer, Integer> t = new RedBlackTree<>(true);
+        TreeMap<Integer, Integer> ref = new TreeMap<>();
+        Random rnd = new Random(1313L);
+
+        for (int op = 0; op < 60_000; op++) {
+            int k = rnd.nextInt(10_000);
+            int kind = rnd.nextInt(10);
+            if (kind < 5) {
+                t.insert(k, k);
+                ref.putIfAbsent(k, k);
+            } else if (kind < 8) {
+                deleteExpect(t, k, ref.remove(k) != null, "os-delete");
+            } else if (kind == 8 && !ref.isEmpty()) {
+                Map.Entry<Integer, Integer> e = rnd.nextBoolean() ? t.pollFirst() : t.pollLast();
+                ref.remove(e.getKey());
+            } else {
+                // 通过范围迭代器删除，覆盖 iterator.remove 路径
+                Iterator<Map.Entry<Integer, Integer>> it = t.range(k, k + 20);
+                while (it.hasNext()) {
+                    ref.remove(it.next().getKey());
+                    it.remove();
+                }
+            }
+            if (t.size() != ref.size()) {
+                throw new AssertionError("size mismatch at op=" + op + ": " + t.size() + " vs " + ref.size());
+            }
+            if (op % 1_000 == 0) {
+                assertValid(t, "order statistics op=" + op);
+            }
+        }
+        assertValid(t, "order statistics final");
+
+        List<Integer> sorted = new ArrayList<>(ref.keySet());
+        for (int i = 0; i < sorted.size(); i++) {
+            if (!sorted.get(i).equals(t.select(i))) {
+                throw new AssertionError("select(" + i + ") = " + t.select(i) + ", expected " + sorted.get(i));
+            }
+        }
+        for (int k = -5; k < 10_005; k++) {
+            int expected = ref.headMap(k, false).size();
+            if (t.rank(k) != expected) {
+                throw new AssertionError("rank(" + k + ") = " + t.rank(k) + ", expected " + expected);
+            }
+        }
+        for (int q = 0; q < 2_000; q++) {
+            int lo = rnd.nextInt(10_200) - 100;
+            int hi = lo + rnd.nextInt(3_000) - 500;
+            int expected = lo < hi ? ref.subMap(lo, true, hi, false).size() : 0;
+            if (t.countInRange(lo, hi) != expected) {
+                throw new AssertionError("countInRange(" + lo + ", " + hi + ") mismatch");
+            }
+        }
+        try {
+            t.select(t.size());
+            throw new AssertionError("select(size) should throw");
+        } catch (IndexOutOfBoundsException expected) {
+            // ok
+        }
+    }
+
+    private static void testOrderStatisticsDisabled() {
+        RedBlackTree<Integer, Integer> t = new RedBlackTree<>();
+        for (int k = 0; k < 100; k++) {
+            t.insert(k, k);
+        }
+        t.delete(50);
+        if (t.size() != 99) {
+            throw new AssertionError("size() must work without order statistics");
+        }
+        try {
+            t.rank(10);
+            throw new AssertionError("rank should throw when order statistics are disabled");
+        } catch (UnsupportedOperationException expected) {
+            // ok
+        }
+    }
+
+    private static void testBuildFromSorted() {
+        for (int n = 0; n <= 300; n++) {
+            Integer[] keys = new Integer[n];
+            String[] values = new String[n];
+            for (int i = 0; i < n; i++) {
+                keys[i] = i * 3;
+                values[i] = "V" + i * 3;
+            }
+            RedBlackTree<Integer, String> t = RedBlackTree.buildFromSorted(keys, values, true);
+            assertValid(t, "buildFromSorted n=" + n);
+            if (t.size() != n) {
+                throw new AssertionError("buildFromSorted size mismatch: n=" + n);
+            }
+            for (int i = 0; i < n; i++) {
+                if (!values[i].equals(t.get(keys[i])) || t.select(i) != i * 3) {
+                    throw new AssertionError("buildFromSorted content mismatch: n=" + n + " i=" + i);
+                }
+            }
+            // 构建后的树仍可正常增删
+            t.insert(-1, "neg");
+            t.delete(0);
+            assertValid(t, "buildFromSorted then modify n=" + n);
+        }
+
+        TreeMap<String, Integer> source = new TreeMap<>();
+        for (int i = 0; i < 1_000; i++) {
+            source.put("k" + i, i);
+        }
+        RedBlackTree<String, Integer> fromIterator = RedBlackTree.buildFromSorted(source.entrySet().iterator(), false);
+        assertValid(fromIterator, "buildFromSorted(iterator)");
+        for (Map.Entry<String, Integer> e : source.entrySet()) {
+            if (!e.getValue().equals(fromIterator.get(e.getKey()))) {
+                throw new AssertionError("buildFromSorted(iterator) mismatch: key=" + e.getKey());
+            }
+        }
+
+        try {
+            RedBlackTree.buildFromSorted(new Integer[]{1, 3, 2}, null);
+            throw new AssertionError("unsorted input should be rejected");
+        } catch (IllegalArgumentException expected) {
+            // ok
+        }
+        try {
+            RedBlackTree.buildFromSorted(new Integer[]{1, 2, 2}, null);
+            throw new AssertionError("duplicate keys should be rejected");
+        } catch (IllegalArgumentException expected) {
+            // ok
+        }
+    }
+
+    private static void testInsertAllAgainstTreeMap() {
+        Random rnd = new Random(2024L);
+        for (int batchSize : new int[]{5, 200, 5_000}) {   // 小批量逐个插入，大批量合并重建
+            RedBlackTree<Integer, Integer> t = new RedBlackTree<>(true);
+            TreeMap<Integer, Integer> ref = new TreeMap<>();
+            for (int i = 0; i < 3_000; i++) {
+                int k = rnd.nextInt(20_000);
+                t.insert(k, k);
+                ref.putIfAbsent(k, k);
+            }
+            for (int round = 0; round < 5; round++) {
+                TreeSet<Integer> batch = new TreeSet<>();
+                while (batch.size() < batchSize) {
+                    batch.add(rnd.nextInt(20_000));
+                }
+                Integer[] keys = batch.toArray(new Integer[0]);
+                Integer[] values = new Integer[keys.length];
+                int expectedAdded = 0;
+                for (int i = 0; i < keys.length; i++) {
+                    values[i] = -keys[i];
+                    if (ref.putIfAbsent(keys[i], values[i]) == null) {
+                        expectedAdded++;
+                    }
+                }
+                int added = t.insertAll(keys, values);
+                if (added != expectedAdded || t.size() != ref.size()) {
+                    throw new AssertionError("insertAll count mismatch: batch=" + batchSize);
+                }
+                assertValid(t, "insertAll batch=" + batchSize);
+            }
+            for (Map.Entry<Integer, Integer> e : ref.entrySet()) {
+                if (!e.getValue().equals(t.get(e.getKey()))) {
+                    throw new AssertionError("insertAll value mismatch: key=" + e.getKey());
+                }
+            }
+            if (t.rank(10_000) != ref.headMap(10_000).size()) {
+                throw new AssertionError("insertAll broke subtree sizes");
+            }
+        }
+    }
+
+    private static void testIteratorsAgainstTreeMap() {
+        RedBlackTree<Integer, Integer> t = new RedBlackTree<>();
+        TreeMap<Integer, Integer> ref = new TreeMap<>();
+        Random rnd = new Random(515L);
+        for (int i = 0; i < 5_000; i++) {
+            int k = rnd.nextInt(100_000);
+            t.insert(k, k);
+            ref.putIfAbsent(k, k);
+        }
+
+        List<Integer> ascending = new ArrayList<>();
+        for (Map.Entry<Integer, Integer> e : t) {
+            ascending.add(e.getKey());
+        }
+        if (!ascending.equals(new ArrayList<>(ref.keySet()))) {
+            throw new AssertionError("ascending iteration mismatch");
+        }
+        List<Integer> descending = new ArrayList<>();
+        for (Iterator<Map.Entry<Integer, Integer>> it = t.descendingIterator(); it.hasNext(); ) {
+            descending.add(it.next().getKey());
+        }
+        if (!descending.equals(new ArrayList<>(ref.descendingKeySet()))) {
+            throw new AssertionError("descending iteration mismatch");
+        }
+
+        // 迭代器 remove 后可继续；其他结构修改则快速失败
+        for (Iterator<Map.Entry<Integer, Integer>> it = t.descendingIterator(); it.hasNext(); ) {
+            int k = it.next().getKey();
+            if (k % 2 == 0) {
+                it.remove();
+                ref.remove(k);
+            }
+        }
+        assertValid(t, "descending iterator remove");
+        if (t.size() != ref.size()) {
+            throw new AssertionError("size mismatch after iterator remove");
+        }
+        Iterator<Map.Entry<Integer, Integer>> it = t.iterator();
+        it.next();
+        t.insert(-1, -1);
+        try {
+            it.next();
+            throw new AssertionError("iterator should fail fast after a structural modification");
+        } catch (ConcurrentModificationException expected) {
+            // ok
+        }
+
+        RedBlackTree<Integer, Integer>.Cursor c = t.cursor();
+        List<Integer> viaCursor = new ArrayList<>();
+        for (boolean ok = c.last(); ok; ok = c.previous()) {
+            viaCursor.add(c.key());
+        }
+        ref.put(-1, -1);
+        if (!viaCursor.equals(new ArrayList<>(ref.descendingKeySet()))) {
+            throw new AssertionError("cursor backward scan mismatch");
+        }
+        if (!c.seek(50_001) || c.key() != (int) ref.ceilingKey(50_001)) {
+            throw new AssertionError("cursor seek mismatch");
+        }
+    }
+
+    private static void testCursorScanAllocatesNothing() {
+        java.lang.management.ThreadMXBean bean = java.lang.management.ManagementFactory.getThreadMXBean();
+        if (!(bean instanceof com.sun.management.ThreadMXBean)) {
+            System.out.println("当前 JVM 不支持线程分配统计，跳过");
+            return;
+        }
+        com.sun.management.ThreadMXBean threadBean = (com.sun.management.ThreadMXBean) bean;
+        long tid = Thread.currentThread().getId();
+
+        final int N = 100_000;
+        Integer[] keys = new Integer[N];
+        for (int i = 0; i < N; i++) {
+            keys[i] = i;
+        }
+        RedBlackTree<Integer, Integer> t = RedBlackTree.buildFromSorted(keys, keys);
+        RedBlackTree<Integer, Integer>.Cursor c = t.cursor();
+
+        long sum = 0;
+        long before = threadBean.getThreadAllocatedBytes(tid);
+        for (int round = 0; round < 10; round++) {
+            for (boolean ok = c.first(); ok; ok = c.next()) {
+                sum += c.value();
+            }
+        }
+        long allocated = threadBean.getThreadAllocatedBytes(tid) - before;
+        if (sum != 10L * N * (N - 1) / 2) {
+            throw new AssertionError("cursor scan sum mismatch");
+        }
+        // 余量只留给 getThreadAllocatedBytes 自身的开销
+        if (allocated > 1_024) {
+            throw new AssertionError("cursor scan allocated " + allocated + " bytes");
+        }
+        System.out.println("游标扫描 " + 10 * N + " 个条目，分配字节数: " + allocated);
+    }
+
+    private static void testSpliteratorSplitsBySubtree() {
+        final int N = 10_000;
+        Integer[] keys = new Integer[N];
+        for (int i = 0; i < N; i++) {
+            keys[i] = i;
+        }
+        RedBlackTree<Integer, Integer> t = RedBlackTree.buildFromSorted(keys, keys);
+
+        Spliterator<Map.Entry<Integer, Integer>> root = t.spliterator();
+        if (root.estimateSize() != N || !root.hasCharacteristics(Spliterator.SIZED | Spliterator.SORTED)) {
+            throw new AssertionError("top-level spliterator should be SIZED and SORTED");
+        }
+        Spliterator<Map.Entry<Integer, Integer>> prefix = root.trySplit();
+        long prefixSize = countRemaining(prefix);
+        long suffixSize = countRemaining(root);
+        if (prefixSize + suffixSize != N || Math.min(prefixSize, suffixSize) < N / 4) {
+            throw new AssertionError("first split unbalanced: " + prefixSize + " / " + suffixSize);
+        }
+
+        // 随机拆分并穿插 tryAdvance，拼接后必须恰好是有序全集
+        Random rnd = new Random(8L);
+        for (int trial = 0; trial < 50; trial++) {
+            List<Integer> seen = new ArrayList<>();
+            collectBySplitting(t.spliterator(), seen, rnd, 0);
+            for (int i = 0; i < N; i++) {
+                if (seen.get(i) != i) {
+                    throw new AssertionError("spliterator partition mismatch at " + i);
+                }
+            }
+            if (seen.size() != N) {
+                throw new AssertionError("spliterator partition size " + seen.size());
+            }
+        }
+
+        long parallelSum = t.stream().parallel().mapToLong(Map.Entry::getValue).sum();
+        List<Integer> ordered = t.stream().parallel().map(Map.Entry::getKey)
+                .collect(java.util.stream.Collectors.toList());
+        if (parallelSum != (long) N * (N - 1) / 2 || !ordered.equals(Arrays.asList(keys))) {
+            throw new AssertionError("parallel stream mismatch");
+        }
+    }
+
+    private static long countRemaining(Spliterator<Map.Entry<Integer, Integer>> s) {
+        long[] n = {0};
+        s.forEachRemaining(e -> n[0]++);
+        return n[0];
+    }
+
+    private static void collectBySplitting(Spliterator<Map.Entry<Integer, Integer>> s, List<Integer> out,
+                                           Random rnd, int depth) {
+        while (rnd.nextInt(4) == 0 && s.tryAdvance(e -> out.add(e.getKey()))) {
+            // 先消费几个元素，再尝试拆分
+        }
+        Spliterator<Map.Entry<Integer, Integer>> prefix = (depth < 12) ? s.trySplit() : null;
+        if (prefix != null) {
+            collectBySplitting(prefix, out, rnd, depth + 1);
+            collectBySplitting(s, out, rnd, depth + 1);
+        } else {
+            s.forEachRemaining(e -> out.add(e.getKey()));
+        }
+    }
+
+    private static void testEntriesFollowMapEntryContract() {
+        RedBlackTree<Integer, String> t = new RedBlackTree<>();
+        TreeMap<Integer, String> ref = new TreeMap<>();
+        for (int k = 0; k < 1_000; k++) {
+            t.insert(k, "v" + k);
+            ref.put(k, "v" + k);
+        }
+
+        Iterator<Map.Entry<Integer, String>> it = t.iterator();
+        Map.Entry<Integer, String> first = it.next();
+        if (!first.equals(Map.entry(0, "v0")) || !Map.entry(0, "v0").equals(first)) {
+            throw new AssertionError("entry should equal Map.entry with the same key and value");
+        }
+        if (first.hashCode() != Map.entry(0, "v0").hashCode()) {
+            throw new AssertionError("entry hashCode should match Map.entry");
+        }
+        if (first.equals(Map.entry(0, "other")) || first.equals(it.next())) {
+            throw new AssertionError("entries with a different key or value should not be equal");
+        }
+
+        Set<Map.Entry<Integer, String>> viaIterator = new HashSet<>();
+        for (Map.Entry<Integer, String> e : t) {
+            viaIterator.add(e);
+        }
+        if (!viaIterator.equals(ref.entrySet()) || !ref.entrySet().equals(viaIterator)) {
+            throw new AssertionError("iterated entries should equal TreeMap.entrySet()");
+        }
+        Set<Map.Entry<Integer, String>> viaStream = t.stream().collect(java.util.stream.Collectors.toSet());
+        if (!viaStream.equals(ref.entrySet())) {
+            throw new AssertionError("streamed entries should equal TreeMap.entrySet()");
+        }
+        List<Map.Entry<Integer, String>> range = new ArrayList<>();
+        t.range(100, 200).forEachRemaining(range::add);
+        if (!range.equals(new ArrayList<>(ref.subMap(100, 200).entrySet()))) {
+            throw new AssertionError("range entries should equal the TreeMap sub-map entries");
+        }
+    }
+
+    private static void testComparatorAgainstTreeMap() {
+        Comparator<String> order = String.CASE_INSENSITIVE_ORDER.reversed();
+        RedBlackTree<String, Integer> t = new RedBlackTree<>(order, true);
+        TreeMap<String, Integer> ref = new TreeMap<>(order);
+        Random rnd = new Random(1818L);
+        for (int op = 0; op < 50_000; op++) {
+            // 大小写不同的键在该顺序下相等
+            String key = Integer.toString(rnd.nextInt(3_000), 36);
+            if (rnd.nextBoolean()) {
+                key = key.toUpperCase();
+            }
+            int kind = rnd.nextInt(10);
+            if (kind < 5) {
+                if (t.insert(key, op) != (ref.putIfAbsent(key, op) == null)) {
+                    throw new AssertionError("insert result mismatch: key=" + key);
+                }
+            } else if (kind < 8) {
+                if (t.delete(key) != (ref.remove(key) != null)) {
+                    throw new AssertionError("delete result mismatch: key=" + key);
+                }
+            } else {
+                if (!Objects.equals(t.get(key), ref.get(key))
+                        || !Objects.equals(t.ceiling(key), ref.ceilingKey(key))
+                        || !Objects.equals(t.lower(key), ref.lowerKey(key))
+                        || t.rank(key) != ref.headMap(key).size()) {
+                    throw new AssertionError("lookup mismatch: key=" + key);
+                }
+            }
+        }
+        assertValid(t, "comparator random ops");
+        List<String> keys = new ArrayList<>();
+        t.forEach(e -> keys.add(e.getKey()));
+        if (!keys.equals(new ArrayList<>(ref.keySet())) || !t.select(0).equals(ref.firstKey())) {
+            throw new AssertionError("comparator iteration order mismatch");
+        }
+        if (t.comparator() != order || new RedBlackTree<String, Integer>().comparator() != null) {
+            throw new AssertionError("comparator() mismatch");
+        }
+
+        String[] sorted = keys.toArray(new String[0]);
+        RedBlackTree<String, String> built = RedBlackTree.buildFromSorted(sorted, sorted, order, false);
+        assertValid(built, "buildFromSorted with comparator");
+        try {
+            RedBlackTree.buildFromSorted(sorted, null, String.CASE_INSENSITIVE_ORDER, false);
+            throw new AssertionError("buildFromSorted should reject keys out of comparator order");
+        } catch (IllegalArgumentException expected) {
+            // ok
+        }
+    }
+
+    /** Comparator 允许键类型本身不实现 Comparable，不需要为每个键包一层适配对象。 */
+    private static void testComparatorWithNonComparableKeys() {
+        final class Point {
+            final int x, y;
+            Point(int x, int y) { this.x = x; this.y = y; }
+        }
+        Comparator<Point> byXThenY = Comparator.<Point>comparingInt(p -> p.x).thenComparingInt(p -> p.y);
+        RedBlackTree<Point, String> t = new RedBlackTree<>(byXThenY);
+        for (int x = 9; x >= 0; x--) {
+            for (int y = 0; y < 10; y++) {
+                t.insert(new Point(x, y), x + "," + y);
+            }
+        }
+        assertValid(t, "non-comparable keys");
+        if (!"3,7".equals(t.get(new Point(3, 7))) || t.firstKey().x != 0 || t.lastKey().y != 9) {
+            throw new AssertionError("non-comparable key lookup mismatch");
+        }
+
+        RedBlackTree<Point, String> natural = new RedBlackTree<>();
+        try {
+            natural.insert(new Point(1, 1), "x");
+            throw new AssertionError("natural ordering should reject a non-comparable key");
+        } catch (ClassCastException expected) {
+            // ok
+        }
+    }
+
+    private static final class CountingKey implements Comparable<CountingKey> {
+        static int calls;
+        final int id;
+
+        CountingKey(int id) {
+            this.id = id;
+        }
+
+        @Override
+        public int compareTo(CountingKey o) {
+            calls++;
+            return Integer.compare(id, o.id);
+        }
+
+        @Override
+        public String toString() {
+            return String.valueOf(id);
+        }
+    }
+
 }